@@ -0,0 +1,154 @@
+package com.ApiGateway.accesslog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log pipeline of the gateway. Event-loop threads only decide on sampling
+ * and offer an {@link AccessLogEntry} to a lock-free ring buffer; one background
+ * thread drains it in batches and does the formatting and the appender I/O.
+ *
+ * When the writer falls behind and the buffer is full, new entries are dropped
+ * and counted (gateway.accesslog.dropped) rather than ever blocking a request.
+ * Entries go to the "gateway.access" logger.
+ */
+@Component
+public class AccessLog {
+
+	private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+
+	private static final Logger accessLogger = LoggerFactory.getLogger("gateway.access");
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${gateway.access-log.enabled:true}")
+	private boolean enabled = true;
+
+	// share of successful requests that are logged; 4xx / 5xx are always kept
+	@Value("${gateway.access-log.sample-rate:1.0}")
+	private double sampleRate = 1.0;
+
+	@Value("${gateway.access-log.buffer-size:8192}")
+	private int bufferSize = 8192;
+
+	@Value("${gateway.access-log.batch-size:256}")
+	private int batchSize = 256;
+
+	@Value("${gateway.access-log.flush-interval-ms:100}")
+	private long flushIntervalMs = 100;
+
+	private MpscRingBuffer<AccessLogEntry> buffer;
+	private Thread writer;
+	private volatile boolean running;
+
+	private Counter droppedCounter;
+	private Counter writtenCounter;
+
+	@PostConstruct
+	public void start() {
+
+		buffer = new MpscRingBuffer<>(bufferSize);
+
+		Gauge.builder("gateway.accesslog.pending", buffer, MpscRingBuffer::size)
+				.description("Access log entries waiting for the writer")
+				.register(meterRegistry);
+		droppedCounter = Counter.builder("gateway.accesslog.dropped")
+				.description("Access log entries dropped because the buffer was full")
+				.register(meterRegistry);
+		writtenCounter = Counter.builder("gateway.accesslog.written")
+				.description("Access log entries written")
+				.register(meterRegistry);
+
+		running = true;
+		writer = new Thread(this::writeLoop, "access-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+
+		logger.info("Access log started: enabled={} sampleRate={} bufferSize={}",
+				enabled, sampleRate, buffer.capacity());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join(TimeUnit.SECONDS.toMillis(2));
+	}
+
+	/**
+	 * Called on the event loop when a request completes. Never blocks.
+	 */
+	public void record(String method, String path, int status, String upstream, long latencyNanos, String traceId) {
+
+		if (!enabled || !sampled(status)) {
+			return;
+		}
+		AccessLogEntry entry = new AccessLogEntry(System.currentTimeMillis(), method, path, status,
+				upstream, TimeUnit.NANOSECONDS.toMicros(latencyNanos), traceId);
+		if (!buffer.offer(entry)) {
+			droppedCounter.increment();
+		}
+	}
+
+	private boolean sampled(int status) {
+		return status >= 400 || sampleRate >= 1.0
+				|| (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	// ------------------------------------------------------------
+	//   Writer Thread
+	// ------------------------------------------------------------
+
+	private void writeLoop() {
+
+		StringBuilder line = new StringBuilder(256);
+		while (running || buffer.size() > 0) {
+			int written = 0;
+			AccessLogEntry entry;
+			while (written < batchSize && (entry = buffer.poll()) != null) {
+				try {
+					accessLogger.info(format(entry, line));
+				} catch (RuntimeException e) {
+					// an appender failure must not kill the writer
+					logger.warn("Access log write failed: {}", e.getMessage());
+				}
+				written++;
+			}
+			if (written > 0) {
+				writtenCounter.increment(written);
+			}
+			if (written < batchSize && running) {
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+			}
+		}
+	}
+
+	static String format(AccessLogEntry entry, StringBuilder line) {
+		line.setLength(0);
+		return line.append(Instant.ofEpochMilli(entry.timestampMillis()))
+				.append(' ').append(entry.method())
+				.append(' ').append(entry.path())
+				.append(" status=").append(entry.status())
+				.append(" upstream=").append(entry.upstream())
+				.append(" latencyUs=").append(entry.latencyMicros())
+				.append(" trace=").append(entry.traceId())
+				.toString();
+	}
+}
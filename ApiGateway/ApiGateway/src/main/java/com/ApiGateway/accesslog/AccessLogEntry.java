@@ -0,0 +1,9 @@
+package com.ApiGateway.accesslog;
+
+/**
+ * One proxied request, captured on the event loop and formatted later by
+ * {@link AccessLog}'s writer thread.
+ */
+public record AccessLogEntry(long timestampMillis, String method, String path, int status,
+							 String upstream, long latencyMicros, String traceId) {
+}
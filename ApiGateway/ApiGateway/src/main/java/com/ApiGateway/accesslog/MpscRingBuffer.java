@@ -0,0 +1,65 @@
+package com.ApiGateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer ring buffer.
+ *
+ * Producers claim a sequence with a CAS on the tail and then publish the element
+ * into its slot; the single consumer reads slots in sequence order and frees
+ * them. {@link #offer} fails instead of waiting when the buffer is full, so a
+ * producer (a Netty event-loop thread) is never blocked.
+ */
+public final class MpscRingBuffer<E> {
+
+	private final AtomicReferenceArray<E> slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+
+	// written by the consumer only, read by producers for the capacity check
+	private volatile long head;
+
+	public MpscRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	public boolean offer(E element) {
+		while (true) {
+			long t = tail.get();
+			if (t - head >= slots.length()) {
+				return false;
+			}
+			if (tail.compareAndSet(t, t + 1)) {
+				slots.lazySet((int) t & mask, element);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Consumer side only. Returns null when empty, or when the next producer has
+	 * claimed its slot but not published yet.
+	 */
+	public E poll() {
+		long h = head;
+		int index = (int) h & mask;
+		E element = slots.get(index);
+		if (element == null) {
+			return null;
+		}
+		slots.lazySet(index, null);
+		head = h + 1;
+		return element;
+	}
+
+	public int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	public int capacity() {
+		return slots.length();
+	}
+}
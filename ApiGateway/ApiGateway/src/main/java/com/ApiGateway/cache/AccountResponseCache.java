@@ -0,0 +1,88 @@
+package com.ApiGateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived copies of GET /api/accounts/{accountNumber} responses, keyed by
+ * account number. Bounded by size and TTL; besides the cache.* meters (tagged
+ * cache=gatewayAccountResponses) the hit ratio is published directly as
+ * gateway.account.cache.hit.ratio.
+ */
+@Component
+public class AccountResponseCache {
+
+	public record CachedResponse(MediaType contentType, byte[] body) {
+	}
+
+	private final Cache<String, CachedResponse> cache;
+
+	private final int maxBodyBytes;
+
+	// bumped on every invalidation, so a response fetched before a write is not cached after it
+	private final AtomicLong generation = new AtomicLong();
+
+	public AccountResponseCache(MeterRegistry meterRegistry,
+								@Value("${gateway.account-cache.max-size:10000}") long maxSize,
+								@Value("${gateway.account-cache.ttl-millis:2000}") long ttlMillis,
+								@Value("${gateway.account-cache.max-body-bytes:16384}") int maxBodyBytes) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofMillis(ttlMillis))
+				.recordStats()
+				.build();
+		this.maxBodyBytes = maxBodyBytes;
+
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "gatewayAccountResponses");
+		Gauge.builder("gateway.account.cache.hit.ratio", cache, c -> c.stats().hitRate())
+				.description("Share of account GETs answered by the gateway without calling account-service")
+				.register(meterRegistry);
+	}
+
+	public CachedResponse get(String accountNumber) {
+		return cache.getIfPresent(accountNumber);
+	}
+
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Stores a response fetched while {@link #generation()} was {@code fetchedAt};
+	 * dropped if any invalidation happened in between.
+	 */
+	public void put(String accountNumber, CachedResponse response, long fetchedAt) {
+		if (response.body().length > maxBodyBytes) {
+			return;
+		}
+		cache.put(accountNumber, response);
+		if (generation.get() != fetchedAt) {
+			cache.invalidate(accountNumber);
+		}
+	}
+
+	public void invalidate(String accountNumber) {
+		generation.incrementAndGet();
+		cache.invalidate(accountNumber);
+	}
+
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	public int getMaxBodyBytes() {
+		return maxBodyBytes;
+	}
+}
@@ -0,0 +1,74 @@
+package com.ApiGateway.filter;
+
+import com.ApiGateway.accesslog.AccessLog;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.handler.TracingObservationHandler.TracingContext;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Outermost filter: times every request, including ones answered by the rate
+ * limiter or the account cache, and hands the result to {@link AccessLog}
+ * together with the request's trace id, so a line can be followed into the
+ * logs of the services behind the gateway.
+ */
+@Component
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+	@Autowired
+	private AccessLog accessLog;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+		long start = System.nanoTime();
+		return chain.filter(exchange).doFinally(signal -> {
+			ServerHttpRequest request = exchange.getRequest();
+			HttpStatusCode status = exchange.getResponse().getStatusCode();
+			accessLog.record(request.getMethod().name(), request.getPath().value(),
+					status == null ? 0 : status.value(), upstream(exchange), System.nanoTime() - start,
+					traceId(exchange));
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	// the resolved instance once the load balancer ran, else the route target
+	private static String upstream(ServerWebExchange exchange) {
+		URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+		if (url != null) {
+			return url.getScheme() + "://" + url.getAuthority();
+		}
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		return route == null ? "-" : route.getUri().toString();
+	}
+
+	// the span of the server observation WebFlux opened for this request, sampled or not
+	private static String traceId(ServerWebExchange exchange) {
+		return ServerRequestObservationContext.findCurrent(exchange.getAttributes())
+				.map(context -> context.get(TracingContext.class))
+				.map(TracingContext::getSpan)
+				.map(Span::context)
+				.map(TraceContext::traceId)
+				.orElse("-");
+	}
+}
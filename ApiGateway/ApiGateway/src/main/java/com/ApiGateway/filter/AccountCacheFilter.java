@@ -0,0 +1,137 @@
+package com.ApiGateway.filter;
+
+import com.ApiGateway.cache.AccountResponseCache;
+import com.ApiGateway.cache.AccountResponseCache.CachedResponse;
+
+import org.reactivestreams.Publisher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Answers GET /api/accounts/{accountNumber} from {@link AccountResponseCache}
+ * when possible and caches 200 responses on the way back.
+ *
+ * Any PUT / POST / DELETE proxied for an account drops its entry, before the
+ * request is forwarded and again once it completes. Writes that carry the
+ * account number only in the body (/update, /balance/adjust-batch) clear the
+ * whole cache. Balance changes made by transaction-service call account-service
+ * directly and never pass the gateway, which is what the short TTL is for.
+ */
+@Component
+public class AccountCacheFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(AccountCacheFilter.class);
+
+	private static final String PREFIX = "/api/accounts/";
+
+	// first path segments that are endpoints, not account numbers
+	private static final Set<String> ENDPOINTS = Set.of("create", "update", "balance");
+
+	private static final String X_CACHE = "X-Cache";
+
+	@Autowired
+	private AccountResponseCache accountResponseCache;
+
+	@Value("${gateway.account-cache.enabled:true}")
+	private boolean enabled = true;
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+		ServerHttpRequest request = exchange.getRequest();
+		String path = request.getPath().value();
+		if (!enabled || !path.startsWith(PREFIX)) {
+			return chain.filter(exchange);
+		}
+
+		String rest = path.substring(PREFIX.length());
+		int slash = rest.indexOf('/');
+		String segment = slash < 0 ? rest : rest.substring(0, slash);
+
+		if (HttpMethod.GET.equals(request.getMethod())) {
+			if (slash >= 0 || segment.isEmpty() || ENDPOINTS.contains(segment)) {
+				return chain.filter(exchange);
+			}
+			return cachedGet(exchange, chain, segment);
+		}
+
+		if ("create".equals(segment)) {
+			return chain.filter(exchange);
+		}
+		Runnable invalidate = ENDPOINTS.contains(segment)
+				? accountResponseCache::invalidateAll
+				: () -> accountResponseCache.invalidate(segment);
+		invalidate.run();
+		return chain.filter(exchange).doFinally(signal -> invalidate.run());
+	}
+
+	@Override
+	public int getOrder() {
+		// must wrap the response before NettyWriteResponseFilter writes the upstream body into it
+		return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+	}
+
+	// ------------------------------------------------------------
+	//   Cached GET
+	// ------------------------------------------------------------
+
+	private Mono<Void> cachedGet(ServerWebExchange exchange, GatewayFilterChain chain, String accountNumber) {
+
+		ServerHttpResponse response = exchange.getResponse();
+
+		CachedResponse cached = accountResponseCache.get(accountNumber);
+		if (cached != null) {
+			logger.debug("Account cache hit: {}", accountNumber);
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().setContentType(cached.contentType());
+			response.getHeaders().setContentLength(cached.body().length);
+			response.getHeaders().set(X_CACHE, "HIT");
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+		}
+
+		long fetchedAt = accountResponseCache.generation();
+		ServerHttpResponseDecorator caching = new ServerHttpResponseDecorator(response) {
+
+			@Override
+			public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+				getHeaders().set(X_CACHE, "MISS");
+				if (!HttpStatus.OK.equals(getStatusCode())
+						|| getHeaders().getContentLength() > accountResponseCache.getMaxBodyBytes()) {
+					return super.writeWith(body);
+				}
+				return super.writeWith(DataBufferUtils.join(Flux.from(body)).map(joined -> {
+					byte[] bytes = new byte[joined.readableByteCount()];
+					joined.read(bytes);
+					DataBufferUtils.release(joined);
+					accountResponseCache.put(accountNumber,
+							new CachedResponse(getHeaders().getContentType(), bytes), fetchedAt);
+					return bufferFactory().wrap(bytes);
+				}));
+			}
+		};
+
+		return chain.filter(exchange.mutate().response(caching).build());
+	}
+}
@@ -0,0 +1,166 @@
+package com.ApiGateway.filter;
+
+import com.ApiGateway.ratelimit.RateLimitProperties;
+import com.ApiGateway.ratelimit.RateLimiter;
+import com.ApiGateway.ratelimit.RateLimiter.ClientState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process rate limiting, no Redis: every request takes a token from its
+ * client's bucket for the matched route and counts against the client's
+ * concurrency cap until the response completes. Either limit answers
+ * 429 Too Many Requests with Retry-After, before anything is sent upstream.
+ *
+ * The client is always the remote IP. The API key header is not validated
+ * here, so it cannot replace that limit (a new key per request would get a
+ * fresh bucket every time); a request that carries one is limited per key as
+ * well, on top of its IP limit. A request its key turns away gets its IP token
+ * back: an exhausted key must not also use up the budget of every IP it is
+ * sent from.
+ *
+ * Behind a proxy the remote IP is the proxy's. With
+ * gateway.rate-limit.trusted-proxies = n, the client IP is the n-th
+ * X-Forwarded-For entry from the right, the address the outermost trusted proxy
+ * saw; entries further left come from the client and are ignored.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+	private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+	private static final byte[] REJECTED_BODY =
+			"{\"message\":\"Too many requests\",\"data\":null,\"success\":false}".getBytes(StandardCharsets.UTF_8);
+
+	@Autowired
+	private RateLimiter rateLimiter;
+
+	@Autowired
+	private RateLimitProperties properties;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private RemoteAddressResolver remoteAddressResolver;
+
+	@PostConstruct
+	public void init() {
+		int trustedProxies = properties.getTrustedProxies();
+		remoteAddressResolver = trustedProxies > 0
+				? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+				: new RemoteAddressResolver() {};
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+		if (!properties.isEnabled()) {
+			return chain.filter(exchange);
+		}
+
+		Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+		String routeId = route == null ? "unrouted" : route.getId();
+		String ip = remoteIp(exchange);
+		String apiKey = apiKey(exchange.getRequest());
+		ClientState byIp = rateLimiter.client(routeId, "ip:" + ip);
+		ClientState byKey = apiKey == null ? null : rateLimiter.client(routeId, "key:" + apiKey);
+
+		long now = System.nanoTime();
+		long waitNanos = byIp.tryAcquire(now);
+		if (waitNanos > 0) {
+			return reject(exchange, routeId, ip, "rate", waitNanos);
+		}
+		if (byKey != null) {
+			waitNanos = byKey.tryAcquire(now);
+			if (waitNanos > 0) {
+				byIp.refund();
+				return reject(exchange, routeId, ip, "rate", waitNanos);
+			}
+		}
+		if (!byIp.tryEnter()) {
+			return reject(exchange, routeId, ip, "concurrency", TimeUnit.SECONDS.toNanos(1));
+		}
+		if (byKey != null && !byKey.tryEnter()) {
+			byIp.exit();
+			byIp.refund();
+			return reject(exchange, routeId, ip, "concurrency", TimeUnit.SECONDS.toNanos(1));
+		}
+		return chain.filter(exchange).doFinally(signal -> {
+			byIp.exit();
+			if (byKey != null) {
+				byKey.exit();
+			}
+		});
+	}
+
+	@Override
+	public int getOrder() {
+		// ahead of the response cache and routing, a rejected request costs no upstream work
+		return Ordered.HIGHEST_PRECEDENCE + 1000;
+	}
+
+	// ------------------------------------------------------------
+	//   Helpers
+	// ------------------------------------------------------------
+
+	private String apiKey(ServerHttpRequest request) {
+		String apiKey = request.getHeaders().getFirst(properties.getApiKeyHeader());
+		return apiKey == null || apiKey.isBlank() ? null : apiKey;
+	}
+
+	private String remoteIp(ServerWebExchange exchange) {
+		InetSocketAddress remote = remoteAddressResolver.resolve(exchange);
+		if (remote == null) {
+			return "unknown";
+		}
+		// an X-Forwarded-For entry that is not an IP literal stays unresolved
+		return remote.getAddress() == null ? remote.getHostString() : remote.getAddress().getHostAddress();
+	}
+
+	private Mono<Void> reject(ServerWebExchange exchange, String routeId, String ip, String reason, long waitNanos) {
+
+		logger.debug("Rate limited: route={} ip={} reason={}", routeId, ip, reason);
+		Counter.builder("gateway.ratelimit.rejected")
+				.tag("route", routeId)
+				.tag("reason", reason)
+				.register(meterRegistry)
+				.increment();
+
+		long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+		response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		response.getHeaders().setContentLength(REJECTED_BODY.length);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(REJECTED_BODY)));
+	}
+}
@@ -0,0 +1,121 @@
+package com.ApiGateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * gateway.rate-limit.* settings. Limits apply per route to every remote IP, and
+ * additionally to every API key a request carries; routes without an entry under
+ * gateway.rate-limit.routes.{routeId} use the defaults.
+ *
+ * trusted-proxies is how many proxies in front of the gateway append to
+ * X-Forwarded-For. 0 (the default) limits the address of the connection itself,
+ * which behind a load balancer is the balancer's. Any other value must match
+ * the deployment: set too high, it reads an entry the client wrote itself.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = true;
+	private String apiKeyHeader = "X-API-Key";
+	private int maxClients = 100_000;
+	private long idleSeconds = 600;
+	private int trustedProxies = 0;
+	private Limit defaults = new Limit();
+	private Map<String, Limit> routes = new HashMap<>();
+
+	public Limit limitFor(String routeId) {
+		return routes.getOrDefault(routeId, defaults);
+	}
+
+	public static class Limit {
+
+		private double ratePerSecond = 50;
+		private int burst = 100;
+		private int maxConcurrent = 20;
+
+		public double getRatePerSecond() {
+			return ratePerSecond;
+		}
+
+		public void setRatePerSecond(double ratePerSecond) {
+			this.ratePerSecond = ratePerSecond;
+		}
+
+		public int getBurst() {
+			return burst;
+		}
+
+		public void setBurst(int burst) {
+			this.burst = burst;
+		}
+
+		public int getMaxConcurrent() {
+			return maxConcurrent;
+		}
+
+		public void setMaxConcurrent(int maxConcurrent) {
+			this.maxConcurrent = maxConcurrent;
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getApiKeyHeader() {
+		return apiKeyHeader;
+	}
+
+	public void setApiKeyHeader(String apiKeyHeader) {
+		this.apiKeyHeader = apiKeyHeader;
+	}
+
+	public int getMaxClients() {
+		return maxClients;
+	}
+
+	public void setMaxClients(int maxClients) {
+		this.maxClients = maxClients;
+	}
+
+	public long getIdleSeconds() {
+		return idleSeconds;
+	}
+
+	public void setIdleSeconds(long idleSeconds) {
+		this.idleSeconds = idleSeconds;
+	}
+
+	public int getTrustedProxies() {
+		return trustedProxies;
+	}
+
+	public void setTrustedProxies(int trustedProxies) {
+		this.trustedProxies = trustedProxies;
+	}
+
+	public Limit getDefaults() {
+		return defaults;
+	}
+
+	public void setDefaults(Limit defaults) {
+		this.defaults = defaults;
+	}
+
+	public Map<String, Limit> getRoutes() {
+		return routes;
+	}
+
+	public void setRoutes(Map<String, Limit> routes) {
+		this.routes = routes;
+	}
+}
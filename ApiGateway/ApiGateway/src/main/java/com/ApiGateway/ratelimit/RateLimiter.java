@@ -0,0 +1,70 @@
+package com.ApiGateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per route and client limiter state: a {@link TokenBucket} for the request rate
+ * and an in-flight counter for the concurrency cap. Clients that stay idle for
+ * gateway.rate-limit.idle-seconds are forgotten, and at most
+ * gateway.rate-limit.max-clients are tracked, so spoofed or rotating keys cannot
+ * grow the map without bound.
+ */
+@Component
+public class RateLimiter {
+
+	private final RateLimitProperties properties;
+	private final Cache<String, ClientState> clients;
+
+	public RateLimiter(RateLimitProperties properties) {
+		this.properties = properties;
+		this.clients = Caffeine.newBuilder()
+				.maximumSize(properties.getMaxClients())
+				.expireAfterAccess(Duration.ofSeconds(properties.getIdleSeconds()))
+				.build();
+	}
+
+	public ClientState client(String routeId, String clientId) {
+		return clients.get(routeId + '|' + clientId, key -> new ClientState(properties.limitFor(routeId)));
+	}
+
+	public static final class ClientState {
+
+		private final TokenBucket bucket;
+		private final int maxConcurrent;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		ClientState(RateLimitProperties.Limit limit) {
+			this.bucket = new TokenBucket(limit.getRatePerSecond(), limit.getBurst());
+			this.maxConcurrent = limit.getMaxConcurrent();
+		}
+
+		/**
+		 * 0 when a token was taken, otherwise nanoseconds until the next one.
+		 */
+		public long tryAcquire(long nowNanos) {
+			return bucket.tryAcquire(nowNanos);
+		}
+
+		public void refund() {
+			bucket.refund();
+		}
+
+		public boolean tryEnter() {
+			if (inFlight.incrementAndGet() > maxConcurrent) {
+				inFlight.decrementAndGet();
+				return false;
+			}
+			return true;
+		}
+
+		public void exit() {
+			inFlight.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.ApiGateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: instead of a token count and a refill
+ * timestamp the bucket keeps a single "theoretical arrival time" (TAT) and
+ * moves it forward by one emission interval per admitted request, so a
+ * decision is one read and one CAS on an AtomicLong.
+ *
+ * Up to {@code burst} requests pass back to back; after that requests pass at
+ * {@code ratePerSecond}.
+ */
+public final class TokenBucket {
+
+	private final long emissionIntervalNanos;
+	private final long burstToleranceNanos;
+	private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+	public TokenBucket(double ratePerSecond, int burst) {
+		if (ratePerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("rate must be positive and burst at least 1");
+		}
+		this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+		this.burstToleranceNanos = emissionIntervalNanos * burst;
+	}
+
+	/**
+	 * Takes one token at {@code nowNanos} (a System.nanoTime() reading). Returns 0
+	 * when the request may pass, otherwise how many nanoseconds until it would.
+	 */
+	public long tryAcquire(long nowNanos) {
+		while (true) {
+			long current = tat.get();
+			long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+			long allowAt = next - burstToleranceNanos;
+			if (allowAt > nowNanos) {
+				return allowAt - nowNanos;
+			}
+			if (tat.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a token taken by {@link #tryAcquire} for a request that was
+	 * rejected after all. Once the bucket has refilled past the TAT this changes
+	 * nothing, so a refund never lifts it above the burst.
+	 */
+	public void refund() {
+		tat.addAndGet(-emissionIntervalNanos);
+	}
+}
@@ -0,0 +1,72 @@
+package com.ApiGateway.accesslog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+	// ------------------------------------------------------
+	// FULL BUFFER REFUSES INSTEAD OF BLOCKING
+	// ------------------------------------------------------
+	@Test
+	void testOfferFailsWhenFull() {
+
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+
+		for (int i = 0; i < 4; i++) {
+			assertTrue(buffer.offer(i));
+		}
+		assertFalse(buffer.offer(4));
+
+		assertEquals(0, buffer.poll());
+		assertTrue(buffer.offer(4));
+		assertEquals(1, buffer.poll());
+		assertEquals(3, buffer.size());
+	}
+
+	// ------------------------------------------------------
+	// EVERY PUBLISHED ELEMENT IS CONSUMED ONCE, IN PER-PRODUCER ORDER
+	// ------------------------------------------------------
+	@Test
+	void testConcurrentProducers() throws Exception {
+
+		int producers = 4;
+		int perProducer = 100_000;
+		MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+		AtomicInteger dropped = new AtomicInteger();
+
+		ExecutorService pool = Executors.newFixedThreadPool(producers);
+		for (int p = 0; p < producers; p++) {
+			long producer = p;
+			pool.execute(() -> {
+				for (long i = 0; i < perProducer; i++) {
+					if (!buffer.offer(new long[] {producer, i})) {
+						dropped.incrementAndGet();
+					}
+				}
+			});
+		}
+		pool.shutdown();
+
+		long[] last = new long[producers];
+		java.util.Arrays.fill(last, -1);
+		int consumed = 0;
+		while (!pool.isTerminated() || buffer.size() > 0) {
+			long[] element = buffer.poll();
+			if (element == null) {
+				Thread.onSpinWait();
+				continue;
+			}
+			int producer = (int) element[0];
+			assertTrue(element[1] > last[producer]);
+			last[producer] = element[1];
+			consumed++;
+		}
+
+		assertEquals(producers * perProducer, consumed + dropped.get());
+	}
+}
@@ -0,0 +1,132 @@
+package com.ApiGateway.filter;
+
+import com.ApiGateway.ratelimit.RateLimitProperties;
+import com.ApiGateway.ratelimit.RateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+	private static final GatewayFilterChain PASS = exchange -> Mono.empty();
+
+	private RateLimitFilter rateLimitFilter;
+
+	@BeforeEach
+	void setup() {
+		rateLimitFilter = rateLimitFilter(0);
+	}
+
+	private static RateLimitFilter rateLimitFilter(int trustedProxies) {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.getDefaults().setRatePerSecond(0.001);
+		properties.getDefaults().setBurst(2);
+		properties.setTrustedProxies(trustedProxies);
+
+		RateLimitFilter filter = new RateLimitFilter();
+		ReflectionTestUtils.setField(filter, "properties", properties);
+		ReflectionTestUtils.setField(filter, "rateLimiter", new RateLimiter(properties));
+		ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+		filter.init();
+		return filter;
+	}
+
+	private HttpStatus send(String ip, String apiKey) {
+		return send(rateLimitFilter, ip, apiKey, null);
+	}
+
+	private static HttpStatus send(RateLimitFilter filter, String ip, String apiKey, String forwardedFor) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/transactions/history")
+				.remoteAddress(new InetSocketAddress(ip, 40000));
+		if (apiKey != null) {
+			request.header("X-API-Key", apiKey);
+		}
+		if (forwardedFor != null) {
+			request.header("X-Forwarded-For", forwardedFor);
+		}
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		filter.filter(exchange, PASS).block();
+		return (HttpStatus) exchange.getResponse().getStatusCode();
+	}
+
+	// ------------------------------------------------------
+	// A NEW KEY PER REQUEST DOES NOT GET AROUND THE IP LIMIT
+	// ------------------------------------------------------
+	@Test
+	void testRotatingApiKeysStillLimitedPerIp() {
+
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "key-1"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "key-2"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "key-3"));
+
+		// other clients are not affected
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.2", null));
+	}
+
+	// ------------------------------------------------------
+	// A KEY IS LIMITED ACROSS THE IPS IT IS USED FROM
+	// ------------------------------------------------------
+	@Test
+	void testApiKeyLimitedOnTopOfIp() {
+
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "shared"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.2", "shared"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.3", "shared"));
+	}
+
+	// ------------------------------------------------------
+	// A REQUEST REJECTED BY ITS KEY KEEPS ITS IP TOKEN
+	// ------------------------------------------------------
+	@Test
+	void testKeyRejectionRefundsIpToken() {
+
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "shared"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.2", "shared"));
+
+		// the key is spent, so 10.0.0.1 is refused without losing its second token
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "shared"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", "shared"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", null));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send("10.0.0.1", null));
+	}
+
+	// ------------------------------------------------------
+	// BEHIND A TRUSTED PROXY THE CLIENT COMES FROM X-FORWARDED-FOR
+	// ------------------------------------------------------
+	@Test
+	void testForwardedForIgnoredWithoutTrustedProxies() {
+
+		// every client shares the proxy's bucket
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send(rateLimitFilter, "10.0.0.9", null, "203.0.113.1"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send(rateLimitFilter, "10.0.0.9", null, "203.0.113.2"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send(rateLimitFilter, "10.0.0.9", null, "203.0.113.3"));
+	}
+
+	@Test
+	void testForwardedForLimitedPerClient() {
+
+		RateLimitFilter behindProxy = rateLimitFilter(1);
+
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send(behindProxy, "10.0.0.9", null, "203.0.113.1"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send(behindProxy, "10.0.0.9", null, "203.0.113.1"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send(behindProxy, "10.0.0.9", null, "203.0.113.1"));
+		assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, send(behindProxy, "10.0.0.9", null, "203.0.113.2"));
+
+		// an entry the client prepended itself does not buy a fresh bucket
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, send(behindProxy, "10.0.0.9", null, "198.51.100.7, 203.0.113.1"));
+	}
+}
@@ -0,0 +1,97 @@
+package com.ApiGateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	// ------------------------------------------------------
+	// BURST, THEN STEADY RATE
+	// ------------------------------------------------------
+	@Test
+	void testBurstThenRate() {
+
+		TokenBucket bucket = new TokenBucket(10, 5);
+		long now = SECOND;
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(0, bucket.tryAcquire(now));
+		}
+		assertEquals(SECOND / 10, bucket.tryAcquire(now));
+
+		// one token back every 100ms
+		assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+		assertTrue(bucket.tryAcquire(now + SECOND / 10) > 0);
+
+		// idle time refills up to the burst, not beyond
+		int passed = 0;
+		for (int i = 0; i < 10; i++) {
+			if (bucket.tryAcquire(now + 10 * SECOND) == 0) {
+				passed++;
+			}
+		}
+		assertEquals(5, passed);
+	}
+
+	// ------------------------------------------------------
+	// A REFUND GIVES ONE TOKEN BACK, NEVER MORE THAN THE BURST
+	// ------------------------------------------------------
+	@Test
+	void testRefund() {
+
+		TokenBucket bucket = new TokenBucket(10, 2);
+		long now = SECOND;
+
+		assertEquals(0, bucket.tryAcquire(now));
+		assertEquals(0, bucket.tryAcquire(now));
+		bucket.refund();
+		assertEquals(0, bucket.tryAcquire(now));
+		assertTrue(bucket.tryAcquire(now) > 0);
+
+		// refunded into a full bucket: still only the burst passes
+		long later = now + 10 * SECOND;
+		bucket.refund();
+		assertEquals(0, bucket.tryAcquire(later));
+		assertEquals(0, bucket.tryAcquire(later));
+		assertTrue(bucket.tryAcquire(later) > 0);
+	}
+
+	// ------------------------------------------------------
+	// CONCURRENT CALLERS NEVER OVERDRAW
+	// ------------------------------------------------------
+	@Test
+	void testConcurrentAcquireAdmitsExactlyBurst() throws Exception {
+
+		TokenBucket bucket = new TokenBucket(1, 1000);
+		long now = SECOND;
+		AtomicInteger passed = new AtomicInteger();
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < 8; t++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 1000; i++) {
+					if (bucket.tryAcquire(now) == 0) {
+						passed.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(1000, passed.get());
+	}
+}
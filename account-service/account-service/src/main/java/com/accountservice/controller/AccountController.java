@@ -1,6 +1,9 @@
 package com.accountservice.controller;
 
 import com.accountservice.document.Account;
+import com.accountservice.dto.AdjustmentResult;
+import com.accountservice.dto.BalanceAdjustRequest;
+import com.accountservice.dto.BalanceAdjustment;
 import com.accountservice.service.AccountService;
 import com.accountservice.util.ApiResponse;
 import org.slf4j.Logger;
@@ -9,6 +12,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
@@ -19,37 +24,50 @@ public class AccountController {
     private AccountService accountService;
 
     @PostMapping(value = "/create", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse create(@RequestBody Account account) {
+    public ApiResponse<Account> create(@RequestBody Account account) {
         logger.info("POST /api/accounts/create holderName={}", account.getHolderName());
         Account created = accountService.createAccount(account.getHolderName());
         logger.info("Account created: accountNumber={}", created.getAccountNumber());
-        return new ApiResponse("Account created", created, true);
+        return new ApiResponse<>("Account created", created, true);
     }
 
     @GetMapping("/{accountNumber}")
-    public ApiResponse get(@PathVariable String accountNumber) {
-        logger.info("GET /api/accounts/{}", accountNumber);
-        return new ApiResponse("Fetched", accountService.getAccount(accountNumber), true);
+    public ApiResponse<Account> get(@PathVariable String accountNumber) {
+        logger.debug("GET /api/accounts/{}", accountNumber);
+        return new ApiResponse<>("Fetched", accountService.getAccount(accountNumber), true);
     }
 
     @PutMapping(value = "/update", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse update(@RequestBody Account account) {
+    public ApiResponse<Account> update(@RequestBody Account account) {
         logger.info("PUT /api/accounts/update accountNumber={}", account.getAccountNumber());
         Account updated = accountService.updateAccount(account.getAccountNumber(), account.getHolderName());
-        return new ApiResponse("Updated", updated, true);
+        return new ApiResponse<>("Updated", updated, true);
     }
 
     @PutMapping("/{accountNumber}/balance")
-    public ApiResponse updateBalance(@PathVariable String accountNumber, @RequestBody Account acc) {
+    public ApiResponse<Account> updateBalance(@PathVariable String accountNumber, @RequestBody Account acc) {
         logger.info("PUT /api/accounts/{}/balance newBalance={}", accountNumber, acc.getBalance());
         Account updated = accountService.updateBalance(accountNumber, acc.getBalance());
-        return new ApiResponse("Balance updated", updated, true);
+        return new ApiResponse<>("Balance updated", updated, true);
+    }
+
+    @PostMapping(value = "/{accountNumber}/balance/adjust", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResponse<Account> adjustBalance(@PathVariable String accountNumber, @RequestBody BalanceAdjustRequest body) {
+        logger.debug("POST /api/accounts/{}/balance/adjust delta={} operationId={}", accountNumber, body.delta(), body.operationId());
+        Account updated = accountService.adjustBalance(accountNumber, body.delta(), body.operationId());
+        return new ApiResponse<>("Balance adjusted", updated, true);
+    }
+
+    @PostMapping(value = "/balance/adjust-batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ApiResponse<List<AdjustmentResult>> adjustBalances(@RequestBody List<BalanceAdjustment> adjustments) {
+        logger.info("POST /api/accounts/balance/adjust-batch size={}", adjustments.size());
+        return new ApiResponse<>("Balances adjusted", accountService.adjustBalances(adjustments), true);
     }
 
     @DeleteMapping("/{accountNumber}")
-    public ApiResponse delete(@PathVariable String accountNumber) {
+    public ApiResponse<String> delete(@PathVariable String accountNumber) {
         logger.info("DELETE /api/accounts/{}", accountNumber);
         accountService.deleteAccount(accountNumber);
-        return new ApiResponse("Deleted", accountNumber, true);
+        return new ApiResponse<>("Deleted", accountNumber, true);
     }
 }
@@ -1,6 +1,9 @@
 package com.accountservice.document;
 
+import com.bankingcommon.util.Money;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -10,9 +13,10 @@ public class Account {
 
     @Id
     private String id;
+    @Indexed(unique = true)
     private String accountNumber;
     private String holderName;
-    private Double balance;
+    private Money balance;
     private String status; // ACTIVE or INACTIVE
     private Date createdAt;
 
@@ -42,11 +46,11 @@ public class Account {
         this.holderName = holderName;
     }
 
-    public Double getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(Double balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
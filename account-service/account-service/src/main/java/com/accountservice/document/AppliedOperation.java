@@ -0,0 +1,83 @@
+package com.accountservice.document;
+
+import com.bankingcommon.util.Money;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A balance change applied under an operation id. Inserted in the same Mongo
+ * transaction as the $inc it stands for, so the unique index on (accountNumber,
+ * operationId) turns a replay into a duplicate key instead of a second change.
+ *
+ * Records expire after 7 days. Callers replay an operation for at most the 24h
+ * idempotency window plus the saga recovery window of transaction-service, both
+ * well inside that.
+ */
+@Document(collection = "applied_operations")
+@CompoundIndex(name = "accountNumber_operationId", def = "{'accountNumber': 1, 'operationId': 1}", unique = true)
+public class AppliedOperation {
+
+    @Id
+    private String id;
+
+    private String accountNumber;
+    private String operationId;
+    private Money delta;
+
+    @Indexed(name = "appliedAt_ttl", expireAfter = "7d")
+    private Date appliedAt;
+
+    public AppliedOperation() {}
+
+    public AppliedOperation(String accountNumber, String operationId, Money delta) {
+        this.accountNumber = accountNumber;
+        this.operationId = operationId;
+        this.delta = delta;
+        this.appliedAt = new Date();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public String getOperationId() {
+        return operationId;
+    }
+
+    public void setOperationId(String operationId) {
+        this.operationId = operationId;
+    }
+
+    public Money getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Money delta) {
+        this.delta = delta;
+    }
+
+    public Date getAppliedAt() {
+        return appliedAt;
+    }
+
+    public void setAppliedAt(Date appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.accountservice.dto;
+
+import com.bankingcommon.util.Money;
+
+/**
+ * Outcome of one {@link BalanceAdjustment}, in request order.
+ */
+public record AdjustmentResult(String accountNumber, Money delta, String status) {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String INSUFFICIENT_BALANCE = "INSUFFICIENT_BALANCE";
+    public static final String NOT_FOUND = "NOT_FOUND";
+}
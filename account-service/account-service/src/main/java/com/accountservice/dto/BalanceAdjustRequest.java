@@ -0,0 +1,10 @@
+package com.accountservice.dto;
+
+import com.bankingcommon.util.Money;
+
+/**
+ * Body of POST /api/accounts/{accountNumber}/balance/adjust. operationId is
+ * optional; with it the delta is applied at most once.
+ */
+public record BalanceAdjustRequest(Money delta, String operationId) {
+}
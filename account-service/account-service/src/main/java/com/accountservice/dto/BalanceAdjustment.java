@@ -0,0 +1,10 @@
+package com.accountservice.dto;
+
+import com.bankingcommon.util.Money;
+
+/**
+ * One entry of POST /api/accounts/balance/adjust-batch. With an operationId the
+ * entry is applied at most once, like a single adjust.
+ */
+public record BalanceAdjustment(String accountNumber, Money delta, String operationId) {
+}
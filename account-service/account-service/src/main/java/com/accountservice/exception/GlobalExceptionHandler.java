@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
 @ControllerAdvice
@@ -16,24 +17,60 @@ public class GlobalExceptionHandler {
 
     // ---------------- Handle Account Not Found ----------------
     @ExceptionHandler(AccountNotFoundException.class)
-    public ResponseEntity<ApiResponse> handleNotFound(AccountNotFoundException ex) {
+    public ResponseEntity<ApiResponse<Void>> handleNotFound(AccountNotFoundException ex) {
 
         logger.warn("AccountNotFoundException: {}", ex.getMessage());
 
         return new ResponseEntity<>(
-                new ApiResponse(ex.getMessage(), null, false),
+                new ApiResponse<>(ex.getMessage(), null, false),
                 HttpStatus.NOT_FOUND
         );
     }
 
+    // ---------------- Handle Insufficient Balance ----------------
+    @ExceptionHandler(InsufficientBalanceException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInsufficientBalance(InsufficientBalanceException ex) {
+
+        logger.warn("InsufficientBalanceException: {}", ex.getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.CONFLICT
+        );
+    }
+
+    // ---------------- Handle Malformed Amounts ----------------
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBadArgument(IllegalArgumentException ex) {
+
+        logger.warn("IllegalArgumentException: {}", ex.getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    // ---------------- Handle Malformed Request Bodies ----------------
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnreadable(HttpMessageNotReadableException ex) {
+
+        logger.warn("Malformed request body: {}", ex.getMostSpecificCause().getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>("Malformed request: " + ex.getMostSpecificCause().getMessage(), null, false),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
     // ---------------- Handle All Other Exceptions ----------------
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ApiResponse> handleGeneric(Exception ex) {
+    public ResponseEntity<ApiResponse<Void>> handleGeneric(Exception ex) {
 
         logger.error("Unhandled Exception:", ex);
 
         return new ResponseEntity<>(
-                new ApiResponse("Error: " + ex.getMessage(), null, false),
+                new ApiResponse<>("Error: " + ex.getMessage(), null, false),
                 HttpStatus.INTERNAL_SERVER_ERROR
         );
     }
@@ -0,0 +1,9 @@
+package com.accountservice.exception;
+
+import com.bankingcommon.util.Money;
+
+public class InsufficientBalanceException extends RuntimeException {
+    public InsufficientBalanceException(String acc, Money amount) {
+        super("Insufficient balance in account " + acc + " for amount " + amount);
+    }
+}
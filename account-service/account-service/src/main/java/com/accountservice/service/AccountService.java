@@ -1,16 +1,29 @@
 package com.accountservice.service;
 
 import com.accountservice.document.Account;
+import com.accountservice.document.AppliedOperation;
+import com.accountservice.dto.AdjustmentResult;
+import com.accountservice.dto.BalanceAdjustment;
 import com.accountservice.exception.AccountNotFoundException;
+import com.accountservice.exception.InsufficientBalanceException;
 import com.accountservice.repository.AccountRepository;
 import com.accountservice.util.IdGenerator;
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-import java.util.Date;
+import java.util.*;
 
 @Service
 public class AccountService {
@@ -18,44 +31,196 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private MongoTransactions mongoTransactions;
+
     private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
 
+    // generated numbers only clash after a misconfigured node id or a restart within the same second
+    private static final int CREATE_ATTEMPTS = 3;
+
 
+    @Timed(value = "account.operation", extraTags = {"operation", "create"}, histogram = true)
     public Account createAccount(String holderName) {
         logger.info("Creating account for holder='{}'", holderName);
-        String accNum = IdGenerator.generateAccountNumber(holderName);
 
         Account acc = new Account();
-        acc.setAccountNumber(accNum);
         acc.setHolderName(holderName);
         acc.setStatus("ACTIVE");
-        acc.setBalance(0.0);
+        acc.setBalance(Money.ZERO);
         acc.setCreatedAt(new Date());
 
-        logger.debug("Created account: {}", acc);
-        return accountRepository.save(acc);
+        for (int attempt = 1; ; attempt++) {
+            acc.setAccountNumber(idGenerator.generateAccountNumber());
+            try {
+                Account saved = accountRepository.save(acc);
+                logger.debug("Created account: {}", saved);
+                return saved;
+            } catch (DuplicateKeyException e) {
+                // the unique index on accountNumber is the last line of defence
+                if (attempt == CREATE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Account number {} already taken, generating another", acc.getAccountNumber());
+            }
+        }
     }
 
+    @Timed(value = "account.operation", extraTags = {"operation", "get"}, histogram = true)
     public Account getAccount(String accountNumber) {
-        logger.info("Fetching account for accountNumber={}", accountNumber);
+        logger.debug("Fetching account for accountNumber={}", accountNumber);
         Account acc = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountNotFoundException(accountNumber));
         logger.debug("Found account: {}", acc);
         return acc;
     }
 
+    /**
+     * Sets the holder name with one findAndModify ($set), so it cannot overwrite a
+     * balance change made between a read and a save of the whole document.
+     */
+    @Timed(value = "account.operation", extraTags = {"operation", "update"}, histogram = true)
     public Account updateAccount(String accountNumber, String holderName) {
-        Account acc = getAccount(accountNumber);
-        acc.setHolderName(holderName);
-        return accountRepository.save(acc);
+        logger.debug("Updating holder name for accountNumber={}", accountNumber);
+        return set(accountNumber, new Update().set("holderName", holderName));
     }
 
-    public Account updateBalance(String accountNumber, Double amount) {
-        Account acc = getAccount(accountNumber);
-        acc.setBalance(amount);
-        return accountRepository.save(acc);
+    /**
+     * Sets the balance to an absolute amount with one findAndModify ($set). Setting
+     * the same amount again leaves the same balance, so unlike a delta a repeated
+     * call is harmless and needs no operation id.
+     */
+    @Timed(value = "account.operation", extraTags = {"operation", "set-balance"}, histogram = true)
+    public Account updateBalance(String accountNumber, Money amount) {
+        logger.debug("Setting balance for accountNumber={} amount={}", accountNumber, amount);
+        if (amount == null) {
+            throw new IllegalArgumentException("Balance is required");
+        }
+        return set(accountNumber, new Update().set("balance", amount.toDecimal128()));
+    }
+
+    // only the given fields are written; returns the account as it is afterwards
+    private Account set(String accountNumber, Update update) {
+        Account updated = mongoTemplate.findAndModify(
+                new Query(Criteria.where("accountNumber").is(accountNumber)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Account.class);
+        if (updated == null) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        return updated;
+    }
+
+    /**
+     * Applies a signed delta to the balance in a single atomic findAndModify ($inc).
+     * Debits (negative delta) are guarded by "balance >= amount" inside the same
+     * query, so concurrent callers can never overdraw or lose an update.
+     */
+    public Account adjustBalance(String accountNumber, Money delta) {
+        return adjustBalance(accountNumber, delta, null);
+    }
+
+    /**
+     * Same as {@link #adjustBalance(String, Money)}, but when an operationId is given
+     * the delta is applied at most once: an {@link AppliedOperation} is inserted in
+     * the same transaction as the $inc, and a replay, which collides with it on the
+     * unique (accountNumber, operationId) index, returns the current account
+     * without changing it. A rejected debit rolls the record back, so a retry of
+     * the same operation is evaluated again.
+     */
+    @Timed(value = "account.operation", extraTags = {"operation", "adjust"}, histogram = true)
+    public Account adjustBalance(String accountNumber, Money delta, String operationId) {
+        logger.debug("Adjusting balance for accountNumber={} delta={} operationId={}", accountNumber, delta, operationId);
+
+        if (delta == null) {
+            throw new IllegalArgumentException("Balance delta is required");
+        }
+        if (operationId == null) {
+            return applyDelta(accountNumber, delta);
+        }
+
+        try {
+            return mongoTransactions.execute(() -> {
+                mongoTemplate.insert(new AppliedOperation(accountNumber, operationId, delta));
+                return applyDelta(accountNumber, delta);
+            });
+        } catch (DuplicateKeyException e) {
+            logger.info("Operation {} already applied to accountNumber={}, skipping", operationId, accountNumber);
+            return getAccount(accountNumber);
+        }
+    }
+
+    // one atomic $inc, debits guarded by "balance >= amount" in the same query
+    private Account applyDelta(String accountNumber, Money delta) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber));
+        if (delta.isNegative()) {
+            query.addCriteria(Criteria.where("balance").gte(delta.negate().toDecimal128()));
+        }
+
+        Account updated = mongoTemplate.findAndModify(
+                query,
+                new Update().inc("balance", delta.toDecimal128()),
+                FindAndModifyOptions.options().returnNew(true),
+                Account.class);
+
+        if (updated == null) {
+            // nothing matched: missing account or a rejected debit
+            if (!accountRepository.existsByAccountNumber(accountNumber)) {
+                throw new AccountNotFoundException(accountNumber);
+            }
+            throw new InsufficientBalanceException(accountNumber, delta.negate());
+        }
+
+        logger.debug("Balance adjusted: accountNumber={} newBalance={}", accountNumber, updated.getBalance());
+        return updated;
+    }
+
+    /**
+     * Applies a batch of signed deltas one at a time, in request order, each with
+     * the same guarded update as {@link #adjustBalance(String, Money, String)} and
+     * at most once when it carries an operationId. An entry therefore sees the
+     * effect of the earlier entries on the same account, and its status is what
+     * actually happened to it: APPLIED (also for an operation applied before),
+     * INSUFFICIENT_BALANCE or NOT_FOUND. Returns one result per adjustment, in
+     * request order. Any other failure aborts the batch; the entries before it stay
+     * applied, and a retry with the same operation ids skips them.
+     */
+    @Timed(value = "account.operation", extraTags = {"operation", "adjust-batch"}, histogram = true)
+    public List<AdjustmentResult> adjustBalances(List<BalanceAdjustment> adjustments) {
+        logger.info("Adjusting balances in batch: size={}", adjustments.size());
+
+        for (BalanceAdjustment adjustment : adjustments) {
+            if (adjustment.accountNumber() == null || adjustment.delta() == null) {
+                throw new IllegalArgumentException("Every adjustment needs an accountNumber and a delta");
+            }
+        }
+
+        List<AdjustmentResult> results = new ArrayList<>(adjustments.size());
+        for (BalanceAdjustment adjustment : adjustments) {
+            String status;
+            try {
+                adjustBalance(adjustment.accountNumber(), adjustment.delta(), adjustment.operationId());
+                status = AdjustmentResult.APPLIED;
+            } catch (InsufficientBalanceException e) {
+                status = AdjustmentResult.INSUFFICIENT_BALANCE;
+            } catch (AccountNotFoundException e) {
+                status = AdjustmentResult.NOT_FOUND;
+            }
+            results.add(new AdjustmentResult(adjustment.accountNumber(), adjustment.delta(), status));
+        }
+
+        logger.debug("Batch adjusted: size={}", results.size());
+        return results;
     }
 
+    @Timed(value = "account.operation", extraTags = {"operation", "delete"}, histogram = true)
     public void deleteAccount(String accountNumber) {
         if (!accountRepository.existsByAccountNumber(accountNumber)) {
             throw new AccountNotFoundException(accountNumber);
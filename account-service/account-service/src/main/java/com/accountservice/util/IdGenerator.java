@@ -1,14 +1,115 @@
 package com.accountservice.util;
 
-import java.util.Random;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Account number generator, unique across instances without a database round trip.
+ *
+ * A number is 16 digits of [seconds since 2025-01-01 | node id | sequence] followed
+ * by a Luhn check digit. Seconds and sequence share one AtomicLong updated by CAS, so
+ * there is no lock and no allocation besides the returned string. When the sequence
+ * of a second runs out the counter simply rolls into the next second, and a clock
+ * moving backwards never makes it go down.
+ */
+@Component
 public class IdGenerator {
 
-    private static final Random rand = new Random();
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
+
+    static final long EPOCH_SECONDS = 1735689600L; // 2025-01-01T00:00:00Z
+    static final int NODE_BITS = 8;
+    static final int SEQUENCE_BITS = 14;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int BODY_DIGITS = 16;
+
+    private final long node;
+    private final AtomicLong lastTick = new AtomicLong(); // seconds << SEQUENCE_BITS | sequence
+
+    public IdGenerator(@Value("${account.number.node-id:-1}") int nodeId) {
+        if (nodeId < 0) {
+            nodeId = derivedNodeId();
+            logger.warn("account.number.node-id not set, using derived node id {}; "
+                    + "configure distinct ids when running several instances", nodeId);
+        }
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("account.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId;
+    }
+
+    public String generateAccountNumber() {
+        long floor = (System.currentTimeMillis() / 1000 - EPOCH_SECONDS) << SEQUENCE_BITS;
+        long tick = lastTick.accumulateAndGet(floor, (prev, now) -> Math.max(prev + 1, now));
+
+        long seconds = tick >>> SEQUENCE_BITS;
+        long body = (seconds << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (tick & SEQUENCE_MASK);
+
+        char[] digits = new char[BODY_DIGITS + 1];
+        for (int i = BODY_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + body % 10);
+            body /= 10;
+        }
+        digits[BODY_DIGITS] = (char) ('0' + luhnCheckDigit(digits, BODY_DIGITS));
+        return new String(digits);
+    }
+
+    /**
+     * True when the number is well formed and its check digit matches, catching
+     * single-digit typos and most transpositions before any lookup.
+     */
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != BODY_DIGITS + 1) {
+            return false;
+        }
+        char[] digits = accountNumber.toCharArray();
+        for (char c : digits) {
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return luhnCheckDigit(digits, BODY_DIGITS) == digits[BODY_DIGITS] - '0';
+    }
+
+    // ------------------------------------------------------------
+    //   Helpers
+    // ------------------------------------------------------------
+
+    // Luhn over the first len digits: double every second digit starting from the rightmost
+    static int luhnCheckDigit(char[] digits, int len) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = len - 1; i >= 0; i--) {
+            int d = digits[i] - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9) {
+                    d -= 9;
+                }
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
 
-    public static String generateAccountNumber(String holderName) {
-        String prefix = holderName.substring(0, Math.min(3, holderName.length())).toUpperCase();
-        int num = 1000 + rand.nextInt(9000);
-        return prefix + num;
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return Math.floorMod(identity.hashCode(), MAX_NODE_ID + 1);
     }
 }
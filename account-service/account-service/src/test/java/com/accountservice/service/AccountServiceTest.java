@@ -1,8 +1,17 @@
 package com.accountservice.service;
 
 import com.accountservice.document.Account;
+import com.accountservice.document.AppliedOperation;
+import com.accountservice.dto.AdjustmentResult;
+import com.accountservice.dto.BalanceAdjustment;
 import com.accountservice.exception.AccountNotFoundException;
+import com.accountservice.exception.InsufficientBalanceException;
 import com.accountservice.repository.AccountRepository;
+import com.accountservice.util.IdGenerator;
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+
+import org.bson.Document;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,9 +19,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,6 +41,15 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoTransactions mongoTransactions;
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
     @InjectMocks
     private AccountService accountService;
 
@@ -35,10 +62,16 @@ class AccountServiceTest {
         sampleAccount.setAccountNumber("SAR1234");
         sampleAccount.setHolderName("Sarthak Joshi");
         sampleAccount.setStatus("ACTIVE");
-        sampleAccount.setBalance(500.0);
+        sampleAccount.setBalance(Money.parse("500.00"));
         sampleAccount.setCreatedAt(new Date());
     }
 
+    // the work runs as if inside a transaction: whatever it throws propagates, nothing is kept
+    private void runTransactionsInline() {
+        when(mongoTransactions.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+    }
+
     // -------------------------------------------------------
     // CREATE ACCOUNT
     // -------------------------------------------------------
@@ -52,12 +85,31 @@ class AccountServiceTest {
 
         assertNotNull(result);
         assertEquals("Sarthak Joshi", result.getHolderName());
-        assertEquals(0.0, result.getBalance());
+        assertEquals(Money.ZERO, result.getBalance());
         assertEquals("ACTIVE", result.getStatus());
 
         verify(accountRepository, times(1)).save(any(Account.class));
     }
 
+    @Test
+    void testCreateAccountRetriesOnDuplicateNumber() {
+
+        List<String> tried = new ArrayList<>();
+        when(accountRepository.save(any(Account.class)))
+                .thenAnswer(invocation -> {
+                    tried.add(((Account) invocation.getArgument(0)).getAccountNumber());
+                    throw new DuplicateKeyException("duplicate key");
+                })
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Account result = accountService.createAccount("Sarthak Joshi");
+
+        assertEquals(1, tried.size());
+        assertNotEquals(tried.get(0), result.getAccountNumber());
+        assertTrue(IdGenerator.isValid(result.getAccountNumber()));
+        verify(accountRepository, times(2)).save(any(Account.class));
+    }
+
     // -------------------------------------------------------
     // GET ACCOUNT - Success
     // -------------------------------------------------------
@@ -93,16 +145,31 @@ class AccountServiceTest {
     @Test
     void testUpdateAccount() {
 
-        when(accountRepository.findByAccountNumber("SAR1234"))
-                .thenReturn(Optional.of(sampleAccount));
-
-        when(accountRepository.save(any(Account.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        sampleAccount.setHolderName("Rohit Sharma");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(sampleAccount);
 
         Account updated = accountService.updateAccount("SAR1234", "Rohit Sharma");
 
-        assertNotNull(updated);
         assertEquals("Rohit Sharma", updated.getHolderName());
+        // only the holder name is written, never the whole document
+        verify(mongoTemplate).findAndModify(any(Query.class),
+                argThat((Update update) -> update.getUpdateObject().get("$set", Document.class).keySet()
+                        .equals(Set.of("holderName"))),
+                any(FindAndModifyOptions.class), eq(Account.class));
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    @Test
+    void testUpdateAccountNotFound() {
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(null);
+
+        assertThrows(AccountNotFoundException.class,
+                () -> accountService.updateAccount("SAR0000", "Rohit Sharma"));
     }
 
     // -------------------------------------------------------
@@ -111,16 +178,182 @@ class AccountServiceTest {
     @Test
     void testUpdateBalance() {
 
+        sampleAccount.setBalance(Money.parse("2000.00"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(sampleAccount);
+
+        Account updated = accountService.updateBalance("SAR1234", Money.parse("2000.00"));
+
+        assertEquals(Money.parse("2000.00"), updated.getBalance());
+        verify(mongoTemplate).findAndModify(any(Query.class),
+                argThat((Update update) -> Money.parse("2000.00").toDecimal128()
+                        .equals(update.getUpdateObject().get("$set", Document.class).get("balance"))),
+                any(FindAndModifyOptions.class), eq(Account.class));
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Success
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceSuccess() {
+
+        sampleAccount.setBalance(Money.parse("300.00"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(sampleAccount);
+
+        Account updated = accountService.adjustBalance("SAR1234", Money.parse("-200.00"));
+
+        assertEquals(Money.parse("300.00"), updated.getBalance());
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Guard Rejected
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceInsufficient() {
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(null);
+
+        when(accountRepository.existsByAccountNumber("SAR1234"))
+                .thenReturn(true);
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> accountService.adjustBalance("SAR1234", Money.parse("-1000.00")));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Not Found
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceNotFound() {
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(null);
+
+        when(accountRepository.existsByAccountNumber("SAR0000"))
+                .thenReturn(false);
+
+        assertThrows(AccountNotFoundException.class,
+                () -> accountService.adjustBalance("SAR0000", Money.parse("100.00")));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Operation Recorded With The Change
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceRecordsOperation() {
+
+        runTransactionsInline();
+        sampleAccount.setBalance(Money.parse("300.00"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(sampleAccount);
+
+        Account updated = accountService.adjustBalance("SAR1234", Money.parse("-200.00"), "TXN-1:debit");
+
+        assertEquals(Money.parse("300.00"), updated.getBalance());
+        verify(mongoTemplate).insert(argThat((AppliedOperation op) -> "SAR1234".equals(op.getAccountNumber())
+                && "TXN-1:debit".equals(op.getOperationId())
+                && Money.parse("-200.00").equals(op.getDelta())));
+        verify(mongoTransactions, times(1)).execute(any());
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Replayed Operation
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceReplayedOperationIsSkipped() {
+
+        runTransactionsInline();
+        when(mongoTemplate.insert(any(AppliedOperation.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+
         when(accountRepository.findByAccountNumber("SAR1234"))
                 .thenReturn(Optional.of(sampleAccount));
 
-        when(accountRepository.save(any(Account.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        Account current = accountService.adjustBalance("SAR1234", Money.parse("-200.00"), "TXN-1:debit");
 
-        Account updated = accountService.updateBalance("SAR1234", 2000.0);
+        assertEquals(Money.parse("500.00"), current.getBalance());
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class));
+    }
 
-        assertEquals(2000.0, updated.getBalance());
-        verify(accountRepository, times(1)).save(any(Account.class));
+    // -------------------------------------------------------
+    // ADJUST BALANCE - Rejected Operation Is Not Recorded
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalanceRejectedOperationFailsTheTransaction() {
+
+        runTransactionsInline();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(null);
+
+        when(accountRepository.existsByAccountNumber("SAR1234"))
+                .thenReturn(true);
+
+        // thrown out of the transaction, which rolls the operation record back
+        assertThrows(InsufficientBalanceException.class,
+                () -> accountService.adjustBalance("SAR1234", Money.parse("-1000.00"), "TXN-2:debit"));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCES - Batch
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalancesBatch() {
+
+        runTransactionsInline();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class)))
+                .thenReturn(sampleAccount)   // credit
+                .thenReturn(null)            // unknown account
+                .thenReturn(null);           // overdraft
+
+        when(accountRepository.existsByAccountNumber("SAR0000")).thenReturn(false);
+        when(accountRepository.existsByAccountNumber("SAR1234")).thenReturn(true);
+
+        List<AdjustmentResult> results = accountService.adjustBalances(List.of(
+                new BalanceAdjustment("SAR1234", Money.parse("100.00"), "TXN-1"),
+                new BalanceAdjustment("SAR0000", Money.parse("50.00"), "TXN-2"),
+                new BalanceAdjustment("SAR1234", Money.parse("-9000.00"), "TXN-3")));
+
+        assertEquals(AdjustmentResult.APPLIED, results.get(0).status());
+        assertEquals(AdjustmentResult.NOT_FOUND, results.get(1).status());
+        assertEquals(AdjustmentResult.INSUFFICIENT_BALANCE, results.get(2).status());
+        assertEquals(Money.parse("-9000.00"), results.get(2).delta());
+
+        // every entry is recorded under its own operation id, in request order
+        verify(mongoTemplate, times(3)).insert(any(AppliedOperation.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class));
+    }
+
+    // -------------------------------------------------------
+    // ADJUST BALANCES - Replayed Entry Counts As Applied
+    // -------------------------------------------------------
+    @Test
+    void testAdjustBalancesReplayedEntryIsApplied() {
+
+        runTransactionsInline();
+        when(mongoTemplate.insert(any(AppliedOperation.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+
+        when(accountRepository.findByAccountNumber("SAR1234"))
+                .thenReturn(Optional.of(sampleAccount));
+
+        List<AdjustmentResult> results = accountService.adjustBalances(List.of(
+                new BalanceAdjustment("SAR1234", Money.parse("-200.00"), "TXN-1")));
+
+        assertEquals(AdjustmentResult.APPLIED, results.get(0).status());
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Account.class));
     }
 
     // -------------------------------------------------------
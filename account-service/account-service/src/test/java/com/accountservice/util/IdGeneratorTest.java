@@ -0,0 +1,88 @@
+package com.accountservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    // ------------------------------------------------------
+    // FORMAT
+    // ------------------------------------------------------
+    @Test
+    void testNumberIsSeventeenDigitsWithValidCheckDigit() {
+
+        String number = new IdGenerator(7).generateAccountNumber();
+
+        assertTrue(number.matches("\\d{17}"), number);
+        assertTrue(IdGenerator.isValid(number));
+    }
+
+    @Test
+    void testCheckDigitCatchesTypos() {
+
+        String number = new IdGenerator(7).generateAccountNumber();
+        char[] typo = number.toCharArray();
+        typo[5] = typo[5] == '9' ? '0' : (char) (typo[5] + 1);
+
+        assertFalse(IdGenerator.isValid(new String(typo)));
+        assertFalse(IdGenerator.isValid("SAR1234"));
+        assertFalse(IdGenerator.isValid(null));
+    }
+
+    @Test
+    void testInvalidNodeIdRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+    }
+
+    // ------------------------------------------------------
+    // UNIQUENESS
+    // ------------------------------------------------------
+    @Test
+    void testNumbersAreIncreasingWithinANode() {
+
+        IdGenerator generator = new IdGenerator(3);
+        String previous = generator.generateAccountNumber();
+
+        // more than one second's worth of sequence, so the counter rolls into the next second
+        for (int i = 0; i < 40_000; i++) {
+            String next = generator.generateAccountNumber();
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testNoCollisionsAcrossThreadsAndNodes() throws Exception {
+
+        int threads = 8;
+        int perThread = 50_000;
+        IdGenerator nodeA = new IdGenerator(1);
+        IdGenerator nodeB = new IdGenerator(2);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            IdGenerator generator = t % 2 == 0 ? nodeA : nodeB;
+            futures.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < perThread; i++) {
+                    seen.add(generator.generateAccountNumber());
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : futures) {
+            f.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, seen.size());
+    }
+}
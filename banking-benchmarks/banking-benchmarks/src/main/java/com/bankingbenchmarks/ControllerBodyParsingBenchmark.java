@@ -0,0 +1,105 @@
+package com.bankingbenchmarks;
+
+import com.bankingbenchmarks.support.ObjectMappers;
+import com.transactionservice.dto.DepositRequest;
+import com.transactionservice.dto.TransferRequest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request body parsing of the TransactionController endpoints, through the same
+ * MappingJackson2HttpMessageConverter Spring MVC uses: the typed deposit and
+ * transfer records and a batch of 100 operations, which stays a list of Maps so
+ * that one malformed item only fails that item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBodyParsingBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final Type BATCH_TYPE = new TypeReference<List<Map<String, Object>>>() {}.getType();
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private MappingJackson2HttpMessageConverter converter;
+
+    private byte[] depositBody;
+    private byte[] transferBody;
+    private byte[] batchBody;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        converter = new MappingJackson2HttpMessageConverter(ObjectMappers.boot(blackbird));
+
+        depositBody = "{\"accountNumber\":\"4817263549201736\",\"amount\":1200.30}".getBytes();
+        transferBody = ("{\"sourceAccount\":\"4817263549201736\",\"destinationAccount\":\"4817263549201744\","
+                + "\"amount\":1200.30}").getBytes();
+
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            if (i > 0) {
+                batch.append(',');
+            }
+            batch.append("{\"type\":\"DEPOSIT\",\"accountNumber\":\"48172635492017").append(10 + i % 90)
+                    .append("\",\"amount\":").append(i + 1).append(".25}");
+        }
+        batchBody = batch.append(']').toString().getBytes();
+    }
+
+    // ------------------------------------------------------------
+    //   Benchmarks
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public Object deposit() throws Exception {
+        return converter.read(DepositRequest.class, null, json(depositBody));
+    }
+
+    @Benchmark
+    public Object transfer() throws Exception {
+        return converter.read(TransferRequest.class, null, json(transferBody));
+    }
+
+    @Benchmark
+    public Object batch() throws Exception {
+        return converter.read(BATCH_TYPE, null, json(batchBody));
+    }
+
+    private static HttpInputMessage json(byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpInputMessage() {
+
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(body);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+}
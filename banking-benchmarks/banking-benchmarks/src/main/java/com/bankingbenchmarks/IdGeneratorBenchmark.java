@@ -0,0 +1,73 @@
+package com.bankingbenchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation in both services, next to the UUID.randomUUID() both used to
+ * call. The *Contended variants run on 8 threads: transaction ids spread over
+ * sequence stripes, account numbers share one CAS counter.
+ *
+ * Account numbers have a 14-bit sequence per second, so at benchmark rates the
+ * counter runs ahead of the clock; that is the rollover path and costs the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private com.transactionservice.util.IdGenerator transactionIds;
+    private com.accountservice.util.IdGenerator accountNumbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        transactionIds = new com.transactionservice.util.IdGenerator(1);
+        accountNumbers = new com.accountservice.util.IdGenerator(1);
+    }
+
+    // ------------------------------------------------------------
+    //   Single thread
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public String transactionId() {
+        return transactionIds.generateTransactionId();
+    }
+
+    @Benchmark
+    public String accountNumber() {
+        return accountNumbers.generateAccountNumber();
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    // ------------------------------------------------------------
+    //   Contended
+    // ------------------------------------------------------------
+
+    @Benchmark
+    @Threads(8)
+    public String transactionIdContended() {
+        return transactionIds.generateTransactionId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String accountNumberContended() {
+        return accountNumbers.generateAccountNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomUuidContended() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.bankingbenchmarks;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.IdempotencyCache;
+import com.transactionservice.document.IdempotencyRecord;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.service.IdempotencyService;
+import com.transactionservice.util.IdGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * What IdempotencyService.execute adds to a deposit: no key (the baseline), a
+ * duplicate answered from IdempotencyCache, a duplicate the cache no longer holds
+ * (claim insert hits the unique index, takeover misses, the record is read back),
+ * and a first submission (claim, then complete). The deposit itself is a prebuilt
+ * Transaction, so only the key handling is measured.
+ *
+ * Mongo is a Mockito stand-in answering immediately: the numbers are the
+ * service's own cost per lookup plus Mockito's dispatch (around a microsecond
+ * per call), not the Mongo round trips, which banking-loadtest measures. The
+ * cached duplicate is the hot path that has to stay well below a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IdempotencyLookupBenchmark {
+
+    private static final String FINGERPRINT = "DEPOSIT|4817263549201736|100.00";
+
+    // completed keys held by the cache, the hot duplicates are drawn from them
+    @Param({"100000"})
+    public int cachedKeys;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private String[] keys;
+    private Transaction deposit;
+    private Function<String, Transaction> action;
+
+    private IdempotencyService cachedService;
+    private IdempotencyService storedService;
+    private IdempotencyService newService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        deposit = new Transaction();
+        deposit.setId("TXN-0000000000000001");
+        deposit.setTransactionId(deposit.getId());
+        deposit.setType("DEPOSIT");
+        deposit.setAmount(Money.parse("100.00"));
+        deposit.setStatus("SUCCESS");
+        deposit.setSourceAccount("4817263549201736");
+        deposit.setTimestamp(new Date());
+        action = transactionId -> deposit;
+
+        IdGenerator idGenerator = new IdGenerator(1);
+
+        // every key already completed and cached
+        IdempotencyCache hotCache = new IdempotencyCache(new SimpleMeterRegistry(), cachedKeys, 60);
+        keys = new String[cachedKeys];
+        for (int i = 0; i < cachedKeys; i++) {
+            keys[i] = "key-" + i;
+            hotCache.put(completed(keys[i]));
+        }
+        cachedService = service(mock(MongoTemplate.class), hotCache, idGenerator);
+
+        // every key completed in Mongo but evicted from the cache
+        MongoTemplate storedKeys = mock(MongoTemplate.class);
+        when(storedKeys.insert(any(IdempotencyRecord.class)))
+                .thenAnswer(invocation -> {
+                    throw new DuplicateKeyException("duplicate key");
+                });
+        when(storedKeys.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(IdempotencyRecord.class)))
+                .thenReturn(null);
+        when(storedKeys.findById(anyString(), eq(IdempotencyRecord.class)))
+                .thenReturn(completed("stored"));
+        storedService = service(storedKeys, new IdempotencyCache(new SimpleMeterRegistry(), cachedKeys, 60), idGenerator);
+
+        // every key seen for the first time: the insert wins, the result is stored
+        newService = service(mock(MongoTemplate.class),
+                new IdempotencyCache(new SimpleMeterRegistry(), cachedKeys, 60), idGenerator);
+    }
+
+    private IdempotencyService service(MongoTemplate mongoTemplate, IdempotencyCache cache, IdGenerator idGenerator) {
+        IdempotencyService service = new IdempotencyService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "idempotencyCache", cache);
+        ReflectionTestUtils.setField(service, "idGenerator", idGenerator);
+        return service;
+    }
+
+    private IdempotencyRecord completed(String key) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(key);
+        record.setOperation("DEPOSIT");
+        record.setFingerprint(FINGERPRINT);
+        record.setStatus(IdempotencyRecord.COMPLETED);
+        record.setTransactionId(deposit.getTransactionId());
+        record.setTransaction(deposit);
+        record.setCreatedAt(new Date());
+        return record;
+    }
+
+    // ------------------------------------------------------------
+    //   Benchmarks
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public Transaction noKey() {
+        return cachedService.execute(null, "DEPOSIT", FINGERPRINT, action);
+    }
+
+    @Benchmark
+    public Transaction cachedDuplicate() {
+        String key = keys[ThreadLocalRandom.current().nextInt(cachedKeys)];
+        return cachedService.execute(key, "DEPOSIT", FINGERPRINT, action);
+    }
+
+    @Benchmark
+    public Transaction storedDuplicate() {
+        // a key the cache has never seen; the record read back is cached under its own id
+        return storedService.execute("miss-" + sequence.incrementAndGet(), "DEPOSIT", FINGERPRINT, action);
+    }
+
+    @Benchmark
+    public Transaction firstSubmission() {
+        return newService.execute("new-" + sequence.incrementAndGet(), "DEPOSIT", FINGERPRINT, action);
+    }
+}
@@ -0,0 +1,138 @@
+package com.bankingbenchmarks;
+
+import com.bankingbenchmarks.support.ObjectMappers;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.dto.BalanceAdjustRequest;
+import com.transactionservice.util.ApiResponse;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON on the transaction path: the ApiResponse&lt;Transaction&gt; written to the
+ * client, the balance-adjust body sent to account-service and the
+ * ApiResponse&lt;AccountDto&gt; read back. Each typed codec runs next to the Map
+ * it replaced, with and without Blackbird.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    // account-service returns the whole document, most of which transaction-service skips
+    private static final String ACCOUNT_RESPONSE = "{\"message\":\"Balance adjusted\",\"data\":{"
+            + "\"id\":\"6650f0c2a1b2c3d4e5f60718\",\"accountNumber\":\"4817263549201736\","
+            + "\"holderName\":\"Jane Doe\",\"email\":\"jane@example.com\",\"balance\":98765.43,"
+            + "\"status\":\"ACTIVE\",\"createdAt\":\"2025-03-01T10:15:30.000+00:00\",\"version\":42},"
+            + "\"success\":true}";
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private ObjectWriter transactionResponseWriter;
+    private ObjectWriter mapWriter;
+    private ObjectWriter adjustRequestWriter;
+    private ObjectReader accountResponseReader;
+    private ObjectReader mapReader;
+
+    private ApiResponse<Transaction> transactionResponse;
+    private Map<String, Object> transactionResponseMap;
+    private BalanceAdjustRequest adjustRequest;
+    private Map<String, Object> adjustRequestMap;
+    private byte[] accountResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        ObjectMapper objectMapper = ObjectMappers.boot(blackbird);
+        transactionResponseWriter = objectMapper.writerFor(new TypeReference<ApiResponse<Transaction>>() {});
+        adjustRequestWriter = objectMapper.writerFor(BalanceAdjustRequest.class);
+        mapWriter = objectMapper.writerFor(new TypeReference<Map<String, Object>>() {});
+        accountResponseReader = objectMapper.readerFor(new TypeReference<ApiResponse<AccountDto>>() {});
+        mapReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() {});
+
+        Transaction txn = new Transaction();
+        txn.setId("TXN-01JBX7Q9ZK0G00A3");
+        txn.setTransactionId("TXN-01JBX7Q9ZK0G00A3");
+        txn.setType("TRANSFER");
+        txn.setAmount(Money.parse("1200.30"));
+        txn.setStatus("SUCCESS");
+        txn.setSourceAccount("4817263549201736");
+        txn.setDestinationAccount("4817263549201744");
+        txn.setTimestamp(new Date(1_740_000_000_000L));
+        transactionResponse = new ApiResponse<>("Transfer Successful", txn, true);
+
+        Map<String, Object> txnMap = new LinkedHashMap<>();
+        txnMap.put("id", txn.getId());
+        txnMap.put("transactionId", txn.getTransactionId());
+        txnMap.put("type", txn.getType());
+        txnMap.put("amount", txn.getAmount().toBigDecimal());
+        txnMap.put("status", txn.getStatus());
+        txnMap.put("sourceAccount", txn.getSourceAccount());
+        txnMap.put("destinationAccount", txn.getDestinationAccount());
+        txnMap.put("timestamp", txn.getTimestamp());
+        transactionResponseMap = new LinkedHashMap<>();
+        transactionResponseMap.put("message", "Transfer Successful");
+        transactionResponseMap.put("data", txnMap);
+        transactionResponseMap.put("success", true);
+
+        adjustRequest = new BalanceAdjustRequest(Money.parse("-1200.30"), txn.getTransactionId() + ":debit");
+        adjustRequestMap = new LinkedHashMap<>();
+        adjustRequestMap.put("delta", adjustRequest.delta().toBigDecimal());
+        adjustRequestMap.put("operationId", adjustRequest.operationId());
+
+        accountResponse = ACCOUNT_RESPONSE.getBytes();
+    }
+
+    // ------------------------------------------------------------
+    //   Response to the client
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public byte[] writeTransactionResponse() throws Exception {
+        return transactionResponseWriter.writeValueAsBytes(transactionResponse);
+    }
+
+    @Benchmark
+    public byte[] writeTransactionResponseMap() throws Exception {
+        return mapWriter.writeValueAsBytes(transactionResponseMap);
+    }
+
+    // ------------------------------------------------------------
+    //   Calls to account-service
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public byte[] writeAdjustRequest() throws Exception {
+        return adjustRequestWriter.writeValueAsBytes(adjustRequest);
+    }
+
+    @Benchmark
+    public byte[] writeAdjustRequestMap() throws Exception {
+        return mapWriter.writeValueAsBytes(adjustRequestMap);
+    }
+
+    @Benchmark
+    public ApiResponse<AccountDto> readAccountResponse() throws Exception {
+        return accountResponseReader.readValue(accountResponse);
+    }
+
+    @Benchmark
+    public Map<String, Object> readAccountResponseMap() throws Exception {
+        return mapReader.readValue(accountResponse);
+    }
+}
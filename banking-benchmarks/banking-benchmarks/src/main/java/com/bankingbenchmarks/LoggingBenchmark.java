@@ -0,0 +1,109 @@
+package com.bankingbenchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What one INFO statement costs the request thread: an appender called
+ * synchronously against the AsyncAppender setup of logback-spring.xml (queue of
+ * 8192, neverBlock), with the plain pattern and the prod JSON encoder.
+ *
+ * Events go to a discarding stream, so the sync numbers are formatting and
+ * encoding only; a real console or disk adds its own latency on top, which is
+ * exactly what the async appender takes off the caller. With neverBlock a full
+ * queue drops events instead of waiting, so the async numbers are the enqueue cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg%n";
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    @Param({"pattern", "json"})
+    public String encoder;
+
+    private LoggerContext context;
+    private Logger logger;
+
+    private final String txnId = "TXN-01JBX7Q9ZK0G00A3";
+    private final String account = "4817263549201736";
+    private final String amount = "1200.30";
+
+    // trial level (the default); Level here is logback's
+    @Setup
+    public void setUp() {
+
+        // a context of its own, so the benchmark does not reconfigure the global one
+        context = new LoggerContext();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder());
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        Appender<ILoggingEvent> appender = sink;
+        if ("async".equals(mode)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(sink);
+            async.start();
+            appender = async;
+        }
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+        logger = context.getLogger("com.transactionservice.controller.TransactionController");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    // ------------------------------------------------------------
+    //   Benchmarks
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public void info() {
+        logger.info("Deposit Successful: txnId={} account={} amount={}", txnId, account, amount);
+    }
+
+    private Encoder<ILoggingEvent> encoder() {
+        if ("json".equals(encoder)) {
+            JsonEncoder json = new JsonEncoder();
+            json.setContext(context);
+            json.start();
+            return json;
+        }
+        PatternLayoutEncoder pattern = new PatternLayoutEncoder();
+        pattern.setContext(context);
+        pattern.setPattern(PATTERN);
+        pattern.start();
+        return pattern;
+    }
+}
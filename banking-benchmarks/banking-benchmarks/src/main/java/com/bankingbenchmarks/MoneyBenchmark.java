@@ -0,0 +1,77 @@
+package com.bankingbenchmarks;
+
+import com.bankingcommon.util.Money;
+
+import org.bson.types.Decimal128;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money (long cents) against the BigDecimal code it replaced, for the operations
+ * a transaction performs: parse the request amount, apply the delta, and
+ * convert to and from Decimal128 for Mongo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private String text = "1200.30";
+
+    private Money balance = Money.parse("98765.43");
+    private Money delta = Money.parse("-1200.30");
+    private Decimal128 storedMoney = balance.toDecimal128();
+
+    private BigDecimal balanceDecimal = new BigDecimal("98765.43");
+    private BigDecimal deltaDecimal = new BigDecimal("-1200.30");
+    private Decimal128 storedDecimal = new Decimal128(balanceDecimal);
+
+    // ------------------------------------------------------------
+    //   Parse
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public Money parseMoney() {
+        return Money.parse(text);
+    }
+
+    @Benchmark
+    public BigDecimal parseBigDecimal() {
+        return new BigDecimal(text).setScale(2, RoundingMode.UNNECESSARY);
+    }
+
+    // ------------------------------------------------------------
+    //   Arithmetic
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public boolean applyMoney() {
+        return balance.plus(delta).isNegative();
+    }
+
+    @Benchmark
+    public boolean applyBigDecimal() {
+        return balanceDecimal.add(deltaDecimal).signum() < 0;
+    }
+
+    // ------------------------------------------------------------
+    //   Mongo round trip
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public Money decimal128Money() {
+        return Money.of(Money.of(storedMoney).toDecimal128());
+    }
+
+    @Benchmark
+    public BigDecimal decimal128BigDecimal() {
+        return new Decimal128(storedDecimal.bigDecimalValue()).bigDecimalValue();
+    }
+}
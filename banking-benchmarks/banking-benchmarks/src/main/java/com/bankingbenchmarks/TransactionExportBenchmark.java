@@ -0,0 +1,114 @@
+package com.bankingbenchmarks;
+
+import com.bankingbenchmarks.support.ObjectMappers;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.service.TransactionExportService;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TransactionExportService.export of one account with a million transactions, as
+ * NDJSON and CSV, plain and gzipped the way the controller wraps it, into a
+ * stream that discards the bytes. The rows are generated while the cursor is
+ * read, as the Mongo cursor hands them over, so what is measured is the
+ * serialisation per export (time, and bytes with -prof gc).
+ *
+ * The fork runs with a 64 MB heap, far below the few hundred MB of NDJSON and the
+ * million documents one export produces: the export only completes if rows are
+ * written and dropped one by one instead of being collected first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms64m", "-Xmx64m"})
+public class TransactionExportBenchmark {
+
+    private static final String ACCOUNT = "4817263549201736";
+    private static final String COUNTERPARTY = "4817263549201744";
+    private static final long START_MILLIS = 1_700_000_000_000L;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({TransactionExportService.NDJSON, TransactionExportService.CSV})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private TransactionExportService exportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        // stands in for the Mongo cursor: a fresh lazy stream of rows for every export
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenAnswer(invocation -> Stream.iterate(0, i -> i < rows, i -> i + 1)
+                        .map(TransactionExportBenchmark::row));
+
+        exportService = new TransactionExportService();
+        ReflectionTestUtils.setField(exportService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(exportService, "objectMapper", ObjectMappers.boot(false));
+    }
+
+    // ------------------------------------------------------------
+    //   Benchmarks
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public long export() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        if (!gzip) {
+            return exportService.export(ACCOUNT, null, null, format, out);
+        }
+        GZIPOutputStream gzipped = new GZIPOutputStream(out, 64 * 1024);
+        long written = exportService.export(ACCOUNT, null, null, format, gzipped);
+        gzipped.finish();
+        return written;
+    }
+
+    private static Transaction row(int i) {
+        Transaction txn = new Transaction();
+        txn.setId("TXN-" + (100_000_000 + i));
+        txn.setTransactionId(txn.getId());
+        txn.setStatus("SUCCESS");
+        txn.setAmount(Money.ofMinor(1 + (i * 7919L) % 1_000_000));
+        txn.setTimestamp(new Date(START_MILLIS + i * 1000L));
+        switch (i % 3) {
+            case 0 -> {
+                txn.setType("DEPOSIT");
+                txn.setSourceAccount(ACCOUNT);
+            }
+            case 1 -> {
+                txn.setType("WITHDRAW");
+                txn.setSourceAccount(ACCOUNT);
+            }
+            default -> {
+                txn.setType("TRANSFER");
+                txn.setSourceAccount(COUNTERPARTY);
+                txn.setDestinationAccount(ACCOUNT);
+            }
+        }
+        return txn;
+    }
+}
@@ -0,0 +1,122 @@
+package com.bankingbenchmarks;
+
+import com.bankingbenchmarks.support.CountingNotificationOutbox;
+import com.bankingbenchmarks.support.CountingRepository;
+import com.bankingbenchmarks.support.InMemorySagaStateLog;
+import com.bankingbenchmarks.support.InlineMongoTransactions;
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.service.AccountRemoteService;
+import com.transactionservice.service.NotificationOutboxService;
+import com.transactionservice.service.TransactionService;
+import com.transactionservice.service.TransferSagaEngine;
+import com.transactionservice.support.InMemoryAccountClient;
+import com.transactionservice.util.AccountLocks;
+import com.transactionservice.util.IdGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TransactionService.deposit / withdraw / transfer end to end inside one JVM:
+ * validation through the account cache, lock stripes, the saga engine, the
+ * transaction record and the outbox entry. account-service, Mongo (including its
+ * transactions) and the saga log are in-memory stand-ins, so the numbers are the
+ * service's own overhead per operation (run with -prof gc for the allocation rate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class TransactionServiceBenchmark {
+
+    private static final Money AMOUNT = Money.parse("1.00");
+    private static final long OPENING_BALANCE = Long.MAX_VALUE / 4; // never runs out, never overflows
+
+    // how many distinct accounts the operations are spread over (lock and cache contention)
+    @Param({"1024"})
+    public int accounts;
+
+    private String[] accountNumbers;
+    private TransactionService transactionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        InMemoryAccountClient accountClient = new InMemoryAccountClient();
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = "ACC-" + i;
+            accountClient.open(accountNumbers[i], OPENING_BALANCE);
+        }
+
+        LongAdder writes = new LongAdder();
+        AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 10_000, 30);
+        TransactionRepository transactionRepository = CountingRepository.of(TransactionRepository.class, writes);
+        IdGenerator idGenerator = new IdGenerator(1);
+
+        NotificationOutboxService notificationOutboxService = new CountingNotificationOutbox(writes);
+        MongoTransactions mongoTransactions = new InlineMongoTransactions();
+
+        AccountRemoteService accountRemoteService = new AccountRemoteService();
+        ReflectionTestUtils.setField(accountRemoteService, "accountClient", accountClient);
+        ReflectionTestUtils.setField(accountRemoteService, "accountCache", accountCache);
+
+        TransferSagaEngine transferSagaEngine = new TransferSagaEngine();
+        ReflectionTestUtils.setField(transferSagaEngine, "accountRemoteService", accountRemoteService);
+        ReflectionTestUtils.setField(transferSagaEngine, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transferSagaEngine, "notificationOutboxService", notificationOutboxService);
+        ReflectionTestUtils.setField(transferSagaEngine, "mongoTransactions", mongoTransactions);
+        ReflectionTestUtils.setField(transferSagaEngine, "sagaStateLog", new InMemorySagaStateLog(writes));
+        ReflectionTestUtils.setField(transferSagaEngine, "idGenerator", idGenerator);
+
+        transactionService = new TransactionService();
+        ReflectionTestUtils.setField(transactionService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transactionService, "accountRemoteService", accountRemoteService);
+        ReflectionTestUtils.setField(transactionService, "notificationOutboxService", notificationOutboxService);
+        ReflectionTestUtils.setField(transactionService, "mongoTransactions", mongoTransactions);
+        ReflectionTestUtils.setField(transactionService, "accountCache", accountCache);
+        ReflectionTestUtils.setField(transactionService, "accountLocks", new AccountLocks(1024));
+        ReflectionTestUtils.setField(transactionService, "transferSagaEngine", transferSagaEngine);
+        ReflectionTestUtils.setField(transactionService, "idGenerator", idGenerator);
+    }
+
+    // ------------------------------------------------------------
+    //   Benchmarks
+    // ------------------------------------------------------------
+
+    @Benchmark
+    public Transaction deposit() {
+        return transactionService.deposit(randomAccount(), AMOUNT);
+    }
+
+    @Benchmark
+    public Transaction withdraw() {
+        return transactionService.withdraw(randomAccount(), AMOUNT);
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accounts);
+        // any other account: shift by 1..accounts-1
+        int destination = (source + 1 + random.nextInt(accounts - 1)) % accounts;
+        return transactionService.transfer(accountNumbers[source], accountNumbers[destination], AMOUNT);
+    }
+
+    private String randomAccount() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+    }
+}
@@ -0,0 +1,30 @@
+package com.bankingbenchmarks.support;
+
+import com.transactionservice.document.Transaction;
+import com.transactionservice.service.NotificationOutboxService;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbox that persists nothing: every queued notification is counted, like the
+ * writes of {@link CountingRepository}.
+ */
+public class CountingNotificationOutbox extends NotificationOutboxService {
+
+    private final LongAdder writes;
+
+    public CountingNotificationOutbox(LongAdder writes) {
+        this.writes = writes;
+    }
+
+    @Override
+    public void enqueue(Transaction txn) {
+        writes.increment();
+    }
+
+    @Override
+    public void enqueueAll(List<Transaction> txns) {
+        writes.add(txns.size());
+    }
+}
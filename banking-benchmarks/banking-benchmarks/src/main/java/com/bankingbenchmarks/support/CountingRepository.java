@@ -0,0 +1,62 @@
+package com.bankingbenchmarks.support;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Write-only stand-in for a Spring Data repository interface: save and insert
+ * return the document and count it. Documents are not kept, so a long run does
+ * not turn into a heap-growth benchmark; every other call behaves as on an empty
+ * collection (nothing found, nothing to delete), so a code path that also reads
+ * or cleans up is measured instead of failing the benchmark.
+ */
+public final class CountingRepository {
+
+    private CountingRepository() {}
+
+    @SuppressWarnings("unchecked")
+    public static <R> R of(Class<R> repositoryType, LongAdder writes) {
+        return (R) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[] {repositoryType},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "save", "insert", "saveAll" -> {
+                        if (args[0] instanceof Iterable<?> documents) {
+                            documents.forEach(doc -> writes.increment());
+                        } else {
+                            writes.increment();
+                        }
+                        yield args[0];
+                    }
+                    case "toString" -> "CountingRepository<" + repositoryType.getSimpleName() + ">";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> empty(method.getReturnType());
+                });
+    }
+
+    private static Object empty(Class<?> type) {
+        if (type == Optional.class) {
+            return Optional.empty();
+        }
+        if (type == List.class || type == Collection.class || type == Iterable.class) {
+            return List.of();
+        }
+        if (type == Stream.class) {
+            return Stream.empty();
+        }
+        if (type == long.class || type == Long.class) {
+            return 0L;
+        }
+        if (type == int.class || type == Integer.class) {
+            return 0;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return false;
+        }
+        // void and single documents (findFirst..., findByX returning the document)
+        return null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.bankingbenchmarks.support;
+
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.service.SagaStateLog;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saga state log that persists nothing: appends are counted and return at once.
+ * The flusher thread is never started (no @PostConstruct outside Spring), so the
+ * benchmark sees the engine's own cost without the group-commit wait.
+ */
+public class InMemorySagaStateLog extends SagaStateLog {
+
+    private final LongAdder transitions;
+
+    public InMemorySagaStateLog(LongAdder transitions) {
+        this.transitions = transitions;
+    }
+
+    @Override
+    public void append(TransferSaga saga) {
+        transitions.increment();
+    }
+
+    @Override
+    public void appendAndFlush(TransferSaga saga) {
+        transitions.increment();
+    }
+}
@@ -0,0 +1,17 @@
+package com.bankingbenchmarks.support;
+
+import com.bankingcommon.mongo.MongoTransactions;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the unit of work directly, without a transaction manager. The writes in
+ * it go to in-memory stand-ins, so there is nothing to commit or roll back.
+ */
+public class InlineMongoTransactions extends MongoTransactions {
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        return work.get();
+    }
+}
@@ -0,0 +1,28 @@
+package com.bankingbenchmarks.support;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * The ObjectMapper the services get from JacksonAutoConfiguration, built without
+ * a Spring context: Boot's defaults, the spring.jackson.* settings from
+ * application.properties, and optionally the Blackbird module from JacksonConfig.
+ */
+public final class ObjectMappers {
+
+    private ObjectMappers() {}
+
+    public static ObjectMapper boot(boolean blackbird) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .featuresToEnable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.bankingcommon.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson setup shared by the MVC message converters and the Feign encoder /
+ * decoder (both use the Boot ObjectMapper). Blackbird replaces the reflective
+ * getter, setter and constructor calls of the bean (de)serializers with
+ * LambdaMetafactory-generated accessors, which is where most of the time goes
+ * for the small request and response records exchanged between services.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // picked up by JacksonAutoConfiguration like any other Module bean
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankingcommon.config;
+
+import com.bankingcommon.util.Money;
+
+import org.bson.types.Decimal128;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+/**
+ * Stores {@link Money} as Decimal128 with two decimals. Amounts written before
+ * Money existed are doubles and are still read (rounded to cents).
+ */
+@Configuration
+public class MoneyConversionConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(
+                MoneyToDecimal128.INSTANCE,
+                Decimal128ToMoney.INSTANCE,
+                DoubleToMoney.INSTANCE));
+    }
+
+    @WritingConverter
+    enum MoneyToDecimal128 implements Converter<Money, Decimal128> {
+        INSTANCE;
+
+        @Override
+        public Decimal128 convert(Money source) {
+            return source.toDecimal128();
+        }
+    }
+
+    @ReadingConverter
+    enum Decimal128ToMoney implements Converter<Decimal128, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Decimal128 source) {
+            return Money.of(source);
+        }
+    }
+
+    @ReadingConverter
+    enum DoubleToMoney implements Converter<Double, Money> {
+        INSTANCE;
+
+        @Override
+        public Money convert(Double source) {
+            return Money.ofLegacyDouble(source);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.bankingcommon.config;
+
+import com.bankingcommon.mongo.SlowQueryListener;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoMonitoringConfig {
+
+    // next to the metrics listener Spring Boot registers for mongodb.driver.commands
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryListenerCustomizer(SlowQueryListener slowQueryListener) {
+        return settings -> settings.addCommandListener(slowQueryListener);
+    }
+}
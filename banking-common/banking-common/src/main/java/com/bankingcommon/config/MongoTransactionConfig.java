@@ -0,0 +1,20 @@
+package com.bankingcommon.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Enables multi-document transactions (see MongoTransactions). Transactions need
+ * a replica set; a single mongod started with --replSet and rs.initiate() is enough.
+ * Boot builds its TransactionTemplate on this manager.
+ */
+@Configuration
+public class MongoTransactionConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+}
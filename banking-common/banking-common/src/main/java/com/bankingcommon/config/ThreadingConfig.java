@@ -0,0 +1,38 @@
+package com.bankingcommon.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Reports which execution model is active. With spring.threads.virtual.enabled=true
+ * on JDK 21+, Spring Boot runs Tomcat request handling, the application task
+ * executor (MVC async / StreamingResponseBody) and the scheduler on virtual threads.
+ * Feign and the Mongo driver block on the calling thread, so they follow along.
+ */
+@Configuration
+public class ThreadingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportThreadingMode(ApplicationReadyEvent event) {
+        Environment env = event.getApplicationContext().getEnvironment();
+        boolean requested = env.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+
+        if (Threading.VIRTUAL.isActive(env)) {
+            logger.info("Threading mode: VIRTUAL (JDK {})", System.getProperty("java.version"));
+        } else if (requested) {
+            logger.warn("Virtual threads requested but JDK {} does not support them, running on platform threads",
+                    System.getProperty("java.version"));
+        } else {
+            logger.info("Threading mode: PLATFORM (tomcat max threads={})",
+                    env.getProperty("server.tomcat.threads.max", "200"));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.bankingcommon.mongo;
+
+import org.bson.Document;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Owns the indexes declared on the documents (@Indexed / @CompoundIndex).
+ *
+ * Index creation itself is left to spring.data.mongodb.auto-index-creation; once
+ * the application is up every declared index is checked against the server and a
+ * missing one (dropped by hand, or failed to build because of duplicates) is
+ * created again. With mongo.indexes.fail-on-missing=true an index that still
+ * cannot be built stops the service instead of letting every lookup degrade into
+ * a collection scan.
+ */
+@Component
+public class IndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexManager.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @Value("${mongo.indexes.fail-on-missing:false}")
+    private boolean failOnMissing;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyIndexes() {
+
+        List<String> missing = new ArrayList<>();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            String collection = entity.getCollection();
+            Set<String> existing = existingIndexes(collection);
+
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                String spec = spec(definition.getIndexKeys(), definition.getIndexOptions().getBoolean("unique", false));
+                if (existing.contains(spec)) {
+                    continue;
+                }
+                logger.warn("Index {} missing on collection={}, creating it", spec, collection);
+                try {
+                    mongoTemplate.indexOps(collection).ensureIndex(definition);
+                } catch (RuntimeException e) {
+                    logger.error("Could not create index {} on collection={}: {}", spec, collection, e.getMessage());
+                    missing.add(collection + " " + spec);
+                }
+            }
+        }
+
+        if (missing.isEmpty()) {
+            logger.info("All declared indexes present");
+        } else if (failOnMissing) {
+            throw new IllegalStateException("Declared indexes missing: " + missing);
+        }
+    }
+
+    /**
+     * Per collection, the $indexStats of every index: how often it was used since
+     * the server (or the index) started. An index with no accesses is a candidate
+     * for removal, a query pattern without one shows up in the slow queries.
+     */
+    public Map<String, List<Map<String, Object>>> indexStats() {
+
+        Map<String, List<Map<String, Object>>> stats = new TreeMap<>();
+        for (MongoPersistentEntity<?> entity : documentEntities()) {
+            String collection = entity.getCollection();
+            List<Map<String, Object>> indexes = new ArrayList<>();
+            for (Document doc : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document accesses = doc.get("accesses", Document.class);
+                Map<String, Object> index = new LinkedHashMap<>();
+                index.put("name", doc.getString("name"));
+                index.put("key", doc.get("key"));
+                index.put("ops", accesses == null ? null : accesses.get("ops"));
+                index.put("since", accesses == null ? null : accesses.get("since"));
+                indexes.add(index);
+            }
+            stats.put(collection, indexes);
+        }
+        return stats;
+    }
+
+    // ------------------------------------------------------------
+    //   Helpers
+    // ------------------------------------------------------------
+
+    private List<MongoPersistentEntity<?>> documentEntities() {
+        List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    private Set<String> existingIndexes(String collection) {
+        Set<String> specs = new HashSet<>();
+        for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+            specs.add(spec(index.get("key", Document.class), index.getBoolean("unique", false)));
+        }
+        return specs;
+    }
+
+    // index identity by keys, directions and uniqueness; names differ between tools
+    static String spec(Document keys, boolean unique) {
+        StringJoiner joiner = new StringJoiner(", ", "{", unique ? "} unique" : "}");
+        for (Map.Entry<String, Object> key : keys.entrySet()) {
+            Object direction = key.getValue() instanceof Number n ? n.intValue() : key.getValue();
+            joiner.add(key.getKey() + ": " + direction);
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.bankingcommon.mongo;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * GET /actuator/mongoindexes: index usage per collection and the latest slow queries.
+ */
+@Component
+@Endpoint(id = "mongoindexes")
+public class MongoIndexEndpoint {
+
+    @Autowired
+    private IndexManager indexManager;
+
+    @Autowired
+    private SlowQueryListener slowQueryListener;
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("indexes", indexManager.indexStats());
+        report.put("slowQueryThresholdMs", slowQueryListener.getThresholdMs());
+        report.put("slowQueries", slowQueryListener.recent());
+        return report;
+    }
+}
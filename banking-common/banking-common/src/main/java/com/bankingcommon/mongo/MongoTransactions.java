@@ -0,0 +1,60 @@
+package com.bankingcommon.mongo;
+
+import com.mongodb.MongoException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in one Mongo transaction. MongoTemplate calls made inside
+ * it join the transaction, and an exception rolls all of them back.
+ *
+ * A transaction that the server aborts with a TransientTransactionError (e.g. a
+ * write conflict with a concurrent transaction on the same document) or whose
+ * commit ended with an UnknownTransactionCommitResult is run again from the start,
+ * up to mongo.transactions.max-attempts times. The work must therefore be safe to
+ * repeat after a commit that did go through, e.g. by inserting under a unique key
+ * first.
+ */
+@Component
+public class MongoTransactions {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoTransactions.class);
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${mongo.transactions.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                logger.debug("Mongo transaction aborted on attempt {}, running it again: {}", attempt, e.getMessage());
+            }
+        }
+    }
+
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException
+                    && (mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || mongoException.hasErrorLabel(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
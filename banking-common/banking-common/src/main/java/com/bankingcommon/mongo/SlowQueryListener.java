@@ -0,0 +1,165 @@
+package com.bankingcommon.mongo;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mongo driver listener keeping the most recent slow queries for the mongoindexes
+ * actuator endpoint. Only the shape of the filter is kept (field names and
+ * operators, values replaced by "?"), so account numbers and amounts never end up
+ * in the report. Latency histograms of all commands are already published by
+ * Spring Boot as mongodb.driver.commands.
+ */
+@Component
+public class SlowQueryListener implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private static final Set<String> QUERY_COMMANDS =
+            Set.of("find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+
+    private final long thresholdMs;
+    private final int maxEntries;
+
+    // shape of each query in flight; the command document is only valid inside commandStarted
+    private final Map<Integer, Started> inFlight = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> recent = new ArrayDeque<>();
+
+    public SlowQueryListener(@Value("${mongo.slow-query.threshold-ms:100}") long thresholdMs,
+                             @Value("${mongo.slow-query.max-entries:100}") int maxEntries) {
+        this.thresholdMs = thresholdMs;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String command = event.getCommandName();
+        if (!QUERY_COMMANDS.contains(command)) {
+            return;
+        }
+        BsonDocument body = event.getCommand();
+        BsonValue collection = body.get(command);
+        inFlight.put(event.getRequestId(), new Started(
+                collection != null && collection.isString() ? collection.asString().getValue() : null,
+                shape(filterOf(command, body))));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started != null) {
+            record(event.getCommandName(), started, event.getElapsedTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        Started started = inFlight.remove(event.getRequestId());
+        if (started != null) {
+            record(event.getCommandName(), started, event.getElapsedTime(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    public long getThresholdMs() {
+        return thresholdMs;
+    }
+
+    /**
+     * Slow queries seen since startup, newest first, at most mongo.slow-query.max-entries.
+     */
+    public List<SlowQuery> recent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Helpers
+    // ------------------------------------------------------------
+
+    private void record(String command, Started started, long elapsedMs) {
+        if (elapsedMs < thresholdMs) {
+            return;
+        }
+        logger.warn("Slow mongo {} on {} took {}ms, filter={}", command, started.collection, elapsedMs, started.shape);
+        synchronized (recent) {
+            recent.addFirst(new SlowQuery(Instant.now(), command, started.collection, started.shape, elapsedMs));
+            if (recent.size() > maxEntries) {
+                recent.removeLast();
+            }
+        }
+    }
+
+    private static BsonValue filterOf(String command, BsonDocument body) {
+        switch (command) {
+            case "find":
+                return body.get("filter");
+            case "count":
+            case "distinct":
+            case "findAndModify":
+                return body.get("query");
+            case "aggregate": {
+                BsonValue pipeline = body.get("pipeline");
+                return pipeline != null && pipeline.isArray() && !pipeline.asArray().isEmpty()
+                        ? pipeline.asArray().get(0) : null;
+            }
+            case "update":
+            case "delete": {
+                // statements of a write command come in a separate payload the event does not always carry
+                BsonValue statements = body.get(command.equals("update") ? "updates" : "deletes");
+                return statements != null && statements.isArray() && !statements.asArray().isEmpty()
+                        ? statements.asArray().get(0).asDocument().get("q") : null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    // field names and operators are kept, literal values are not
+    static String shape(BsonValue value) {
+        if (value == null) {
+            return "{}";
+        }
+        if (value.isDocument()) {
+            StringJoiner joiner = new StringJoiner(", ", "{", "}");
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                joiner.add(entry.getKey() + ": " + shape(entry.getValue()));
+            }
+            return joiner.toString();
+        }
+        if (value.isArray()) {
+            BsonArray array = value.asArray();
+            boolean nested = !array.isEmpty() && (array.get(0).isDocument() || array.get(0).isArray());
+            if (!nested) {
+                return "[?]";
+            }
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (BsonValue item : array) {
+                joiner.add(shape(item));
+            }
+            return joiner.toString();
+        }
+        return "?";
+    }
+
+    private record Started(String collection, String shape) {}
+
+    public record SlowQuery(Instant at, String command, String collection, String filter, long elapsedMs) {}
+}
@@ -0,0 +1,246 @@
+package com.bankingcommon.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import org.bson.types.Decimal128;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An exact amount of money, held as a long count of minor units (cents).
+ *
+ * Arithmetic is plain long arithmetic with overflow checks, so there is no drift
+ * and no BigDecimal on the hot path. On the wire an amount is a JSON number with
+ * two decimals (12.30), in Mongo it is a Decimal128 with the same scale, so
+ * documents stay readable and $inc / $gte work on them server side. Amounts with
+ * more than two decimals are rejected rather than rounded.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+@JsonDeserialize(using = Money.Deserializer.class)
+public final class Money implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    private static final long FACTOR = 100;
+
+    // IEEE 754-2008 BID layout of Decimal128: sign bit, 14-bit biased exponent, 113-bit coefficient
+    private static final long DECIMAL128_SIGN = Long.MIN_VALUE;
+    private static final long DECIMAL128_EXPONENT = (long) (6176 - SCALE) << 49;
+    private static final long DECIMAL128_EXPONENT_MASK = 0x7FFEL << 48;
+    private static final long DECIMAL128_COEFFICIENT_HIGH_MASK = (1L << 49) - 1;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Parses a plain decimal such as "12", "-0.5" or "1200.30" (exponent notation is
+     * accepted too); throws IllegalArgumentException for malformed input or more
+     * than two decimals.
+     */
+    public static Money parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Amount is required");
+        }
+        return ofMinor(parseMinor(text, 0, text.length()));
+    }
+
+    public static Money of(BigDecimal value) {
+        try {
+            return ofMinor(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not a valid amount: " + value.toPlainString());
+        }
+    }
+
+    /**
+     * Reads a Decimal128 written by {@link #toDecimal128()} without going through
+     * BigDecimal; other scales (e.g. balances first stored as doubles and later
+     * $inc'ed) take the slow path and are rounded half-even to cents.
+     */
+    public static Money of(Decimal128 value) {
+        long high = value.getHigh();
+        long low = value.getLow();
+        if ((high & DECIMAL128_EXPONENT_MASK) == DECIMAL128_EXPONENT
+                && (high & DECIMAL128_COEFFICIENT_HIGH_MASK) == 0 && low >= 0) {
+            return ofMinor(high < 0 ? -low : low);
+        }
+        return ofMinor(value.bigDecimalValue().setScale(SCALE, RoundingMode.HALF_EVEN)
+                .unscaledValue().longValueExact());
+    }
+
+    // balances stored before amounts were exact
+    public static Money ofLegacyDouble(double value) {
+        return ofMinor(BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_EVEN)
+                .unscaledValue().longValueExact());
+    }
+
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Decimal128 toDecimal128() {
+        long sign = minorUnits < 0 ? DECIMAL128_SIGN : 0;
+        // Math.abs(Long.MIN_VALUE) stays negative, which is still the right unsigned coefficient
+        return Decimal128.fromIEEE754BIDEncoding(sign | DECIMAL128_EXPONENT, Math.abs(minorUnits));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && other.minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        long units = minorUnits / FACTOR;
+        long cents = Math.abs(minorUnits % FACTOR);
+        String sign = minorUnits < 0 && units == 0 ? "-" : "";
+        return sign + units + (cents < 10 ? ".0" : ".") + cents;
+    }
+
+    // ------------------------------------------------------------
+    //   Parsing
+    // ------------------------------------------------------------
+
+    static long parseMinor(CharSequence text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        for (; i < end && isDigit(text.charAt(i)); i++, digits++) {
+            units = Math.addExact(Math.multiplyExact(units, 10), text.charAt(i) - '0');
+        }
+
+        long cents = 0;
+        int decimals = 0;
+        boolean beyondScale = false;
+        if (i < end && text.charAt(i) == '.') {
+            for (i++; i < end && isDigit(text.charAt(i)); i++, decimals++) {
+                int d = text.charAt(i) - '0';
+                if (decimals < SCALE) {
+                    cents = cents * 10 + d;
+                } else if (d != 0) {
+                    beyondScale = true;
+                }
+            }
+        }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            // rare (large doubles printed by other clients), not worth a hand-written path; the
+            // scale is checked after the exponent is applied, so 1.234e2 is 123.40
+            try {
+                return of(new BigDecimal(text.subSequence(offset, end).toString())).minorUnits;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a valid amount: " + text);
+            }
+        }
+        if (i != end || digits + decimals == 0) {
+            throw new IllegalArgumentException("Not a valid amount: " + text);
+        }
+        if (beyondScale) {
+            throw new IllegalArgumentException("Amount has more than " + SCALE + " decimals: " + text);
+        }
+
+        for (; decimals < SCALE; decimals++) {
+            cents *= 10;
+        }
+        long minor = Math.addExact(Math.multiplyExact(units, FACTOR), cents);
+        return negative ? -minor : minor;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // ------------------------------------------------------------
+    //   JSON
+    // ------------------------------------------------------------
+
+    static final class Serializer extends JsonSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            // written as a number literal, not a string
+            gen.writeNumber(value.toString());
+        }
+    }
+
+    static final class Deserializer extends JsonDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return ofMinor(Math.multiplyExact(p.getLongValue(), FACTOR));
+                }
+                if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+                    // straight from the parser buffer, no double in between
+                    return ofMinor(parseMinor(java.nio.CharBuffer.wrap(
+                            p.getTextCharacters(), p.getTextOffset(), p.getTextLength()), 0, p.getTextLength()));
+                }
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw InvalidFormatException.from(p, e.getMessage(), p.getText(), Money.class);
+            }
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.bankingcommon.mongo;
+
+import com.mongodb.MongoException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MongoTransactionsTest {
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private MongoTransactions mongoTransactions;
+
+    @BeforeEach
+    void setup() {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    private static RuntimeException aborted(String label) {
+        MongoException cause = new MongoException(112, "WriteConflict");
+        cause.addLabel(label);
+        return new UncategorizedMongoDbException("transaction aborted", cause);
+    }
+
+    // ------------------------------------------------------
+    // TRANSIENT ABORTS ARE RUN AGAIN
+    // ------------------------------------------------------
+    @Test
+    void testWriteConflictIsRetried() {
+
+        AtomicInteger runs = new AtomicInteger();
+
+        String result = mongoTransactions.execute(() -> {
+            if (runs.incrementAndGet() < 3) {
+                throw aborted(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    void testRetriesAreBounded() {
+
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(UncategorizedMongoDbException.class, () -> mongoTransactions.execute(() -> {
+            runs.incrementAndGet();
+            throw aborted(MongoException.UNKNOWN_TRANSACTION_COMMIT_RESULT_LABEL);
+        }));
+        assertEquals(5, runs.get());
+    }
+
+    // ------------------------------------------------------
+    // OTHER FAILURES ARE NOT
+    // ------------------------------------------------------
+    @Test
+    void testOtherFailuresPropagateAtOnce() {
+
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(DuplicateKeyException.class, () -> mongoTransactions.execute(() -> {
+            runs.incrementAndGet();
+            throw new DuplicateKeyException("duplicate key");
+        }));
+        assertEquals(1, runs.get());
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+}
@@ -0,0 +1,39 @@
+package com.bankingcommon.mongo;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowQueryListenerTest {
+
+    // ------------------------------------------------------
+    // FILTER SHAPE
+    // ------------------------------------------------------
+    @Test
+    void testShapeHidesValues() {
+
+        BsonDocument filter = BsonDocument.parse(
+                "{ $or: [ { sourceAccount: 'SAR1234', timestamp: { $lt: { $date: 0 } } },"
+                        + " { destinationAccount: 'SAR1234' } ], type: { $in: ['DEPOSIT', 'WITHDRAW'] } }");
+
+        assertEquals("{$or: [{sourceAccount: ?, timestamp: {$lt: ?}}, {destinationAccount: ?}], type: {$in: [?]}}",
+                SlowQueryListener.shape(filter));
+        assertEquals("{}", SlowQueryListener.shape(null));
+    }
+
+    // ------------------------------------------------------
+    // INDEX IDENTITY
+    // ------------------------------------------------------
+    @Test
+    void testIndexSpecIgnoresNumberType() {
+
+        Document declared = new Document("sourceAccount", 1).append("timestamp", -1);
+        Document onServer = new Document("sourceAccount", 1.0).append("timestamp", -1L);
+
+        assertEquals(IndexManager.spec(declared, false), IndexManager.spec(onServer, false));
+        assertNotEquals(IndexManager.spec(declared, true), IndexManager.spec(onServer, false));
+    }
+}
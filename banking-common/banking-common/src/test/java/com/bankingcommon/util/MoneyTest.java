@@ -0,0 +1,87 @@
+package com.bankingcommon.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import org.bson.types.Decimal128;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    record Body(Money amount) {}
+
+    // ------------------------------------------------------
+    // PARSING AND ARITHMETIC
+    // ------------------------------------------------------
+    @Test
+    void testParse() {
+
+        assertEquals(1230, Money.parse("12.3").minorUnits());
+        assertEquals(-50, Money.parse("-0.5").minorUnits());
+        assertEquals(1_000_000_000, Money.parse("1.0E7").minorUnits());
+        assertEquals("-0.07", Money.parse("-0.07").toString());
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.005"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("abc"));
+    }
+
+    @Test
+    void testParseExponentBeforeScale() {
+
+        // the exponent moves decimals into the whole part before they are counted
+        assertEquals(12340, Money.parse("1.234e2").minorUnits());
+        assertEquals(Money.parse("0.12"), Money.parse("1200E-4"));
+        assertEquals(Money.parse("12.34"), Money.parse("1.234e1"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.2345e1"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.234e"));
+    }
+
+    @Test
+    void testNoDrift() {
+
+        Money total = Money.ZERO;
+        for (int i = 0; i < 10; i++) {
+            total = total.plus(Money.parse("0.10"));
+        }
+
+        assertEquals(Money.parse("1.00"), total);
+        assertEquals(Money.parse("-9.85"), Money.parse("10.05").plus(Money.parse("0.10")).minus(Money.parse("20")));
+    }
+
+    // ------------------------------------------------------
+    // MONGO
+    // ------------------------------------------------------
+    @Test
+    void testDecimal128RoundTrip() {
+
+        for (String amount : new String[] {"0", "12.30", "-1234567.89", "92233720368547758.07"}) {
+            Money money = Money.parse(amount);
+            assertEquals(new Decimal128(money.toBigDecimal()), money.toDecimal128());
+            assertEquals(money, Money.of(money.toDecimal128()));
+        }
+
+        // balances first stored as doubles come back with a long scale after $inc
+        assertEquals(Money.parse("510.05"), Money.of(new Decimal128(new BigDecimal("510.050000000000"))));
+        assertEquals(Money.parse("0.30"), Money.ofLegacyDouble(0.1 + 0.2));
+    }
+
+    // ------------------------------------------------------
+    // JSON
+    // ------------------------------------------------------
+    @Test
+    void testJson() throws Exception {
+
+        assertEquals("{\"amount\":-0.07}", objectMapper.writeValueAsString(new Body(Money.parse("-0.07"))));
+        assertEquals(Money.parse("10.05"), objectMapper.readValue("{\"amount\":10.05}", Body.class).amount());
+        assertEquals(Money.parse("7"), objectMapper.readValue("{\"amount\":7}", Body.class).amount());
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\":1.001}", Body.class));
+        assertEquals(Money.parse("123.40"), objectMapper.readValue("{\"amount\":1.234e2}", Body.class).amount());
+    }
+}
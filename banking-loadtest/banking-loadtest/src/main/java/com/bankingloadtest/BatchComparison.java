@@ -0,0 +1,143 @@
+package com.bankingloadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * N deposits sent as N single calls against N deposits sent as one POST
+ * /api/transactions/batch, round after round, after the open-model run so the two
+ * do not compete with the mixed load. The single calls keep
+ * loadtest.batch-comparison.concurrency requests in flight, as a client with a
+ * connection pool would; the batch is one request. Every round draws fresh
+ * deposits for each way, and the two ways alternate which goes first so neither
+ * always meets a warmer cache. The median round time of each way and the
+ * resulting deposits per second go to batch-comparison.txt.
+ */
+public class BatchComparison {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchComparison.class);
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final int batchSize;
+    private final int rounds;
+    private final int concurrency;
+
+    public BatchComparison(HttpClient client, Workload workload, LoadTestConfig config) {
+        this.client = client;
+        this.workload = workload;
+        this.batchSize = config.integer("loadtest.batch-size");
+        this.rounds = config.integer("loadtest.batch-comparison.rounds");
+        this.concurrency = config.integer("loadtest.batch-comparison.concurrency");
+    }
+
+    public void run(Path reportDir) throws IOException, InterruptedException {
+
+        if (rounds <= 0) {
+            return;
+        }
+        logger.info("Comparing {} single deposits with one batch of {}, {} rounds", batchSize, batchSize, rounds);
+
+        long[] singleNanos = new long[rounds];
+        long[] batchNanos = new long[rounds];
+        int errors = 0;
+        for (int round = 0; round < rounds; round++) {
+            List<String> deposits = workload.randomDeposits(batchSize);
+            List<String> again = workload.randomDeposits(batchSize);
+            if (round % 2 == 0) {
+                errors += timeSingles(deposits, singleNanos, round);
+                errors += timeBatch(again, batchNanos, round);
+            } else {
+                errors += timeBatch(deposits, batchNanos, round);
+                errors += timeSingles(again, singleNanos, round);
+            }
+        }
+
+        String summary = summary(singleNanos, batchNanos, errors);
+        Files.writeString(reportDir.resolve("batch-comparison.txt"), summary);
+        logger.info("Batch comparison\n{}", summary);
+    }
+
+    // ------------------------------------------------------------
+    //   Rounds
+    // ------------------------------------------------------------
+
+    private int timeSingles(List<String> deposits, long[] nanos, int round) throws InterruptedException {
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<?>> calls = new ArrayList<>(deposits.size());
+
+        long start = System.nanoTime();
+        for (String deposit : deposits) {
+            inFlight.acquire();
+            calls.add(client.sendAsync(workload.deposit(deposit), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.release();
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+        nanos[round] = System.nanoTime() - start;
+        return errors.get();
+    }
+
+    private int timeBatch(List<String> deposits, long[] nanos, int round) throws InterruptedException {
+
+        HttpRequest request = workload.batch(deposits);
+        long start = System.nanoTime();
+        try {
+            // one NDJSON line per deposit, only complete once the last one is done
+            HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+            long failed = response.body().filter(line -> !line.contains("\"SUCCESS\"")).count();
+            nanos[round] = System.nanoTime() - start;
+            return response.statusCode() >= 400 ? deposits.size() : (int) failed;
+        } catch (IOException e) {
+            nanos[round] = System.nanoTime() - start;
+            logger.warn("Batch of {} failed: {}", deposits.size(), e.getMessage());
+            return deposits.size();
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Report
+    // ------------------------------------------------------------
+
+    private String summary(long[] singleNanos, long[] batchNanos, int errors) {
+        double single = medianMillis(singleNanos);
+        double batch = medianMillis(batchNanos);
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d deposits per round, %d rounds, single calls %d in flight%n%n",
+                batchSize, rounds, concurrency));
+        out.append(String.format("%-14s %14s %14s%n", "way", "median ms", "deposits/s"));
+        out.append(String.format("%-14s %14.1f %14.1f%n", "single calls", single, batchSize * 1000.0 / single));
+        out.append(String.format("%-14s %14.1f %14.1f%n", "one batch", batch, batchSize * 1000.0 / batch));
+        out.append(String.format("%nbatch is %.1fx the throughput of single calls%n", single / batch));
+        if (errors > 0) {
+            out.append(String.format("%d deposits failed, the times include them%n", errors));
+        }
+        return out.toString();
+    }
+
+    private static double medianMillis(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
@@ -0,0 +1,69 @@
+package com.bankingloadtest;
+
+import de.flapdoodle.embed.mongo.commands.MongodArguments;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import de.flapdoodle.reverse.transitions.Start;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Mongo the services under test talk to: a throw-away mongod started by
+ * flapdoodle (the binary is downloaded once and cached under ~/.embedmongo), or
+ * an already running server when loadtest.mongo.address is set. The embedded
+ * one runs as a single-node replica set, as the services use Mongo transactions.
+ */
+public class EmbeddedMongo implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedMongo.class);
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> running;
+    private final String host;
+    private final int port;
+
+    private EmbeddedMongo(TransitionWalker.ReachedState<RunningMongodProcess> running, String host, int port) {
+        this.running = running;
+        this.host = host;
+        this.port = port;
+    }
+
+    public static EmbeddedMongo start(LoadTestConfig config) {
+
+        String address = config.string("loadtest.mongo.address");
+        if (!address.isEmpty()) {
+            int colon = address.lastIndexOf(':');
+            logger.info("Using running Mongo at {}", address);
+            return new EmbeddedMongo(null, address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        }
+
+        Version.Main version = Version.Main.valueOf(config.string("loadtest.mongo.version"));
+        logger.info("Starting embedded mongod {}", version);
+        TransitionWalker.ReachedState<RunningMongodProcess> running = Mongod.instance()
+                .withMongodArguments(Start.to(MongodArguments.class)
+                        .initializedWith(MongodArguments.defaults().withUseSingleNodeReplicaSet(true)))
+                .start(version);
+        ServerAddress server = running.current().getServerAddress();
+        logger.info("Embedded mongod listening on {}:{}", server.getHost(), server.getPort());
+        return new EmbeddedMongo(running, server.getHost(), server.getPort());
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        if (running != null) {
+            running.close();
+            logger.info("Embedded mongod stopped");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.bankingloadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.HdrHistogram.Histogram;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History page latency by depth. After the open-model run, one fresh account is
+ * seeded with loadtest.history-depth.shallow-rows transactions and another with
+ * deep-rows, through the batch endpoint so the rows and their indexes are the
+ * real ones. The deep account's history is then walked with the largest pages
+ * to the cursor of its last page. Page 1 of both accounts and that deepest page
+ * are each read loadtest.history-depth.samples times, one request at a time, and
+ * their latency distributions go to history-depth.txt.
+ *
+ * Keyset pages seek to the cursor through the (account, timestamp, transactionId)
+ * indexes, so the deepest page should cost about what page 1 costs; an offset
+ * page there would walk and discard every row before it.
+ */
+public class HistoryDepthComparison {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryDepthComparison.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String gatewayUrl;
+    private final Duration timeout;
+    private final int pageSize;
+    private final int shallowRows;
+    private final int deepRows;
+    private final int samples;
+    private final int seedBatchSize;
+    private final int walkPageSize;
+
+    public HistoryDepthComparison(HttpClient client, String gatewayUrl, LoadTestConfig config) {
+        this.client = client;
+        this.gatewayUrl = gatewayUrl;
+        this.timeout = Duration.ofMillis(config.integer("loadtest.request-timeout-ms"));
+        this.pageSize = config.integer("loadtest.history-page-size");
+        this.shallowRows = config.integer("loadtest.history-depth.shallow-rows");
+        this.deepRows = config.integer("loadtest.history-depth.deep-rows");
+        this.samples = config.integer("loadtest.history-depth.samples");
+        this.seedBatchSize = config.integer("loadtest.history-depth.seed-batch-size");
+        this.walkPageSize = config.integer("loadtest.history-depth.walk-page-size");
+    }
+
+    public void run(Path reportDir) throws IOException, InterruptedException {
+
+        if (deepRows <= 0) {
+            return;
+        }
+
+        String shallow = openAccount("History Shallow");
+        String deep = openAccount("History Deep");
+        logger.info("Seeding history: {} rows on {}, {} rows on {}", shallowRows, shallow, deepRows, deep);
+        seed(shallow, shallowRows);
+        seed(deep, deepRows);
+
+        long walkStart = System.nanoTime();
+        Walk walk = walkToLastPage(deep);
+        long walkMillis = (System.nanoTime() - walkStart) / 1_000_000;
+        logger.info("Walked {} rows of {} in {} pages ({} ms)", walk.rowsBefore, deep, walk.pages, walkMillis);
+
+        List<Row> rows = new ArrayList<>();
+        rows.add(new Row("shallow page 1", 0, sample(shallow, null)));
+        rows.add(new Row("deep page 1", 0, sample(deep, null)));
+        rows.add(new Row("deep last page", walk.rowsBefore, sample(deep, walk.cursor)));
+
+        String summary = summary(rows, walk, walkMillis);
+        Files.writeString(reportDir.resolve("history-depth.txt"), summary);
+        logger.info("History page latency by depth\n{}", summary);
+    }
+
+    // ------------------------------------------------------------
+    //   Seeding
+    // ------------------------------------------------------------
+
+    private String openAccount(String holderName) throws IOException, InterruptedException {
+        JsonNode created = objectMapper.readTree(send(post("/api/accounts/create",
+                "{\"holderName\":\"" + holderName + "\"}")));
+        return created.path("data").path("accountNumber").asText();
+    }
+
+    // deposits of 0.01, seedBatchSize per batch request
+    private void seed(String account, int rows) throws IOException, InterruptedException {
+        String item = "{\"type\":\"DEPOSIT\",\"accountNumber\":\"" + account + "\",\"amount\":0.01}";
+        for (int from = 0; from < rows; from += seedBatchSize) {
+            int count = Math.min(seedBatchSize, rows - from);
+            StringBuilder json = new StringBuilder(count * (item.length() + 1) + 2).append('[');
+            for (int i = 0; i < count; i++) {
+                json.append(i == 0 ? "" : ",").append(item);
+            }
+            String results = send(post("/api/transactions/batch", json.append(']').toString()));
+            if (results.contains("\"FAILED\"")) {
+                throw new IllegalStateException("Seeding " + account + " failed: " + results.lines().filter(
+                        line -> line.contains("\"FAILED\"")).findFirst().orElse(""));
+            }
+        }
+    }
+
+    // the cursor of the page holding the oldest rows, as deep as this history goes
+    private Walk walkToLastPage(String account) throws IOException, InterruptedException {
+        Walk walk = new Walk();
+        String cursor = null;
+        while (walk.rowsBefore + walkPageSize < deepRows - pageSize) {
+            JsonNode page = page(account, cursor, walkPageSize);
+            String next = page.path("data").path("nextCursor").asText(null);
+            if (next == null) {
+                break;
+            }
+            walk.rowsBefore += page.path("data").path("transactions").size();
+            walk.pages++;
+            walk.cursor = next;
+            cursor = next;
+        }
+        // then in reading-size pages up to the last one
+        while (true) {
+            JsonNode page = page(account, cursor, pageSize);
+            String next = page.path("data").path("nextCursor").asText(null);
+            if (next == null) {
+                break;
+            }
+            walk.rowsBefore += page.path("data").path("transactions").size();
+            walk.pages++;
+            walk.cursor = next;
+            cursor = next;
+        }
+        return walk;
+    }
+
+    // ------------------------------------------------------------
+    //   Measurement
+    // ------------------------------------------------------------
+
+    private Histogram sample(String account, String cursor) throws IOException, InterruptedException {
+        Histogram histogram = new Histogram(MAX_LATENCY_MICROS, 3);
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            page(account, cursor, pageSize);
+            histogram.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - start) / 1000));
+        }
+        return histogram;
+    }
+
+    private JsonNode page(String account, String cursor, int limit) throws IOException, InterruptedException {
+        String url = gatewayUrl + "/api/transactions/" + account + "?limit=" + limit
+                + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        return objectMapper.readTree(send(HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET().build()));
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " answered "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    // ------------------------------------------------------------
+    //   Report
+    // ------------------------------------------------------------
+
+    private String summary(List<Row> rows, Walk walk, long walkMillis) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d requests per page, %d rows per page, one at a time%n%n", samples, pageSize));
+        out.append(String.format("%-16s %12s %9s %9s %9s %9s%n", "page", "rows before", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Row row : rows) {
+            out.append(String.format("%-16s %12d %9.2f %9.2f %9.2f %9.2f%n", row.label, row.rowsBefore,
+                    millis(row.latency, 50), millis(row.latency, 90), millis(row.latency, 99),
+                    row.latency.getMaxValue() / 1000.0));
+        }
+        double page1 = millis(rows.get(1).latency, 50);
+        double last = millis(rows.get(2).latency, 50);
+        out.append(String.format("%ndeepest page p50 is %.2fx page 1 (%d rows deep)%n", last / page1, walk.rowsBefore));
+        out.append(String.format("reaching it took %d pages in %d ms%n", walk.pages, walkMillis));
+        return out.toString();
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private record Row(String label, long rowsBefore, Histogram latency) {}
+
+    private static final class Walk {
+        private String cursor;
+        private long rowsBefore;
+        private int pages;
+    }
+}
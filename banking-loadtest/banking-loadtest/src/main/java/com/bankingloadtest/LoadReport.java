@@ -0,0 +1,225 @@
+package com.bankingloadtest;
+
+import com.bankingloadtest.Workload.Operation;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and throughput of one run, per operation.
+ *
+ * Latencies are in microseconds from the moment a request was due to start, not
+ * when it was actually sent, so a stalled system cannot hide its queueing delay
+ * (coordinated omission). Every interval is appended to latency.hlog (HdrHistogram
+ * log, one tag per operation) and tps.csv; at the end each operation gets a
+ * percentile distribution (<operation>.hgrm, plottable with the HdrHistogram
+ * plotter) and summary.txt holds the table printed to the console.
+ */
+public class LoadReport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadReport.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Path dir;
+    private final int targetRate;
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final HistogramLogWriter latencyLog;
+    private final PrintWriter tpsLog;
+
+    private volatile boolean measuring;
+    private long measureStartNanos;
+    private long measureEndNanos;
+
+    public LoadReport(Path dir, int targetRate) {
+        this.dir = dir;
+        this.targetRate = targetRate;
+        for (Operation op : Operation.values()) {
+            stats.put(op, new Stats());
+        }
+        try {
+            Files.createDirectories(dir);
+            latencyLog = new HistogramLogWriter(dir.resolve("latency.hlog").toFile());
+            tpsLog = new PrintWriter(Files.newBufferedWriter(dir.resolve("tps.csv")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        latencyLog.outputLogFormatVersion();
+        latencyLog.outputStartTime(System.currentTimeMillis());
+        latencyLog.outputLegend();
+        tpsLog.println("elapsed_seconds,operation,completed,errors,tps,p50_ms,p99_ms");
+    }
+
+    // ------------------------------------------------------------
+    //   Recording (any thread)
+    // ------------------------------------------------------------
+
+    public void success(Operation op, long intendedStartNanos) {
+        Stats s = stats.get(op);
+        s.recorder.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - intendedStartNanos) / 1000));
+        s.completed.increment();
+    }
+
+    /**
+     * A failed request, by HTTP status or kind of client-side failure (timeout,
+     * io); its latency still counts.
+     */
+    public void failure(Operation op, long intendedStartNanos, String reason) {
+        Stats s = stats.get(op);
+        s.recorder.recordValue(Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - intendedStartNanos) / 1000));
+        error(s, reason);
+    }
+
+    /**
+     * A request that was due but never sent because too many were in flight.
+     */
+    public void overload(Operation op) {
+        error(stats.get(op), "overload");
+    }
+
+    private void error(Stats s, String reason) {
+        s.errors.increment();
+        if (measuring) {
+            s.errorReasons.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Phases and intervals (one thread at a time)
+    // ------------------------------------------------------------
+
+    /**
+     * Ends the warm-up: what was recorded so far is discarded.
+     */
+    public void startMeasuring() {
+        for (Stats s : stats.values()) {
+            s.recorder.reset();
+            s.completed.reset();
+            s.errors.reset();
+        }
+        measureStartNanos = System.nanoTime();
+        measuring = true;
+    }
+
+    public void interval() {
+        if (!measuring) {
+            return;
+        }
+        double elapsed = (System.nanoTime() - measureStartNanos) / 1e9;
+        StringBuilder line = new StringBuilder(String.format("[%5.0fs]", elapsed));
+
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram interval = s.recorder.getIntervalHistogram(s.recycled);
+            s.recycled = interval;
+            s.total.add(interval);
+
+            interval.setTag(entry.getKey().label());
+            latencyLog.outputIntervalHistogram(interval);
+
+            long completed = s.completed.sumThenReset();
+            long errors = s.errors.sumThenReset();
+            s.totalCompleted += completed;
+            s.totalErrors += errors;
+            double seconds = Math.max(1e-3, (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0);
+
+            tpsLog.printf(Locale.ROOT, "%.1f,%s,%d,%d,%.1f,%.2f,%.2f%n", elapsed, entry.getKey().label(), completed, errors,
+                    (completed + errors) / seconds, millis(interval, 50), millis(interval, 99));
+            line.append(String.format("  %s %.0f/s p99 %.1fms err %d",
+                    entry.getKey().label(), (completed + errors) / seconds, millis(interval, 99), errors));
+        }
+        tpsLog.flush();
+        logger.info(line.toString());
+    }
+
+    public void finish() {
+        interval();
+        measuring = false;
+        measureEndNanos = System.nanoTime();
+        tpsLog.close();
+        latencyLog.close();
+
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            try (PrintStream out = new PrintStream(dir.resolve(entry.getKey().label() + ".hgrm").toFile())) {
+                // values are recorded in microseconds, the distribution is written in milliseconds
+                entry.getValue().total.outputPercentileDistribution(out, 1000.0);
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        String summary = summary();
+        try {
+            Files.writeString(dir.resolve("summary.txt"), summary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Load test finished, report in {}\n{}", dir.toAbsolutePath(), summary);
+    }
+
+    private String summary() {
+        double seconds = Math.max(1e-3, (measureEndNanos - measureStartNanos) / 1e9);
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-10s %10s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "tps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+
+        long requests = 0;
+        Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            long count = s.totalCompleted + s.totalErrors;
+            requests += count;
+            all.add(s.total);
+            out.append(row(entry.getKey().label(), count, s.totalErrors, count / seconds, s.total));
+        }
+        long errors = stats.values().stream().mapToLong(s -> s.totalErrors).sum();
+        out.append(row("all", requests, errors, requests / seconds, all));
+        out.append(String.format("%ntarget rate %d/s, achieved %.1f/s over %.0fs%n", targetRate, requests / seconds, seconds));
+
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            entry.getValue().errorReasons.forEach((reason, count) ->
+                    out.append(String.format("%s errors: %s x %d%n", entry.getKey().label(), reason, count.sum())));
+        }
+        return out.toString();
+    }
+
+    private static String row(String label, long count, long errors, double tps, Histogram histogram) {
+        return String.format("%-10s %10d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, count, errors, tps,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class Stats {
+
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        private final Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Map<String, LongAdder> errorReasons = new ConcurrentHashMap<>();
+        private Histogram recycled;
+        private long totalCompleted;
+        private long totalErrors;
+    }
+}
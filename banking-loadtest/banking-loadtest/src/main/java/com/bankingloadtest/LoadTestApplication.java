@@ -0,0 +1,297 @@
+package com.bankingloadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * End-to-end load test of gateway -> transaction-service -> account-service /
+ * notification-service on one machine, without Eureka or a hand-started Mongo.
+ *
+ * Starts Mongo, a stub OTLP collector for the services' spans, the four
+ * services wired to each other by static discovery,
+ * opens and funds loadtest.accounts accounts through the gateway, then drives
+ * the open-model workload and writes the report, then compares single deposits
+ * with batched ones ({@link BatchComparison}) and history pages of a shallow and
+ * a deep account ({@link HistoryDepthComparison}). Everything it started is
+ * stopped again at the end or on Ctrl-C.
+ *
+ * With loadtest.thread-modes set (e.g. platform,virtual) the services are started
+ * once per mode with VIRTUAL_THREADS_ENABLED set accordingly, each run reports
+ * into its own subdirectory and comparison.txt puts their summaries side by side.
+ */
+public class LoadTestApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    private static final String ACCOUNT_SERVICE = "account-service";
+    private static final String TRANSACTION_SERVICE = "transaction-service";
+    private static final String NOTIFICATION_SERVICE = "notification-service";
+    private static final String API_GATEWAY = "api-gateway";
+
+    private static final String PLATFORM = "platform";
+    private static final String VIRTUAL = "virtual";
+
+    // far above anything one load generator sends, so the limiter is measured but never rejects
+    private static final String UNREACHABLE_LIMIT = "1000000";
+
+    private final LoadTestConfig config = new LoadTestConfig();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    // Mongo and the collector live for the whole test, the services for one run
+    private final Deque<AutoCloseable> started = new ConcurrentLinkedDeque<>();
+    private final Deque<AutoCloseable> services = new ConcurrentLinkedDeque<>();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestApplication().run();
+    }
+
+    public void run() throws Exception {
+
+        Path reportDir = Path.of(config.string("loadtest.report-dir"),
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stopAll, "loadtest-shutdown"));
+
+        List<String> threadModes = threadModes();
+        try {
+            EmbeddedMongo mongo = EmbeddedMongo.start(config);
+            started.push(mongo);
+
+            OtlpCollectorStub collector = OtlpCollectorStub.start(config.integer("loadtest.port.otlp-collector"));
+            started.push(collector);
+
+            if (threadModes.isEmpty()) {
+                runOnce(mongo, collector, null, reportDir);
+                return;
+            }
+            for (String threadMode : threadModes) {
+                logger.info("Running with {} threads in account-service and transaction-service", threadMode);
+                runOnce(mongo, collector, threadMode, reportDir.resolve(threadMode));
+            }
+            writeComparison(reportDir, threadModes);
+        } finally {
+            stopAll();
+        }
+    }
+
+    /**
+     * One full run against a freshly started set of services, which are stopped
+     * again afterwards. threadMode is platform or virtual, or null to start the
+     * services as configured; each mode gets its own databases, so the runs start
+     * from the same empty state.
+     */
+    private void runOnce(EmbeddedMongo mongo, OtlpCollectorStub collector, String threadMode, Path reportDir)
+            throws Exception {
+        try {
+            ServiceProcess gateway = startStack(mongo, collector, threadMode, reportDir.resolve("logs"));
+
+            List<String> accounts = openAccounts(gateway.baseUrl());
+
+            Workload workload = new Workload(gateway.baseUrl(), accounts, config);
+            LoadReport report = new LoadReport(reportDir, config.integer("loadtest.rate-per-second"));
+            new OpenModelDriver(client, workload, report, config).run(
+                    config.integer("loadtest.warmup-seconds"),
+                    config.integer("loadtest.duration-seconds"),
+                    config.integer("loadtest.report-interval-seconds"));
+
+            new BatchComparison(client, workload, config).run(reportDir);
+            new HistoryDepthComparison(client, gateway.baseUrl(), config).run(reportDir);
+        } finally {
+            stopServices();
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Thread modes
+    // ------------------------------------------------------------
+
+    private List<String> threadModes() {
+        List<String> modes = new ArrayList<>();
+        for (String mode : config.string("loadtest.thread-modes").split(",")) {
+            mode = mode.trim().toLowerCase(Locale.ROOT);
+            if (mode.isEmpty()) {
+                continue;
+            }
+            if (!mode.equals(PLATFORM) && !mode.equals(VIRTUAL)) {
+                throw new IllegalArgumentException("loadtest.thread-modes: unknown mode " + mode
+                        + ", expected " + PLATFORM + " or " + VIRTUAL);
+            }
+            modes.add(mode);
+        }
+        if (modes.contains(VIRTUAL) && !virtualThreadsSupported()) {
+            logger.warn("The services run on JDK {}, which has no virtual threads: the {} run uses platform threads too",
+                    Runtime.version().feature(), VIRTUAL);
+        }
+        return modes;
+    }
+
+    // the services are started with this JVM's java, see ServiceProcess
+    private static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    // the summary of every run one after another, so the modes can be compared in one place
+    private void writeComparison(Path reportDir, List<String> threadModes) throws IOException {
+        StringBuilder comparison = new StringBuilder();
+        if (threadModes.contains(VIRTUAL) && !virtualThreadsSupported()) {
+            comparison.append("NOTE: services ran on JDK ").append(Runtime.version().feature())
+                    .append(", which ignores VIRTUAL_THREADS_ENABLED; all runs used platform threads.\n\n");
+        }
+        for (String threadMode : threadModes) {
+            comparison.append("==== ").append(threadMode).append(" threads (VIRTUAL_THREADS_ENABLED=")
+                    .append(VIRTUAL.equals(threadMode)).append(") ====\n")
+                    .append(Files.readString(reportDir.resolve(threadMode).resolve("summary.txt")))
+                    .append('\n');
+        }
+        Path file = reportDir.resolve("comparison.txt");
+        Files.writeString(file, comparison);
+        logger.info("Thread mode comparison in {}\n{}", file.toAbsolutePath(), comparison);
+    }
+
+    // ------------------------------------------------------------
+    //   Stack
+    // ------------------------------------------------------------
+
+    private ServiceProcess startStack(EmbeddedMongo mongo, OtlpCollectorStub collector, String threadMode,
+                                      Path logDir) throws InterruptedException {
+
+        List<String> tracingArgs = List.of(
+                "--management.otlp.tracing.endpoint=" + collector.endpoint(),
+                "--management.tracing.sampling.probability=" + config.string("loadtest.tracing.sampling-probability"));
+
+        List<String> mongoArgs = new ArrayList<>(tracingArgs);
+        mongoArgs.add("--spring.data.mongodb.host=" + mongo.host());
+        mongoArgs.add("--spring.data.mongodb.port=" + mongo.port());
+
+        String databaseSuffix = threadMode == null ? "" : "_" + threadMode;
+        if (threadMode != null) {
+            mongoArgs.add("--VIRTUAL_THREADS_ENABLED=" + VIRTUAL.equals(threadMode));
+        }
+
+        List<String> accountArgs = new ArrayList<>(mongoArgs);
+        accountArgs.add("--spring.data.mongodb.database=loadtest_accounts_db" + databaseSuffix);
+        accountArgs.add("--account.number.node-id=1");
+
+        List<String> transactionArgs = new ArrayList<>(mongoArgs);
+        transactionArgs.add("--spring.data.mongodb.database=loadtest_transactions_db" + databaseSuffix);
+        transactionArgs.add("--transaction.id.node-id=1");
+        transactionArgs.add(discovery(ACCOUNT_SERVICE));
+        transactionArgs.add(discovery(NOTIFICATION_SERVICE));
+
+        List<String> gatewayArgs = new ArrayList<>(tracingArgs);
+        gatewayArgs.addAll(List.of(
+                discovery(ACCOUNT_SERVICE), discovery(TRANSACTION_SERVICE), discovery(NOTIFICATION_SERVICE)));
+        boolean rateLimit = config.flag("loadtest.gateway.rate-limit");
+        gatewayArgs.add("--gateway.rate-limit.enabled=" + rateLimit);
+        if (rateLimit) {
+            for (String scope : List.of("defaults", "routes." + TRANSACTION_SERVICE)) {
+                gatewayArgs.add("--gateway.rate-limit." + scope + ".rate-per-second=" + UNREACHABLE_LIMIT);
+                gatewayArgs.add("--gateway.rate-limit." + scope + ".burst=" + UNREACHABLE_LIMIT);
+                gatewayArgs.add("--gateway.rate-limit." + scope + ".max-concurrent=" + UNREACHABLE_LIMIT);
+            }
+        }
+
+        // started together, the JVMs boot in parallel; nothing calls another service before the load starts
+        List<ServiceProcess> services = new ArrayList<>();
+        services.add(start(ACCOUNT_SERVICE, accountArgs, logDir));
+        services.add(start(NOTIFICATION_SERVICE, tracingArgs, logDir));
+        services.add(start(TRANSACTION_SERVICE, transactionArgs, logDir));
+        ServiceProcess gateway = start(API_GATEWAY, gatewayArgs, logDir);
+        services.add(gateway);
+
+        Duration timeout = Duration.ofSeconds(config.integer("loadtest.startup-timeout-seconds"));
+        for (ServiceProcess service : services) {
+            service.awaitHealthy(client, timeout);
+        }
+        return gateway;
+    }
+
+    private ServiceProcess start(String name, List<String> args, Path logDir) {
+        ServiceProcess service = ServiceProcess.start(name, config, args, logDir);
+        services.push(service);
+        return service;
+    }
+
+    // static instance list of Spring Cloud's SimpleDiscoveryClient, in place of Eureka
+    private String discovery(String service) {
+        return "--spring.cloud.discovery.client.simple.instances." + service + "[0].uri=http://localhost:"
+                + config.integer("loadtest.port." + service);
+    }
+
+    private void stopServices() {
+        stop(services);
+    }
+
+    // services first, then what they were using; safe to call again, e.g. from the shutdown hook
+    private void stopAll() {
+        stop(services);
+        stop(started);
+    }
+
+    private static void stop(Deque<AutoCloseable> resources) {
+        AutoCloseable next;
+        while ((next = resources.pollFirst()) != null) {
+            try {
+                next.close();
+            } catch (Exception e) {
+                logger.warn("Stopping failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Test data
+    // ------------------------------------------------------------
+
+    private List<String> openAccounts(String gatewayUrl) throws IOException, InterruptedException {
+
+        int count = config.integer("loadtest.accounts");
+        String openingBalance = config.string("loadtest.opening-balance");
+        logger.info("Opening {} accounts with {} each", count, openingBalance);
+
+        List<String> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JsonNode created = post(gatewayUrl + "/api/accounts/create", "{\"holderName\":\"Load Test " + i + "\"}");
+            String accountNumber = created.path("data").path("accountNumber").asText();
+            post(gatewayUrl + "/api/transactions/deposit",
+                    "{\"accountNumber\":\"" + accountNumber + "\",\"amount\":" + openingBalance + "}");
+            accounts.add(accountNumber);
+        }
+        return accounts;
+    }
+
+    private JsonNode post(String url, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(config.integer("loadtest.request-timeout-ms")))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("POST " + url + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -0,0 +1,51 @@
+package com.bankingloadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+
+/**
+ * loadtest.properties from the classpath, with -Dloadtest.* system properties on
+ * top. A missing key is a mistake in the file, so it fails instead of defaulting.
+ */
+public class LoadTestConfig {
+
+    private final Properties properties = new Properties();
+
+    public LoadTestConfig() {
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream("/loadtest.properties")) {
+            if (in == null) {
+                throw new IllegalStateException("loadtest.properties not found on the classpath");
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("loadtest.")) {
+                properties.setProperty(key, System.getProperty(key));
+            }
+        }
+    }
+
+    public String string(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing load test setting " + key);
+        }
+        return value.trim();
+    }
+
+    public int integer(String key) {
+        try {
+            return Integer.parseInt(string(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a whole number: " + string(key));
+        }
+    }
+
+    public boolean flag(String key) {
+        return Boolean.parseBoolean(string(key));
+    }
+}
@@ -0,0 +1,134 @@
+package com.bankingloadtest;
+
+import com.bankingloadtest.Workload.Operation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: request i is due at start + i / rate, and is sent then no
+ * matter how many earlier requests are still waiting for an answer, the way
+ * independent users arrive. A closed loop of N threads would instead slow down
+ * with the system and under-report its latency. The pacing thread only hands
+ * each request to a few sender threads (building and submitting a request is
+ * not free), and responses arrive asynchronously; if sending falls behind, the
+ * overdue requests go out at once and their latency still counts from when they
+ * were due.
+ */
+public class OpenModelDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenModelDriver.class);
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final LoadReport report;
+    private final int ratePerSecond;
+    private final int maxOutstanding;
+    private final int senderThreads;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public OpenModelDriver(HttpClient client, Workload workload, LoadReport report, LoadTestConfig config) {
+        this.client = client;
+        this.workload = workload;
+        this.report = report;
+        this.ratePerSecond = config.integer("loadtest.rate-per-second");
+        this.maxOutstanding = config.integer("loadtest.max-outstanding");
+        this.senderThreads = config.integer("loadtest.sender-threads");
+    }
+
+    public void run(int warmupSeconds, int durationSeconds, int reportIntervalSeconds) throws InterruptedException {
+
+        ExecutorService senders = Executors.newFixedThreadPool(senderThreads, daemon("loadtest-sender"));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(daemon("loadtest-reporter"));
+        reporter.scheduleAtFixedRate(report::interval, warmupSeconds + reportIntervalSeconds,
+                reportIntervalSeconds, TimeUnit.SECONDS);
+
+        logger.info("Open-model load at {}/s: {}s warm-up, {}s measured", ratePerSecond, warmupSeconds, durationSeconds);
+
+        double intervalNanos = 1e9 / ratePerSecond;
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        boolean measuring = false;
+
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+            if (!measuring && due >= measureFrom) {
+                report.startMeasuring();
+                measuring = true;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation op = workload.next();
+            senders.execute(() -> send(op, due));
+        }
+
+        senders.shutdown();
+        senders.awaitTermination(10, TimeUnit.SECONDS);
+        awaitOutstanding(TimeUnit.SECONDS.toNanos(30));
+        reporter.shutdown();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        report.finish();
+    }
+
+    private void send(Operation op, long due) {
+        if (outstanding.incrementAndGet() > maxOutstanding) {
+            outstanding.decrementAndGet();
+            report.overload(op);
+            return;
+        }
+        client.sendAsync(workload.request(op), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    outstanding.decrementAndGet();
+                    if (error != null) {
+                        report.failure(op, due, reason(error));
+                    } else if (response.statusCode() >= 400) {
+                        report.failure(op, due, "HTTP " + response.statusCode());
+                    } else {
+                        report.success(op, due);
+                    }
+                });
+    }
+
+    private void awaitOutstanding(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (outstanding.get() > 0) {
+            logger.warn("{} requests still in flight at the end of the run, not counted", outstanding.get());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static String reason(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpTimeoutException ? "timeout" : "io " + cause.getClass().getSimpleName();
+    }
+}
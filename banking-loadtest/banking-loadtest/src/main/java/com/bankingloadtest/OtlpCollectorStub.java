@@ -0,0 +1,65 @@
+package com.bankingloadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stand-in for a local OpenTelemetry collector: accepts OTLP/HTTP exports on
+ * /v1/traces, reads and drops them, and counts what arrived. Keeps span export
+ * in the measured path (serialising and sending batches costs the services CPU)
+ * without running a real collector next to the test.
+ */
+public class OtlpCollectorStub implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtlpCollectorStub.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private OtlpCollectorStub(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        executor = Executors.newFixedThreadPool(2);
+        server.setExecutor(executor);
+        server.createContext("/v1/traces", this::receive);
+    }
+
+    public static OtlpCollectorStub start(int port) throws IOException {
+        OtlpCollectorStub collector = new OtlpCollectorStub(port);
+        collector.server.start();
+        logger.info("OTLP collector stub listening on {}", collector.endpoint());
+        return collector;
+    }
+
+    public String endpoint() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/traces";
+    }
+
+    private void receive(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            bytes.add(body.transferTo(OutputStream.nullOutputStream()));
+        }
+        exports.increment();
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        logger.info("OTLP collector stub received {} exports, {} KB of spans", exports.sum(), bytes.sum() / 1024);
+    }
+}
@@ -0,0 +1,123 @@
+package com.bankingloadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One service of the stack running in its own JVM from its runnable jar.
+ *
+ * The services cannot share a JVM: the gateway is on another Spring Boot line
+ * than the rest, and every jar carries its own application.properties. Each
+ * process gets its port, the Mongo address and static discovery entries on the
+ * command line, which override application.properties, so no Eureka server is
+ * needed. Output goes to <report-dir>/logs/<service>.log.
+ */
+public class ServiceProcess implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceProcess.class);
+
+    private final String name;
+    private final int port;
+    private final Process process;
+
+    private ServiceProcess(String name, int port, Process process) {
+        this.name = name;
+        this.port = port;
+        this.process = process;
+    }
+
+    public static ServiceProcess start(String name, LoadTestConfig config, List<String> arguments, Path logDir) {
+
+        File jar = new File(config.string("loadtest.jar." + name));
+        if (!jar.isFile()) {
+            throw new IllegalStateException("No jar for " + name + " at " + jar.getAbsolutePath()
+                    + "; run mvn package in the service first or set -Dloadtest.jar." + name);
+        }
+        int port = config.integer("loadtest.port." + name);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(split(config.string("loadtest.jvm-args")));
+        command.add("-jar");
+        command.add(jar.getAbsolutePath());
+        command.add("--server.port=" + port);
+        command.add("--eureka.client.enabled=false");
+        command.addAll(arguments);
+        command.addAll(split(config.string("loadtest.args." + name)));
+
+        try {
+            Files.createDirectories(logDir);
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(logDir.resolve(name + ".log").toFile())
+                    .start();
+            logger.info("Started {} on port {} (pid {})", name, port, process.pid());
+            return new ServiceProcess(name, port, process);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start " + name, e);
+        }
+    }
+
+    /**
+     * Polls /actuator/health until the service reports UP.
+     */
+    public void awaitHealthy(HttpClient client, Duration timeout) throws InterruptedException {
+
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ", see its log");
+            }
+            try {
+                HttpResponse<String> response = client.send(health, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && response.body().contains("\"UP\"")) {
+                    logger.info("{} is up", name);
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " not healthy after " + timeout.toSeconds() + "s, see its log");
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    // SIGTERM first so Boot shuts down gracefully (flushes the outbox and saga log), then kill
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            logger.warn("{} did not stop within 30s, killing it", name);
+            process.destroyForcibly().waitFor();
+        }
+        logger.info("Stopped {}", name);
+    }
+
+    private static List<String> split(String arguments) {
+        return arguments.isBlank() ? List.of() : Arrays.asList(arguments.trim().split("\\s+"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bankingloadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests the load test sends through the gateway: deposits, transfers
+ * between two different seeded accounts, first pages of transaction history and
+ * batches of deposits, picked at random by their configured weights.
+ */
+public class Workload {
+
+    public enum Operation {
+        DEPOSIT, TRANSFER, HISTORY, BATCH;
+
+        public String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final String gatewayUrl;
+    private final List<String> accounts;
+    private final int[] cumulativeWeights = new int[OPERATIONS.length];
+    private final int historyPageSize;
+    private final int batchSize;
+    private final Duration timeout;
+
+    public Workload(String gatewayUrl, List<String> accounts, LoadTestConfig config) {
+        this.gatewayUrl = gatewayUrl;
+        this.accounts = accounts;
+        this.historyPageSize = config.integer("loadtest.history-page-size");
+        this.batchSize = config.integer("loadtest.batch-size");
+        this.timeout = Duration.ofMillis(config.integer("loadtest.request-timeout-ms"));
+
+        int total = 0;
+        for (Operation op : OPERATIONS) {
+            total += config.integer("loadtest.mix." + op.label());
+            cumulativeWeights[op.ordinal()] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("loadtest.mix.* weights must add up to more than 0");
+        }
+        if (accounts.size() < 2 && config.integer("loadtest.mix.transfer") > 0) {
+            throw new IllegalArgumentException("Transfers need at least two accounts");
+        }
+    }
+
+    public Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[OPERATIONS.length - 1]);
+        for (Operation op : OPERATIONS) {
+            if (pick < cumulativeWeights[op.ordinal()]) {
+                return op;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    public HttpRequest request(Operation op) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (op) {
+            case DEPOSIT -> deposit(randomDeposit());
+            case TRANSFER -> {
+                int source = random.nextInt(accounts.size());
+                int destination = (source + 1 + random.nextInt(accounts.size() - 1)) % accounts.size();
+                yield post("/api/transactions/transfer",
+                        "{\"sourceAccount\":\"" + accounts.get(source) + "\",\"destinationAccount\":\""
+                                + accounts.get(destination) + "\",\"amount\":" + amount(1 + random.nextInt(100)) + "}");
+            }
+            case HISTORY -> HttpRequest.newBuilder(URI.create(gatewayUrl + "/api/transactions/"
+                            + randomAccount() + "?limit=" + historyPageSize))
+                    .timeout(timeout)
+                    .GET()
+                    .build();
+            case BATCH -> batch(randomDeposits(batchSize));
+        };
+    }
+
+    // ------------------------------------------------------------
+    //   Deposits, one by one or batched
+    // ------------------------------------------------------------
+
+    /** A deposit of 0.01 to 1.00 to a random account, as the body of a single deposit call. */
+    public String randomDeposit() {
+        return "{\"accountNumber\":\"" + randomAccount() + "\",\"amount\":"
+                + amount(1 + ThreadLocalRandom.current().nextInt(100)) + "}";
+    }
+
+    public List<String> randomDeposits(int count) {
+        List<String> deposits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            deposits.add(randomDeposit());
+        }
+        return deposits;
+    }
+
+    public HttpRequest deposit(String deposit) {
+        return post("/api/transactions/deposit", deposit);
+    }
+
+    // the same deposits as one POST /api/transactions/batch, each tagged with its type
+    public HttpRequest batch(List<String> deposits) {
+        StringBuilder json = new StringBuilder(deposits.size() * 64).append('[');
+        for (String deposit : deposits) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"type\":\"DEPOSIT\",").append(deposit, 1, deposit.length());
+        }
+        return post("/api/transactions/batch", json.append(']').toString());
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(gatewayUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private String randomAccount() {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+
+    // minor units as a JSON number with two decimals
+    static String amount(long cents) {
+        long fraction = cents % 100;
+        return cents / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
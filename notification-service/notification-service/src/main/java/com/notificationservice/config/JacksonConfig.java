@@ -0,0 +1,26 @@
+package com.notificationservice.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Blackbird on the Boot ObjectMapper, which reads the NotificationRequest bodies
+ * of /send and /bulk (the JSON array through the MVC converter, the NDJSON
+ * stream through NotificationController's reader) and writes the ApiResponse.
+ * A bulk request is mostly those small records, and Blackbird replaces the
+ * reflective accessor and constructor calls of their deserializers with
+ * LambdaMetafactory-generated ones. This service has no banking-common
+ * dependency, so it registers the module itself.
+ */
+@Configuration
+public class JacksonConfig {
+
+    // picked up by JacksonAutoConfiguration like any other Module bean
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
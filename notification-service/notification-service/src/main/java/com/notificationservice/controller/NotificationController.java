@@ -1,29 +1,72 @@
 package com.notificationservice.controller;
 
+import com.notificationservice.dto.NotificationRequest;
+import com.notificationservice.service.NotificationQueue;
 import com.notificationservice.util.ApiResponse;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Answers once the notifications have been delivered, not when they are queued,
+ * so a sender that gets no success response still has them and sends them again.
+ * The wait is asynchronous and does not hold a request thread.
+ */
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
     private static final Logger logger = LoggerFactory.getLogger(NotificationController.class);
 
+    @Autowired
+    private NotificationQueue notificationQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping(value = "/send", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse sendNotification(@RequestBody Map<String, Object> body) {
+    public CompletableFuture<ApiResponse<String>> sendNotification(@RequestBody NotificationRequest body) {
+
+        String message = body.message();
+
+        return notificationQueue.enqueueAll(List.of(body)).thenApply(delivered -> {
+            logger.debug("Notification delivered: {}", message);
+            return new ApiResponse<>("Notification Delivered", message, true);
+        });
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ApiResponse<Integer>> sendBulk(@RequestBody List<NotificationRequest> notifications) {
+
+        return notificationQueue.enqueueAll(notifications).thenApply(delivered -> {
+            logger.debug("Bulk notifications delivered: count={}", delivered);
+            return new ApiResponse<>("Notifications Delivered", delivered, true);
+        });
+    }
 
-        String message = body.get("message").toString();
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<ApiResponse<Integer>> sendBulkNdjson(HttpServletRequest request) throws IOException {
 
-        // Replaced println with proper logging
-        logger.info("📩 Notification Received: {}", message);
+        List<NotificationRequest> notifications;
+        try (MappingIterator<NotificationRequest> it = objectMapper
+                .readerFor(NotificationRequest.class)
+                .readValues(request.getInputStream())) {
+            notifications = it.readAll();
+        }
 
-        return new ApiResponse("Notification Sent", message, true);
+        return sendBulk(notifications);
     }
 }
@@ -0,0 +1,8 @@
+package com.notificationservice.dto;
+
+/**
+ * One notification as sent by transaction-service's outbox dispatcher. traceId
+ * is the trace of the request that completed the transaction, when it had one.
+ */
+public record NotificationRequest(String notificationId, String transactionId, String message, String traceId) {
+}
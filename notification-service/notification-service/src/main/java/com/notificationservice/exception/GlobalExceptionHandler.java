@@ -0,0 +1,53 @@
+package com.notificationservice.exception;
+
+import com.notificationservice.util.ApiResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeoutException;
+
+@ControllerAdvice
+public class GlobalExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    // ---------------- Handle Queue Full (backpressure) ----------------
+    @ExceptionHandler(QueueFullException.class)
+    public ResponseEntity<ApiResponse<Void>> handleQueueFull(QueueFullException ex) {
+
+        logger.warn("QueueFullException: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse<>(ex.getMessage(), null, false));
+    }
+
+    // ---------------- Handle Unconfirmed Delivery (not acknowledged, sender retries) ----------------
+    @ExceptionHandler({NotificationNotDeliveredException.class, TimeoutException.class})
+    public ResponseEntity<ApiResponse<Void>> handleNotDelivered(Exception ex) {
+
+        logger.warn("Notifications not delivered in time: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>("Notifications not delivered, retry later", null, false));
+    }
+
+    // ---------------- Handle All Other Exceptions ----------------
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiResponse<Void>> handleGeneric(Exception ex) {
+
+        logger.error("Unhandled Exception:", ex);
+
+        return new ResponseEntity<>(
+                new ApiResponse<>("Error: " + ex.getMessage(), null, false),
+                HttpStatus.INTERNAL_SERVER_ERROR
+        );
+    }
+}
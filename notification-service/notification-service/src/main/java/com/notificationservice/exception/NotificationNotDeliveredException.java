@@ -0,0 +1,8 @@
+package com.notificationservice.exception;
+
+public class NotificationNotDeliveredException extends RuntimeException {
+
+    public NotificationNotDeliveredException(String message) {
+        super(message);
+    }
+}
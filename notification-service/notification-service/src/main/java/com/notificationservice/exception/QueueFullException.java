@@ -0,0 +1,15 @@
+package com.notificationservice.exception;
+
+public class QueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public QueueFullException(int requested, int remaining, long retryAfterSeconds) {
+        super("Notification queue full: requested=" + requested + " remaining=" + remaining);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,238 @@
+package com.notificationservice.service;
+
+import com.notificationservice.dto.NotificationRequest;
+import com.notificationservice.exception.NotificationNotDeliveredException;
+import com.notificationservice.exception.QueueFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bounded in-memory queue between the HTTP endpoints and a fixed pool of
+ * delivery workers. Producers never block: a batch that does not fit is refused
+ * with {@link QueueFullException}, which the API turns into 429 + Retry-After.
+ *
+ * A batch is admitted whole when the queue has room for it; only when a
+ * concurrent producer wins the race for the last slots is a batch partially
+ * queued and still refused, so senders must treat delivery as at-least-once.
+ *
+ * Nothing here is persisted, so a batch is only acknowledged once it has been
+ * delivered: {@link #enqueueAll} returns a future that completes when every
+ * notification of the batch went through a worker, and fails when one of them
+ * did not or when that takes longer than notification.queue.ack-timeout-ms. The
+ * sender keeps what was not acknowledged and sends it again. On shutdown the
+ * workers drain the queue for up to notification.queue.drain-timeout-seconds;
+ * whatever is left after that is failed back to its (unacknowledged) sender.
+ *
+ * Redelivered notifications are dropped: the transaction ids of the last
+ * notification.dedup.window deliveries are remembered, and a notification for one
+ * of them is counted in notification.queue.duplicates instead of being delivered
+ * again. The window is in memory and per instance, so it covers a sender retrying
+ * a batch whose response it lost, not a retry that lands after a restart.
+ */
+@Service
+public class NotificationQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationQueue.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${notification.queue.capacity:10000}")
+    private int capacity = 10000;
+
+    @Value("${notification.queue.workers:4}")
+    private int workers = 4;
+
+    @Value("${notification.queue.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    @Value("${notification.queue.ack-timeout-ms:3000}")
+    private long ackTimeoutMs = 3000;
+
+    @Value("${notification.queue.drain-timeout-seconds:10}")
+    private long drainTimeoutSeconds = 10;
+
+    @Value("${notification.dedup.window:100000}")
+    private int dedupWindow = 100000;
+
+    private BlockingQueue<QueuedNotification> queue;
+    private ExecutorService workerPool;
+    private volatile boolean running;
+    private Set<String> recentlyDelivered;
+
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Counter duplicateCounter;
+    private Timer processingLatency;
+
+    @PostConstruct
+    public void start() {
+
+        queue = new ArrayBlockingQueue<>(capacity);
+        recentlyDelivered = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupWindow;
+            }
+        }));
+
+        Gauge.builder("notification.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting for a worker")
+                .register(meterRegistry);
+        acceptedCounter = Counter.builder("notification.queue.accepted")
+                .description("Notifications admitted to the queue")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("notification.queue.rejected")
+                .description("Notifications refused because the queue was full")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("notification.queue.failed")
+                .description("Notifications whose delivery threw")
+                .register(meterRegistry);
+        duplicateCounter = Counter.builder("notification.queue.duplicates")
+                .description("Notifications dropped because their transaction was delivered recently")
+                .register(meterRegistry);
+        processingLatency = Timer.builder("notification.processing.latency")
+                .description("Time from enqueue until a worker finished delivery")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        running = true;
+        workerPool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("notification-worker-"));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workLoop);
+        }
+
+        logger.info("Notification queue started: capacity={} workers={}", capacity, workers);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(drainTimeoutSeconds, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+        List<QueuedNotification> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) {
+            logger.warn("Notification workers did not drain in time, {} notifications returned to their senders", left.size());
+            left.forEach(next -> next.delivered().completeExceptionally(
+                    new NotificationNotDeliveredException("Notification service shutting down")));
+        }
+    }
+
+    /**
+     * Queues the notifications. The returned future completes with their count
+     * once all of them are delivered.
+     */
+    public CompletableFuture<Integer> enqueueAll(List<NotificationRequest> notifications) {
+
+        int remaining = queue.remainingCapacity();
+        if (remaining < notifications.size()) {
+            rejectedCounter.increment(notifications.size());
+            throw new QueueFullException(notifications.size(), remaining, retryAfterSeconds);
+        }
+
+        long now = System.nanoTime();
+        CompletableFuture<?>[] delivered = new CompletableFuture<?>[notifications.size()];
+        int accepted = 0;
+        for (NotificationRequest body : notifications) {
+            QueuedNotification next = new QueuedNotification(body, now, new CompletableFuture<>());
+            if (!queue.offer(next)) {
+                acceptedCounter.increment(accepted);
+                rejectedCounter.increment(notifications.size() - accepted);
+                throw new QueueFullException(notifications.size(), 0, retryAfterSeconds);
+            }
+            delivered[accepted++] = next.delivered();
+        }
+
+        acceptedCounter.increment(accepted);
+        int count = accepted;
+        return CompletableFuture.allOf(delivered)
+                .thenApply(done -> count)
+                .orTimeout(ackTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    private void workLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                QueuedNotification next = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    continue;
+                }
+                String key = dedupKey(next.body());
+                if (key != null && !recentlyDelivered.add(key)) {
+                    duplicateCounter.increment();
+                    logger.debug("Duplicate notification dropped: id={} txnId={}",
+                            next.body().notificationId(), next.body().transactionId());
+                    // delivered before, so it can be acknowledged
+                    next.delivered().complete(null);
+                    continue;
+                }
+                try {
+                    deliver(next.body());
+                } catch (RuntimeException e) {
+                    // not delivered, so a retry of it must get through
+                    if (key != null) {
+                        recentlyDelivered.remove(key);
+                    }
+                    next.delivered().completeExceptionally(e);
+                    throw e;
+                }
+                next.delivered().complete(null);
+                processingLatency.record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failedCounter.increment();
+                logger.error("Notification delivery failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // one notification per transaction; without any id there is nothing to dedup on
+    private static String dedupKey(NotificationRequest body) {
+        return body.transactionId() != null ? body.transactionId() : body.notificationId();
+    }
+
+    private void deliver(NotificationRequest body) {
+        // log under the trace of the transaction, so it shows up next to the
+        // gateway, transaction-service and account-service lines of that request
+        if (body.traceId() != null) {
+            MDC.put("traceId", body.traceId());
+        }
+        try {
+            logger.info("Notification delivered: id={} txnId={} message={}",
+                    body.notificationId(), body.transactionId(), body.message());
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+
+    private record QueuedNotification(NotificationRequest body, long enqueuedAt, CompletableFuture<Void> delivered) {
+    }
+}
@@ -1,14 +1,14 @@
 package com.notificationservice.util;
 
-public class ApiResponse {
+public class ApiResponse<T> {
 
     private String message;
-    private Object data;
+    private T data;
     private boolean success;
 
     public ApiResponse() {}
 
-    public ApiResponse(String message, Object data, boolean success) {
+    public ApiResponse(String message, T data, boolean success) {
         this.message = message;
         this.data = data;
         this.success = success;
@@ -22,11 +22,11 @@ public class ApiResponse {
         this.message = message;
     }
 
-    public Object getData() {
+    public T getData() {
         return data;
     }
 
-    public void setData(Object data) {
+    public void setData(T data) {
         this.data = data;
     }
 
@@ -0,0 +1,124 @@
+package com.notificationservice.service;
+
+import com.notificationservice.dto.NotificationRequest;
+import com.notificationservice.exception.NotificationNotDeliveredException;
+import com.notificationservice.exception.QueueFullException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationQueue notificationQueue;
+
+    private NotificationQueue newQueue(int capacity, int workers) {
+        NotificationQueue queue = new NotificationQueue();
+        ReflectionTestUtils.setField(queue, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queue, "capacity", capacity);
+        ReflectionTestUtils.setField(queue, "workers", workers);
+        queue.start();
+        return queue;
+    }
+
+    private static List<NotificationRequest> notifications(int count) {
+        List<NotificationRequest> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new NotificationRequest("N-" + i, "TXN-" + i, "message " + i, null));
+        }
+        return list;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        notificationQueue.stop();
+    }
+
+    // ------------------------------------------------------
+    // QUEUED NOTIFICATIONS ARE PROCESSED BY WORKERS
+    // ------------------------------------------------------
+    @Test
+    void testEnqueueAndProcess() throws Exception {
+
+        notificationQueue = newQueue(100, 2);
+
+        // acknowledged only once every notification went through a worker
+        assertEquals(50, notificationQueue.enqueueAll(notifications(50)).get(5, TimeUnit.SECONDS));
+
+        assertEquals(50, meterRegistry.timer("notification.processing.latency").count());
+        assertEquals(0, notificationQueue.depth());
+    }
+
+    // ------------------------------------------------------
+    // FULL QUEUE REFUSES THE WHOLE BATCH
+    // ------------------------------------------------------
+    @Test
+    void testBackpressureWhenFull() {
+
+        notificationQueue = newQueue(10, 1);
+
+        QueueFullException ex = assertThrows(QueueFullException.class,
+                () -> notificationQueue.enqueueAll(notifications(11)));
+
+        assertEquals(1, ex.getRetryAfterSeconds());
+        assertEquals(0, notificationQueue.depth());
+        assertEquals(11.0, meterRegistry.counter("notification.queue.rejected").count());
+    }
+
+    // ------------------------------------------------------
+    // REDELIVERED TRANSACTIONS ARE DROPPED
+    // ------------------------------------------------------
+    @Test
+    void testDuplicateTransactionDeliveredOnce() throws Exception {
+
+        notificationQueue = newQueue(100, 1);
+
+        // the sender retries a batch whose response it never got
+        notificationQueue.enqueueAll(notifications(3)).get(5, TimeUnit.SECONDS);
+        assertEquals(3, notificationQueue.enqueueAll(notifications(3)).get(5, TimeUnit.SECONDS));
+
+        assertEquals(3, meterRegistry.timer("notification.processing.latency").count());
+        assertEquals(3.0, meterRegistry.counter("notification.queue.duplicates").count());
+    }
+
+    // ------------------------------------------------------
+    // SHUTDOWN DRAINS THE QUEUE
+    // ------------------------------------------------------
+    @Test
+    void testStopDeliversWhatIsQueued() throws Exception {
+
+        notificationQueue = newQueue(5000, 1);
+
+        CompletableFuture<Integer> acknowledged = notificationQueue.enqueueAll(notifications(2000));
+        notificationQueue.stop();
+
+        assertEquals(2000, acknowledged.get(1, TimeUnit.SECONDS));
+        assertEquals(0, notificationQueue.depth());
+    }
+
+    @Test
+    void testStopFailsWhatCouldNotBeDrained() throws Exception {
+
+        notificationQueue = newQueue(100, 1);
+        notificationQueue.stop();
+
+        // the workers are gone: not acknowledged, so the sender keeps it
+        CompletableFuture<Integer> acknowledged = notificationQueue.enqueueAll(notifications(1));
+        notificationQueue.stop();
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> acknowledged.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(NotificationNotDeliveredException.class, ex.getCause());
+    }
+}
@@ -0,0 +1,52 @@
+package com.transactionservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of account metadata (existence, status, holder) so that
+ * validation does not cost a round trip to account-service on every operation.
+ * Bounded by size and TTL; hit / miss / eviction stats are published as
+ * cache.* meters tagged cache=accountCache.
+ */
+@Component
+public class AccountCache {
+
+    private final Cache<String, AccountSnapshot> cache;
+
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${account.cache.max-size:10000}") long maxSize,
+                        @Value("${account.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "accountCache");
+    }
+
+    /**
+     * Returns the cached snapshot or loads it; a loader returning null (unknown
+     * account) is not cached, so a newly created account is seen immediately.
+     */
+    public AccountSnapshot get(String accountNumber, Function<String, AccountSnapshot> loader) {
+        return cache.get(accountNumber, loader);
+    }
+
+    public void put(AccountSnapshot snapshot) {
+        cache.put(snapshot.getAccountNumber(), snapshot);
+    }
+
+    public void invalidate(String accountNumber) {
+        cache.invalidate(accountNumber);
+    }
+}
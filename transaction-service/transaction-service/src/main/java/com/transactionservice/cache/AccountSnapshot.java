@@ -0,0 +1,40 @@
+package com.transactionservice.cache;
+
+import com.transactionservice.dto.AccountDto;
+
+/**
+ * Account metadata kept in {@link AccountCache}. Balances are deliberately not
+ * cached: they only ever change through the atomic adjust calls.
+ */
+public class AccountSnapshot {
+
+    private final String accountNumber;
+    private final String holderName;
+    private final String status;
+
+    public AccountSnapshot(String accountNumber, String holderName, String status) {
+        this.accountNumber = accountNumber;
+        this.holderName = holderName;
+        this.status = status;
+    }
+
+    public static AccountSnapshot from(AccountDto account) {
+        return new AccountSnapshot(account.accountNumber(), account.holderName(), account.status());
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equals(status);
+    }
+}
@@ -0,0 +1,43 @@
+package com.transactionservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.transactionservice.document.IdempotencyRecord;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory LRU front for completed idempotency records, so a duplicate submission
+ * of a recent request is answered without a Mongo round trip. Stats are published
+ * as cache.* meters tagged cache=idempotencyCache.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Cache<String, IdempotencyRecord> cache;
+
+    public IdempotencyCache(MeterRegistry meterRegistry,
+                            @Value("${idempotency.cache.max-size:100000}") long maxSize,
+                            @Value("${idempotency.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotencyCache");
+    }
+
+    public IdempotencyRecord get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(IdempotencyRecord record) {
+        cache.put(record.getId(), record);
+    }
+}
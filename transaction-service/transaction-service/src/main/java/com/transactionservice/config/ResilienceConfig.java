@@ -1,8 +1,45 @@
 package com.transactionservice.config;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * The policies themselves (breaker, bulkheads, retry) are set under resilience4j.*
+ * in application.properties and applied by the annotations on AccountRemoteService.
+ */
 @Configuration
 public class ResilienceConfig {
-    // Default configuration is enough for project
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilienceConfig.class);
+
+    // every breaker state change in the log, next to the resilience4j.circuitbreaker.state gauge
+    @Bean
+    public RegistryEventConsumer<CircuitBreaker> circuitBreakerTransitionLogger() {
+        return new RegistryEventConsumer<>() {
+
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<CircuitBreaker> event) {
+                event.getAddedEntry().getEventPublisher().onStateTransition(transition ->
+                        logger.warn("Circuit breaker {} {}", transition.getCircuitBreakerName(),
+                                transition.getStateTransition()));
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<CircuitBreaker> event) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<CircuitBreaker> event) {
+            }
+        };
+    }
 }
@@ -1,16 +1,43 @@
 package com.transactionservice.controller;
 
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.IdempotencyRecord;
 import com.transactionservice.document.Transaction;
+import com.transactionservice.dto.BatchResult;
+import com.transactionservice.dto.DepositRequest;
+import com.transactionservice.dto.TransferRequest;
+import com.transactionservice.dto.WithdrawRequest;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.service.IdempotencyService;
+import com.transactionservice.service.TransactionExportService;
+import com.transactionservice.service.TransactionBatchService;
 import com.transactionservice.service.TransactionService;
 import com.transactionservice.util.ApiResponse;
+import com.transactionservice.util.TransactionPage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -21,68 +48,209 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     // ---------------- Deposit ----------------
     @PostMapping(value = "/deposit", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse deposit(@RequestBody Map<String, Object> body) {
+    public ApiResponse<Transaction> deposit(@RequestBody DepositRequest body,
+                                            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
 
-        logger.info("POST /api/transactions/deposit requestBody={}", body);
+        logger.debug("POST /api/transactions/deposit requestBody={} idempotencyKey={}", body, idempotencyKey);
 
-        String accountNumber = body.get("accountNumber").toString();
-        Double amount = Double.valueOf(body.get("amount").toString());
+        String accountNumber = required(body.accountNumber(), "accountNumber");
+        Money amount = required(body.amount(), "amount");
 
-        Transaction txn = transactionService.deposit(accountNumber, amount);
+        Transaction txn = idempotencyService.execute(idempotencyKey, "DEPOSIT",
+                "DEPOSIT|" + accountNumber + "|" + amount,
+                transactionId -> transactionService.deposit(accountNumber, amount, transactionId));
 
         logger.info("Deposit Successful: txnId={} account={} amount={}",
                 txn.getTransactionId(), accountNumber, amount);
 
-        return new ApiResponse("Deposit Successful", txn, true);
+        return new ApiResponse<>("Deposit Successful", txn, true);
     }
 
     // ---------------- Withdraw ----------------
     @PostMapping(value = "/withdraw", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse withdraw(@RequestBody Map<String, Object> body) {
+    public ApiResponse<Transaction> withdraw(@RequestBody WithdrawRequest body,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
 
-        logger.info("POST /api/transactions/withdraw requestBody={}", body);
+        logger.debug("POST /api/transactions/withdraw requestBody={} idempotencyKey={}", body, idempotencyKey);
 
-        String accountNumber = body.get("accountNumber").toString();
-        Double amount = Double.valueOf(body.get("amount").toString());
+        String accountNumber = required(body.accountNumber(), "accountNumber");
+        Money amount = required(body.amount(), "amount");
 
-        Transaction txn = transactionService.withdraw(accountNumber, amount);
+        Transaction txn = idempotencyService.execute(idempotencyKey, "WITHDRAW",
+                "WITHDRAW|" + accountNumber + "|" + amount,
+                transactionId -> transactionService.withdraw(accountNumber, amount, transactionId));
 
         logger.info("Withdraw Successful: txnId={} account={} amount={}",
                 txn.getTransactionId(), accountNumber, amount);
 
-        return new ApiResponse("Withdraw Successful", txn, true);
+        return new ApiResponse<>("Withdraw Successful", txn, true);
     }
 
     // ---------------- Transfer ----------------
     @PostMapping(value = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ApiResponse transfer(@RequestBody Map<String, Object> body) {
+    public ApiResponse<Transaction> transfer(@RequestBody TransferRequest body,
+                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+
+        logger.debug("POST /api/transactions/transfer requestBody={} idempotencyKey={}", body, idempotencyKey);
 
-        logger.info("POST /api/transactions/transfer requestBody={}", body);
+        String source = required(body.sourceAccount(), "sourceAccount");
+        String destination = required(body.destinationAccount(), "destinationAccount");
+        Money amount = required(body.amount(), "amount");
 
-        String source = body.get("sourceAccount").toString();
-        String destination = body.get("destinationAccount").toString();
-        Double amount = Double.valueOf(body.get("amount").toString());
+        Transaction txn = idempotencyService.execute(idempotencyKey, "TRANSFER",
+                "TRANSFER|" + source + "|" + destination + "|" + amount,
+                transactionId -> transactionService.transfer(source, destination, amount, transactionId));
 
-        Transaction txn = transactionService.transfer(source, destination, amount);
+        if ("PENDING".equals(txn.getStatus())) {
+            // accepted, a step is retried in the background by saga recovery
+            logger.info("Transfer Pending: txnId={} source={} destination={} amount={}",
+                    txn.getTransactionId(), source, destination, amount);
+            return new ApiResponse<>("Transfer Pending", txn, true);
+        }
 
         logger.info("Transfer Successful: txnId={} source={} destination={} amount={}",
                 txn.getTransactionId(), source, destination, amount);
 
-        return new ApiResponse("Transfer Successful", txn, true);
+        return new ApiResponse<>("Transfer Successful", txn, true);
+    }
+
+    // ---------------- Batch (JSON array) ----------------
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batch(@RequestBody List<Map<String, Object>> operations,
+                                                       @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+
+        logger.info("POST /api/transactions/batch size={} idempotencyKey={}", operations.size(), idempotencyKey);
+
+        return streamBatch(operations, idempotencyKey);
+    }
+
+    // ---------------- Batch (NDJSON) ----------------
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchNdjson(HttpServletRequest request,
+                                                             @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws IOException {
+
+        List<Map<String, Object>> operations;
+        try (MappingIterator<Map<String, Object>> it = objectMapper
+                .readerFor(new TypeReference<Map<String, Object>>() {})
+                .readValues(request.getInputStream())) {
+            operations = it.readAll();
+        }
+
+        logger.info("POST /api/transactions/batch (ndjson) size={} idempotencyKey={}", operations.size(), idempotencyKey);
+
+        return streamBatch(operations, idempotencyKey);
+    }
+
+    // one NDJSON result line per operation, flushed after every chunk
+    private ResponseEntity<StreamingResponseBody> streamBatch(List<Map<String, Object>> operations, String idempotencyKey) {
+
+        // claimed before streaming starts, so a conflict or a reused key still gets its error status
+        IdempotencyRecord claim = transactionBatchService.claim(idempotencyKey, operations);
+
+        StreamingResponseBody body = out -> transactionBatchService.process(operations, claim, results -> {
+            try {
+                for (BatchResult result : results) {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     // ---------------- Transaction History ----------------
     @GetMapping("/{accountNumber}")
-    public ApiResponse getTransactions(@PathVariable String accountNumber) {
+    public ApiResponse<TransactionPage> getTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
 
-        logger.info("GET /api/transactions/{} - Fetching history", accountNumber);
+        logger.debug("GET /api/transactions/{} - Fetching history type={} from={} to={} cursor={} limit={}",
+                accountNumber, type, from, to, cursor, limit);
 
-        return new ApiResponse(
+        return new ApiResponse<>(
                 "Transactions fetched",
-                transactionService.getTransactions(accountNumber),
+                transactionService.getTransactions(accountNumber, type, from, to, cursor, limit),
                 true
         );
     }
+
+    // ---------------- History Export (streamed) ----------------
+    @GetMapping("/{accountNumber}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(defaultValue = TransactionExportService.NDJSON) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        String exportFormat = TransactionExportService.normaliseFormat(format);
+        boolean compress = gzip || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+
+        logger.info("GET /api/transactions/{}/export from={} to={} format={} gzip={}",
+                accountNumber, from, to, exportFormat, compress);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = compress ? new GZIPOutputStream(out, 64 * 1024) : out;
+            transactionExportService.export(accountNumber, from, to, exportFormat, target);
+            if (compress) {
+                ((GZIPOutputStream) target).finish();
+            }
+        };
+
+        String fileName = accountNumber + "-transactions." + exportFormat;
+        MediaType contentType = TransactionExportService.CSV.equals(exportFormat)
+                ? new MediaType("text", "csv")
+                : MediaType.APPLICATION_NDJSON;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (gzip) {
+            // explicit .gz download
+            fileName += ".gz";
+            contentType = new MediaType("application", "gzip");
+        } else if (compress) {
+            // negotiated through Accept-Encoding, clients decode it transparently
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        response.contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        return response.body(body);
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new TransactionException("Missing field " + field);
+        }
+        return value;
+    }
 }
@@ -0,0 +1,111 @@
+package com.transactionservice.document;
+
+import com.transactionservice.dto.BatchResult;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One Idempotency-Key seen on a money-moving endpoint. The key is the _id, so the
+ * unique _id index is what makes two concurrent submissions race for one record.
+ * Records expire 24h after creation through a TTL index.
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String RETRYABLE = "RETRYABLE"; // outcome unknown, a retry reuses the transaction id (see IdempotencyService)
+
+    @Id
+    private String id;
+
+    private String operation; // DEPOSIT, WITHDRAW, TRANSFER, BATCH
+    private String fingerprint; // operation and parameters, a reused key must match it
+    private String status;
+    private String transactionId; // reserved when the key is first claimed
+    private Transaction transaction; // the result once COMPLETED, replaced when a PENDING transfer settles
+    private List<BatchResult> batchResults; // the per-item results of a COMPLETED batch instead
+    private Date lockedUntil; // lease of the request currently holding the key
+
+    @Indexed(name = "createdAt_ttl", expireAfter = "24h")
+    private Date createdAt;
+
+    public IdempotencyRecord() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    public void setTransaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    public List<BatchResult> getBatchResults() {
+        return batchResults;
+    }
+
+    public void setBatchResults(List<BatchResult> batchResults) {
+        this.batchResults = batchResults;
+    }
+
+    public Date getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Date lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,11 +1,27 @@
 package com.transactionservice.document;
 
+import com.bankingcommon.util.Money;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
 
+// back the keyset-paginated history: one index per side of the $or, newest first;
+// the partial index only holds the few PENDING batch transactions BatchTransactionRecovery looks for
 @Document(collection = "transactions")
+@CompoundIndexes({
+        @CompoundIndex(name = "source_timestamp_txnId",
+                def = "{'sourceAccount': 1, 'timestamp': -1, 'transactionId': -1}"),
+        @CompoundIndex(name = "destination_timestamp_txnId",
+                def = "{'destinationAccount': 1, 'timestamp': -1, 'transactionId': -1}"),
+        @CompoundIndex(name = "pending_status_timestamp",
+                def = "{'status': 1, 'timestamp': 1}", partialFilter = "{'status': 'PENDING'}")
+})
 public class Transaction {
 
     @Id
@@ -13,12 +29,17 @@ public class Transaction {
 
     private String transactionId;
     private String type; // DEPOSIT, WITHDRAW, TRANSFER
-    private Double amount;
-    private String status; // SUCCESS / FAILED
+    private Money amount;
+    private String status; // SUCCESS / FAILED, PENDING while a batch operation is not settled
     private String sourceAccount;
     private String destinationAccount; // only for transfer
     private Date timestamp;
 
+    @JsonIgnore
+    private String claimedBy;  // recovery instance settling a PENDING transaction
+    @JsonIgnore
+    private Date claimedUntil; // end of its lease
+
     public Transaction() {}
 
     public String getId() {
@@ -45,11 +66,11 @@ public class Transaction {
         this.type = type;
     }
 
-    public Double getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(Double amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
@@ -84,4 +105,20 @@ public class Transaction {
     public void setTimestamp(Date timestamp) {
         this.timestamp = timestamp;
     }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Date getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Date claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
 }
@@ -0,0 +1,151 @@
+package com.transactionservice.document;
+
+import com.bankingcommon.util.Money;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Persistent state of one transfer saga. The id is the transaction id of the
+ * transfer, and each remote step uses "id:step" as its operation id.
+ *
+ * STARTED -> DEBITED -> CREDITED -> COMPLETED  (recorded with its notification in one step)
+ * STARTED -> FAILED                       (debit rejected, nothing moved)
+ * DEBITED -> COMPENSATING -> COMPENSATED  (credit rejected, debit refunded)
+ */
+@Document(collection = "transfer_sagas")
+@CompoundIndex(name = "state_updatedAt", def = "{'state': 1, 'updatedAt': 1}")
+public class TransferSaga {
+
+    public static final String STARTED = "STARTED";
+    public static final String DEBITED = "DEBITED";
+    public static final String CREDITED = "CREDITED";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String COMPENSATING = "COMPENSATING";
+    public static final String COMPENSATED = "COMPENSATED";
+    public static final String FAILED = "FAILED";
+
+    // states the recovery scheduler picks up
+    public static final List<String> IN_FLIGHT = List.of(STARTED, DEBITED, CREDITED, COMPENSATING);
+
+    @Id
+    private String id;
+
+    private String sourceAccount;
+    private String destinationAccount;
+    private Money amount;
+    private String state;
+    private String failureReason; // why the transfer did not go through
+    private String lastError;     // last transient error, the step is retried
+    private int attempts;
+    private Date createdAt;
+    private Date updatedAt;
+    private String claimedBy;  // recovery instance currently re-driving the saga
+    private Date claimedUntil; // end of its lease, another instance may claim it after that
+
+    public TransferSaga() {}
+
+    public boolean isTerminal() {
+        return COMPLETED.equals(state) || COMPENSATED.equals(state) || FAILED.equals(state);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSourceAccount() {
+        return sourceAccount;
+    }
+
+    public void setSourceAccount(String sourceAccount) {
+        this.sourceAccount = sourceAccount;
+    }
+
+    public String getDestinationAccount() {
+        return destinationAccount;
+    }
+
+    public void setDestinationAccount(String destinationAccount) {
+        this.destinationAccount = destinationAccount;
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Money amount) {
+        this.amount = amount;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public void setFailureReason(String failureReason) {
+        this.failureReason = failureReason;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public Date getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(Date claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+}
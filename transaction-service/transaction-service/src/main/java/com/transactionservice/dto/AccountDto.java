@@ -0,0 +1,13 @@
+package com.transactionservice.dto;
+
+import com.bankingcommon.util.Money;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * The account as returned by account-service. Only the fields transaction-service
+ * reads are mapped, everything else in the document is skipped by the parser.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AccountDto(String accountNumber, String holderName, Money balance, String status) {
+}
@@ -0,0 +1,17 @@
+package com.transactionservice.dto;
+
+import com.bankingcommon.util.Money;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Outcome of one {@link BalanceAdjustment}, in request order. status is
+ * APPLIED, INSUFFICIENT_BALANCE or NOT_FOUND.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AdjustmentResult(String accountNumber, Money delta, String status) {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String INSUFFICIENT_BALANCE = "INSUFFICIENT_BALANCE";
+    public static final String NOT_FOUND = "NOT_FOUND";
+}
@@ -0,0 +1,13 @@
+package com.transactionservice.dto;
+
+import com.bankingcommon.util.Money;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Body of POST /api/accounts/{accountNumber}/balance/adjust. operationId is
+ * optional; with it account-service applies the delta at most once.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BalanceAdjustRequest(Money delta, String operationId) {
+}
@@ -0,0 +1,23 @@
+package com.transactionservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One NDJSON line of a batch response: transactionId on success, message on failure,
+ * both while the outcome is PENDING (settled later, the history then shows the result).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult(int index, String status, String transactionId, String message) {
+
+    public static BatchResult success(int index, String transactionId) {
+        return new BatchResult(index, "SUCCESS", transactionId, null);
+    }
+
+    public static BatchResult pending(int index, String transactionId, String message) {
+        return new BatchResult(index, "PENDING", transactionId, message);
+    }
+
+    public static BatchResult failure(int index, String status, String message) {
+        return new BatchResult(index, status, null, message);
+    }
+}
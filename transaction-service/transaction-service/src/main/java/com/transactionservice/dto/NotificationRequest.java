@@ -0,0 +1,8 @@
+package com.transactionservice.dto;
+
+/**
+ * One notification handed to notification-service. traceId is the trace of the
+ * request that completed the transaction, not of the batch call carrying it.
+ */
+public record NotificationRequest(String notificationId, String transactionId, String message, String traceId) {
+}
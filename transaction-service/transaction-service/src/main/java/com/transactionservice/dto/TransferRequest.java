@@ -0,0 +1,6 @@
+package com.transactionservice.dto;
+
+import com.bankingcommon.util.Money;
+
+public record TransferRequest(String sourceAccount, String destinationAccount, Money amount) {
+}
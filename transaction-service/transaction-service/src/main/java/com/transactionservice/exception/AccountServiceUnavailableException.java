@@ -0,0 +1,11 @@
+package com.transactionservice.exception;
+
+/**
+ * account-service could not be reached or did not answer in time. Unlike a plain
+ * {@link TransactionException}, the outcome of a balance change is unknown.
+ */
+public class AccountServiceUnavailableException extends TransactionException {
+    public AccountServiceUnavailableException(String msg) {
+        super(msg);
+    }
+}
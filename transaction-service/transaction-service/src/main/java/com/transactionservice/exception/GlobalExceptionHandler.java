@@ -4,6 +4,7 @@ import com.transactionservice.util.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.*;
 
 @ControllerAdvice
@@ -11,26 +12,73 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    // ---------------- Handle Account Service Outages ----------------
+    @ExceptionHandler(AccountServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnavailable(AccountServiceUnavailableException ex) {
+
+        logger.warn("Account service unavailable: {}", ex.getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.SERVICE_UNAVAILABLE
+        );
+    }
+
+    // ---------------- Handle Idempotency-Key Conflicts ----------------
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIdempotencyConflict(IdempotencyConflictException ex) {
+
+        logger.warn("Idempotency conflict: {}", ex.getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.CONFLICT
+        );
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIdempotencyMismatch(IdempotencyKeyMismatchException ex) {
+
+        logger.warn("Idempotency key reused: {}", ex.getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.UNPROCESSABLE_ENTITY
+        );
+    }
+
     // ---------------- Handle Known Business Exceptions ----------------
     @ExceptionHandler(TransactionException.class)
-    public ResponseEntity<ApiResponse> handleTxn(TransactionException ex) {
+    public ResponseEntity<ApiResponse<Void>> handleTxn(TransactionException ex) {
 
         logger.warn("TransactionException occurred: {}", ex.getMessage());
 
         return new ResponseEntity<>(
-                new ApiResponse(ex.getMessage(), null, false),
+                new ApiResponse<>(ex.getMessage(), null, false),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    // ---------------- Handle Malformed Request Bodies ----------------
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUnreadable(HttpMessageNotReadableException ex) {
+
+        logger.warn("Malformed request body: {}", ex.getMostSpecificCause().getMessage());
+
+        return new ResponseEntity<>(
+                new ApiResponse<>("Malformed request: " + ex.getMostSpecificCause().getMessage(), null, false),
                 HttpStatus.BAD_REQUEST
         );
     }
 
     // ---------------- Handle All Other Exceptions ----------------
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ApiResponse> handleGeneric(Exception ex) {
+    public ResponseEntity<ApiResponse<Void>> handleGeneric(Exception ex) {
 
         logger.error("Unhandled Exception:", ex);
 
         return new ResponseEntity<>(
-                new ApiResponse("Error: " + ex.getMessage(), null, false),
+                new ApiResponse<>("Error: " + ex.getMessage(), null, false),
                 HttpStatus.INTERNAL_SERVER_ERROR
         );
     }
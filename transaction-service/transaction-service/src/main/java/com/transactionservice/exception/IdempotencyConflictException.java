@@ -0,0 +1,7 @@
+package com.transactionservice.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String key) {
+        super("A request with Idempotency-Key " + key + " is still being processed");
+    }
+}
@@ -0,0 +1,7 @@
+package com.transactionservice.exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency-Key " + key + " was already used with different request parameters");
+    }
+}
@@ -0,0 +1,13 @@
+package com.transactionservice.exception;
+
+/**
+ * The operation was refused before any money moved: invalid input, an unknown or
+ * inactive account, or a balance change account-service turned down. Nothing has
+ * to be undone, so the request may be corrected and sent again under the same
+ * Idempotency-Key.
+ */
+public class TransactionRejectedException extends TransactionException {
+    public TransactionRejectedException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,23 @@
+package com.transactionservice.exception;
+
+import com.transactionservice.document.Transaction;
+
+/**
+ * A transfer failed after its debit went through: the debit was refunded
+ * (COMPENSATED), or the refund was rejected too and the saga is FAILED for manual
+ * correction. Carries the FAILED transaction, which is the final result of the
+ * request; running it again would debit the source a second time.
+ */
+public class TransferFailedException extends TransactionException {
+
+    private final transient Transaction transaction;
+
+    public TransferFailedException(String msg, Transaction transaction) {
+        super(msg);
+        this.transaction = transaction;
+    }
+
+    public Transaction getTransaction() {
+        return transaction;
+    }
+}
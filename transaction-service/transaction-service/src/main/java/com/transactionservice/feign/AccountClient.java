@@ -1,18 +1,25 @@
 package com.transactionservice.feign;
 
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.dto.AdjustmentResult;
+import com.transactionservice.dto.BalanceAdjustRequest;
+import com.transactionservice.dto.BalanceAdjustment;
 import com.transactionservice.util.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.util.List;
 
 @FeignClient(name = "account-service")
 public interface AccountClient {
 
-    @PutMapping("/api/accounts/{accountNumber}/balance")
-    ApiResponse updateBalance(@PathVariable String accountNumber,
-                              @RequestBody Map<String, Object> body);
+    @PostMapping("/api/accounts/{accountNumber}/balance/adjust")
+    ApiResponse<AccountDto> adjustBalance(@PathVariable String accountNumber,
+                                          @RequestBody BalanceAdjustRequest body);
+
+    @PostMapping("/api/accounts/balance/adjust-batch")
+    ApiResponse<List<AdjustmentResult>> adjustBalances(@RequestBody List<BalanceAdjustment> adjustments);
 
     @GetMapping("/api/accounts/{accountNumber}")
-    ApiResponse getAccount(@PathVariable String accountNumber);
+    ApiResponse<AccountDto> getAccount(@PathVariable String accountNumber);
 }
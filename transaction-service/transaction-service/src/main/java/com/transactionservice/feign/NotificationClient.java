@@ -1,14 +1,15 @@
 package com.transactionservice.feign;
 
+import com.transactionservice.dto.NotificationRequest;
 import com.transactionservice.util.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.util.List;
 
 @FeignClient(name = "notification-service")
 public interface NotificationClient {
 
-    @PostMapping("/api/notifications/send")
-    ApiResponse sendNotification(@RequestBody Map<String, Object> body);
+    @PostMapping("/api/notifications/bulk")
+    ApiResponse<Integer> sendBulk(@RequestBody List<NotificationRequest> notifications);
 }
@@ -0,0 +1,157 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.cache.AccountSnapshot;
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.dto.AdjustmentResult;
+import com.transactionservice.dto.BalanceAdjustRequest;
+import com.transactionservice.dto.BalanceAdjustment;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.feign.AccountClient;
+import com.transactionservice.util.ApiResponse;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Resilience-wrapped calls to account-service. Kept in its own bean so that
+ * callers (TransactionService, TransferSagaEngine, TransactionBatchService) go
+ * through the Spring proxy and the policies and fallbacks actually apply.
+ *
+ * Every call passes the shared accountCB breaker, which opens on failures and on
+ * slow calls alike. Reads and writes run in separate bulkheads (accountRead,
+ * accountWrite), so a backlog of balance changes cannot starve validation and
+ * vice versa. Only reads are retried: a write that timed out may still have been
+ * applied, and is settled by its operation id and the saga recovery instead.
+ * The Feign read timeout bounds each attempt. Policies are configured under
+ * resilience4j.* in application.properties.
+ *
+ * Each call is timed as account.remote{operation}, and every fallback taken for
+ * an availability problem counts in account.remote.fallbacks.
+ */
+@Service
+public class AccountRemoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountRemoteService.class);
+
+    @Autowired
+    private AccountClient accountClient;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // ------------------------------------------------------------
+    //   Get Account
+    // ------------------------------------------------------------
+
+    // the fallback sits on the retry, so the retry sees the original failure, not the fallback's
+    @Timed(value = "account.remote", extraTags = {"operation", "get"}, histogram = true)
+    @Retry(name = "accountRead", fallbackMethod = "accountGetFallback")
+    @CircuitBreaker(name = "accountCB")
+    @Bulkhead(name = "accountRead")
+    public ApiResponse<AccountDto> getAccountRemote(String accountNumber) {
+        logger.debug("Calling AccountService GET /api/accounts/{}", accountNumber);
+        try {
+            return accountClient.getAccount(accountNumber);
+        } catch (FeignException.NotFound e) {
+            return new ApiResponse<>("Account not found", null, false);
+        }
+    }
+
+    public ApiResponse<AccountDto> accountGetFallback(String accountNumber, Throwable ex) {
+        logger.error("Fallback triggered for GET account {} - reason: {}", accountNumber, ex.getMessage());
+        countFallback("get", ex);
+        throw new AccountServiceUnavailableException("Account Service unavailable! Try again later.");
+    }
+
+    // ------------------------------------------------------------
+    //   Adjust Balance
+    // ------------------------------------------------------------
+
+    /**
+     * Applies a signed delta. With an operationId account-service applies it at most
+     * once, so the call can be retried safely after a timeout.
+     */
+    @Timed(value = "account.remote", extraTags = {"operation", "adjust"}, histogram = true)
+    @CircuitBreaker(name = "accountCB", fallbackMethod = "accountUpdateFallback")
+    @Bulkhead(name = "accountWrite")
+    public ApiResponse<AccountDto> adjustBalanceRemote(String accountNumber, Money delta, String operationId) {
+        BalanceAdjustRequest body = new BalanceAdjustRequest(delta, operationId);
+
+        logger.debug("Calling AccountService POST /api/accounts/{}/balance/adjust body={}", accountNumber, body);
+        ApiResponse<AccountDto> resp;
+        try {
+            resp = accountClient.adjustBalance(accountNumber, body);
+        } catch (FeignException.Conflict e) {
+            throw new TransactionRejectedException("Insufficient balance in account " + accountNumber + "!");
+        } catch (FeignException.NotFound e) {
+            accountCache.invalidate(accountNumber);
+            throw new TransactionRejectedException("Account not found: " + accountNumber);
+        }
+        refreshCachedAccount(accountNumber, resp);
+        return resp;
+    }
+
+    public ApiResponse<AccountDto> accountUpdateFallback(String accountNumber, Money delta, String operationId, Throwable ex) {
+        if (ex instanceof TransactionException txnEx) {
+            // business rejection from account-service, not an availability problem
+            throw txnEx;
+        }
+        logger.error("Fallback triggered for UPDATE balance account={} operationId={} - reason={}",
+                accountNumber, operationId, ex.getMessage());
+        countFallback("adjust", ex);
+        throw new AccountServiceUnavailableException("Account Service unavailable! Try again later.");
+    }
+
+    // ------------------------------------------------------------
+    //   Adjust Balances (batch)
+    // ------------------------------------------------------------
+
+    @Timed(value = "account.remote", extraTags = {"operation", "adjust-batch"}, histogram = true)
+    @CircuitBreaker(name = "accountCB", fallbackMethod = "accountBatchFallback")
+    @Bulkhead(name = "accountWrite")
+    public ApiResponse<List<AdjustmentResult>> adjustBalancesRemote(List<BalanceAdjustment> adjustments) {
+        logger.debug("Calling AccountService POST /api/accounts/balance/adjust-batch size={}", adjustments.size());
+        return accountClient.adjustBalances(adjustments);
+    }
+
+    public ApiResponse<List<AdjustmentResult>> accountBatchFallback(List<BalanceAdjustment> adjustments, Throwable ex) {
+        logger.error("Fallback triggered for batch balance adjust size={} - reason={}", adjustments.size(), ex.getMessage());
+        countFallback("adjust-batch", ex);
+        throw new AccountServiceUnavailableException("Account Service unavailable! Try again later.");
+    }
+
+    // cause is e.g. CallNotPermittedException (breaker open), BulkheadFullException or
+    // RetryableException (timeout, connection refused)
+    private void countFallback(String operation, Throwable ex) {
+        meterRegistry.counter("account.remote.fallbacks",
+                "operation", operation, "cause", ex.getClass().getSimpleName()).increment();
+    }
+
+    // a balance change returns the fresh account document, so replace the cached copy with it
+    private void refreshCachedAccount(String accountNumber, ApiResponse<AccountDto> resp) {
+        if (resp != null && resp.getData() != null && resp.getData().accountNumber() != null) {
+            accountCache.put(AccountSnapshot.from(resp.getData()));
+        } else {
+            accountCache.invalidate(accountNumber);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.util.AccountLocks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Settles batch deposits and withdrawals left PENDING because account-service did
+ * not answer, or because their outcome could not be recorded. The balance change is
+ * sent again under the transaction id as operation id, so one that was applied the
+ * first time is not applied twice: the transaction becomes SUCCESS (and gets its
+ * notification) if account-service applies or already applied it, and is removed if
+ * account-service rejects it.
+ *
+ * Transactions are claimed with a lease before they are settled, the same way
+ * {@link TransferSagaRecovery} claims sagas, and given up after
+ * {@code transaction.batch.recovery.max-age-hours} for the same reason.
+ */
+@Component
+public class BatchTransactionRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransactionRecovery.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoTransactions mongoTransactions;
+
+    @Autowired
+    private AccountRemoteService accountRemoteService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private AccountLocks accountLocks;
+
+    @Value("${transaction.batch.recovery.stale-after-ms:30000}")
+    private long staleAfterMs = 30000;
+
+    @Value("${transaction.batch.recovery.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    @Value("${transaction.batch.recovery.max-age-hours:72}")
+    private long maxAgeHours = 72;
+
+    @Value("${transaction.batch.recovery.batch-size:100}")
+    private int batchSize = 100;
+
+    // pid@host, recorded on the transactions this instance has claimed
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Scheduled(fixedDelayString = "${transaction.batch.recovery.interval-ms:10000}")
+    public void recoverPending() {
+        int settled = recoverBatch();
+        if (settled > 0) {
+            logger.info("Batch transaction recovery run finished: attempted={}", settled);
+        }
+        long abandoned = mongoTemplate.count(new Query(Criteria.where("status").is("PENDING")
+                .and("timestamp").lt(maxAgeCutoff(new Date()))), Transaction.class);
+        if (abandoned > 0) {
+            logger.error("{} batch transactions PENDING for more than {}h are no longer settled, manual correction needed",
+                    abandoned, maxAgeHours);
+        }
+    }
+
+    int recoverBatch() {
+
+        // claimed in this run: one that stays unknown is left to a later run
+        Set<String> claimed = new HashSet<>();
+
+        while (claimed.size() < batchSize) {
+            Transaction txn = claimNext(claimed);
+            if (txn == null) {
+                break;
+            }
+            claimed.add(txn.getId());
+            try {
+                settle(txn);
+            } catch (AccountServiceUnavailableException e) {
+                logger.warn("Batch transaction txnId={} still unknown: {}", txn.getTransactionId(), e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("Recovery of batch transaction txnId={} failed: {}", txn.getTransactionId(), e.getMessage());
+            } finally {
+                release(txn.getId());
+            }
+        }
+        return claimed.size();
+    }
+
+    private void settle(Transaction txn) {
+
+        Money delta = "WITHDRAW".equals(txn.getType()) ? txn.getAmount().negate() : txn.getAmount();
+        try {
+            accountLocks.withLocks(() -> accountRemoteService.adjustBalanceRemote(
+                    txn.getSourceAccount(), delta, txn.getTransactionId()), txn.getSourceAccount());
+        } catch (TransactionException e) {
+            // rejected, nothing moved: the operation never happened
+            mongoTemplate.remove(pendingById(txn.getId()), Transaction.class);
+            logger.info("Batch transaction txnId={} rejected on recovery: {}", txn.getTransactionId(), e.getMessage());
+            return;
+        }
+
+        txn.setStatus("SUCCESS");
+        mongoTransactions.execute(() -> {
+            mongoTemplate.updateFirst(pendingById(txn.getId()), new Update().set("status", "SUCCESS"), Transaction.class);
+            notificationOutboxService.enqueue(txn);
+            return null;
+        });
+        logger.info("Batch transaction txnId={} settled as SUCCESS", txn.getTransactionId());
+    }
+
+    // oldest stale PENDING transaction that no other instance holds, claimed for this one
+    private Transaction claimNext(Set<String> skip) {
+        Date now = new Date();
+        Query query = new Query(Criteria.where("status").is("PENDING")
+                .and("timestamp").lt(new Date(now.getTime() - staleAfterMs)).gte(maxAgeCutoff(now))
+                .and("claimedUntil").not().gte(now)
+                .and("_id").nin(skip))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+
+        Update claim = new Update()
+                .set("claimedBy", instanceId)
+                .set("claimedUntil", new Date(now.getTime() + leaseMs));
+
+        return mongoTemplate.findAndModify(query, claim, FindAndModifyOptions.options().returnNew(true), Transaction.class);
+    }
+
+    private void release(String id) {
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id).and("claimedBy").is(instanceId)),
+                    new Update().unset("claimedBy").unset("claimedUntil"), Transaction.class);
+        } catch (RuntimeException e) {
+            // the lease runs out on its own
+            logger.warn("Could not release claim on batch transaction {}: {}", id, e.getMessage());
+        }
+    }
+
+    private static Query pendingById(String id) {
+        return new Query(Criteria.where("_id").is(id).and("status").is("PENDING"));
+    }
+
+    private Date maxAgeCutoff(Date now) {
+        return new Date(now.getTime() - maxAgeHours * 3600 * 1000);
+    }
+}
@@ -0,0 +1,331 @@
+package com.transactionservice.service;
+
+import com.transactionservice.cache.IdempotencyCache;
+import com.transactionservice.document.IdempotencyRecord;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.dto.BatchResult;
+import com.transactionservice.exception.IdempotencyConflictException;
+import com.transactionservice.exception.IdempotencyKeyMismatchException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.exception.TransferFailedException;
+import com.transactionservice.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Honours the Idempotency-Key header of the money-moving endpoints.
+ *
+ * The first request with a key claims it by inserting an IN_PROGRESS record that
+ * reserves a transaction id; duplicates of a completed request get the stored
+ * Transaction back, from {@link IdempotencyCache} when it is hot. Only a request
+ * rejected before any money moved ({@link TransactionRejectedException}) releases
+ * the key. A transfer that failed after its debit ({@link TransferFailedException})
+ * completes it with the FAILED transaction, so a retry cannot debit again. Any
+ * other failure leaves the outcome unknown and the key RETRYABLE; the retry runs
+ * again with the same transaction id, which account-service de-duplicates as an
+ * operation id. Its applied-operations ledger
+ * keeps operation ids for 7 days, longer than a record lives (24h), so a retry
+ * arriving at any point in that window is still de-duplicated.
+ *
+ * A transfer accepted as PENDING is finished later by the saga recovery, so its
+ * stored result goes stale. Replays of it re-read the transaction (and the saga,
+ * for a transfer that was rejected) and return the current outcome; once that is
+ * final it replaces the stored result and is cached like any other.
+ *
+ * A batch claims one key for the whole request ({@link #claimBatch}); see
+ * {@link TransactionBatchService} for how its items reuse the reserved id.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    // how long a claim blocks duplicates before a crashed request's key can be taken over
+    @Value("${idempotency.lease-seconds:60}")
+    private long leaseSeconds = 60;
+
+    /**
+     * Runs {@code action} at most once per key and returns its Transaction, or the
+     * original Transaction for a duplicate. Without a key the action just runs.
+     *
+     * @param action receives the transaction id to use for the operation
+     */
+    public Transaction execute(String key, String operation, String fingerprint, Function<String, Transaction> action) {
+
+        if (key == null || key.isBlank()) {
+            return action.apply(idGenerator.generateTransactionId());
+        }
+
+        IdempotencyRecord cached = idempotencyCache.get(key);
+        if (cached != null) {
+            return replay(cached, fingerprint);
+        }
+
+        IdempotencyRecord record = claim(key, operation, fingerprint);
+        if (IdempotencyRecord.COMPLETED.equals(record.getStatus())) {
+            return replay(record, fingerprint);
+        }
+
+        Transaction txn;
+        try {
+            txn = action.apply(record.getTransactionId());
+        } catch (TransactionRejectedException e) {
+            // rejected before any money moved, the client may fix the request and reuse the key
+            release(key);
+            throw e;
+        } catch (TransferFailedException e) {
+            // money moved before it failed: the key stays bound to the failed transfer for good
+            complete(record, e.getTransaction());
+            throw e;
+        } catch (RuntimeException e) {
+            // outcome unknown: a retry runs again under the same transaction id, which
+            // account-service de-duplicates, so nothing is applied twice
+            markRetryable(key);
+            throw e;
+        }
+
+        complete(record, txn);
+        return txn;
+    }
+
+    // ------------------------------------------------------------
+    //   Batches
+    // ------------------------------------------------------------
+
+    /**
+     * Claims {@code key} for a batch, like {@link #execute} does for a single call.
+     * Returns the COMPLETED record of a duplicate, whose stored results are replayed
+     * instead of running the batch, or the IN_PROGRESS record now held by the caller,
+     * which must end in {@link #completeBatch} or {@link #markRetryable}.
+     */
+    public IdempotencyRecord claimBatch(String key, String fingerprint) {
+        IdempotencyRecord record = claim(key, "BATCH", fingerprint);
+        if (IdempotencyRecord.COMPLETED.equals(record.getStatus())) {
+            logger.info("Duplicate batch for Idempotency-Key {}, replaying {} results",
+                    key, record.getBatchResults() == null ? 0 : record.getBatchResults().size());
+        }
+        return record;
+    }
+
+    // a batch may outrun one lease; renewed between chunks so a duplicate cannot take it over meanwhile
+    public void extendLease(String key) {
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(key).and("status").is(IdempotencyRecord.IN_PROGRESS)),
+                    new Update().set("lockedUntil", new Date(System.currentTimeMillis() + leaseSeconds * 1000)),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            logger.warn("Could not extend the lease of Idempotency-Key {}: {}", key, e.getMessage());
+        }
+    }
+
+    // not cached: a batch's results can be large, and duplicates of a batch are rare
+    public void completeBatch(IdempotencyRecord record, List<BatchResult> results) {
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(record.getId())),
+                    new Update()
+                            .set("status", IdempotencyRecord.COMPLETED)
+                            .set("batchResults", results)
+                            .unset("lockedUntil"),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // every item ran under a fixed transaction id, so a retry after the lease re-runs it idempotently
+            logger.warn("Could not complete batch Idempotency-Key {}: {}", record.getId(), e.getMessage());
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Claim Lifecycle
+    // ------------------------------------------------------------
+
+    private IdempotencyRecord claim(String key, String operation, String fingerprint) {
+
+        Date now = new Date();
+        Date leaseEnd = new Date(now.getTime() + leaseSeconds * 1000);
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(key);
+        record.setOperation(operation);
+        record.setFingerprint(fingerprint);
+        record.setStatus(IdempotencyRecord.IN_PROGRESS);
+        record.setTransactionId(idGenerator.generateTransactionId());
+        record.setLockedUntil(leaseEnd);
+        record.setCreatedAt(now);
+
+        try {
+            mongoTemplate.insert(record);
+            return record;
+        } catch (DuplicateKeyException e) {
+            logger.debug("Idempotency-Key {} already claimed", key);
+        }
+
+        // take over a retryable claim, or one whose request died without finishing
+        Query takeover = new Query(Criteria.where("_id").is(key)
+                .and("fingerprint").is(fingerprint)
+                .orOperator(
+                        Criteria.where("status").is(IdempotencyRecord.RETRYABLE),
+                        Criteria.where("status").is(IdempotencyRecord.IN_PROGRESS).and("lockedUntil").lt(now)));
+
+        IdempotencyRecord taken = mongoTemplate.findAndModify(
+                takeover,
+                new Update().set("status", IdempotencyRecord.IN_PROGRESS).set("lockedUntil", leaseEnd),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+        if (taken != null) {
+            logger.info("Idempotency-Key {} taken over, retrying txnId={}", key, taken.getTransactionId());
+            return taken;
+        }
+
+        IdempotencyRecord existing = mongoTemplate.findById(key, IdempotencyRecord.class);
+        if (existing == null) {
+            // released by the other request in the meantime
+            return claim(key, operation, fingerprint);
+        }
+        if (!fingerprint.equals(existing.getFingerprint())) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+        if (IdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+            return existing;
+        }
+        throw new IdempotencyConflictException(key);
+    }
+
+    private void complete(IdempotencyRecord record, Transaction txn) {
+
+        record.setStatus(IdempotencyRecord.COMPLETED);
+        record.setTransaction(txn);
+        record.setLockedUntil(null);
+
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(record.getId())),
+                    new Update()
+                            .set("status", IdempotencyRecord.COMPLETED)
+                            .set("transaction", txn)
+                            .unset("lockedUntil"),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // the operation itself succeeded; once the lease runs out a retry re-runs it idempotently
+            logger.warn("Could not complete Idempotency-Key {} txnId={}: {}",
+                    record.getId(), txn.getTransactionId(), e.getMessage());
+            return;
+        }
+        if (!isPending(txn)) {
+            idempotencyCache.put(record);
+        }
+    }
+
+    /**
+     * Leaves the key to a retry, which takes it over with the same reserved
+     * transaction id.
+     */
+    public void markRetryable(String key) {
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(key)),
+                    new Update().set("status", IdempotencyRecord.RETRYABLE).unset("lockedUntil"),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            logger.warn("Could not mark Idempotency-Key {} retryable: {}", key, e.getMessage());
+        }
+    }
+
+    private void release(String key) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(key)), IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            logger.warn("Could not release Idempotency-Key {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Transaction replay(IdempotencyRecord record, String fingerprint) {
+        if (!fingerprint.equals(record.getFingerprint())) {
+            throw new IdempotencyKeyMismatchException(record.getId());
+        }
+        logger.info("Duplicate submission for Idempotency-Key {}, returning txnId={}",
+                record.getId(), record.getTransactionId());
+        Transaction txn = isPending(record.getTransaction()) ? refresh(record) : record.getTransaction();
+        if (!isPending(txn)) {
+            idempotencyCache.put(record);
+        }
+        return txn;
+    }
+
+    // ------------------------------------------------------------
+    //   Pending Results
+    // ------------------------------------------------------------
+
+    private static boolean isPending(Transaction txn) {
+        return txn != null && "PENDING".equals(txn.getStatus());
+    }
+
+    // the outcome as it is now; stored on the record once it is final
+    private Transaction refresh(IdempotencyRecord record) {
+
+        Transaction stored = record.getTransaction();
+        Transaction latest = mongoTemplate.findById(stored.getTransactionId(), Transaction.class);
+        if (latest == null) {
+            // a transfer whose debit was rejected on recovery is FAILED in its saga and never recorded
+            TransferSaga saga = mongoTemplate.findById(stored.getTransactionId(), TransferSaga.class);
+            if (saga != null && TransferSaga.FAILED.equals(saga.getState())) {
+                latest = withStatus(stored, "FAILED");
+            }
+        }
+        if (latest == null || isPending(latest)) {
+            return stored;
+        }
+
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(record.getId())),
+                    new Update().set("transaction", latest),
+                    IdempotencyRecord.class);
+        } catch (RuntimeException e) {
+            // the next replay reads it again
+            logger.warn("Could not store settled txnId={} on Idempotency-Key {}: {}",
+                    latest.getTransactionId(), record.getId(), e.getMessage());
+        }
+        record.setTransaction(latest);
+        logger.info("Idempotency-Key {} txnId={} settled as {}", record.getId(), latest.getTransactionId(), latest.getStatus());
+        return latest;
+    }
+
+    private static Transaction withStatus(Transaction txn, String status) {
+        Transaction copy = new Transaction();
+        copy.setId(txn.getId());
+        copy.setTransactionId(txn.getTransactionId());
+        copy.setType(txn.getType());
+        copy.setAmount(txn.getAmount());
+        copy.setStatus(status);
+        copy.setSourceAccount(txn.getSourceAccount());
+        copy.setDestinationAccount(txn.getDestinationAccount());
+        copy.setTimestamp(txn.getTimestamp());
+        return copy;
+    }
+}
@@ -0,0 +1,232 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.NotificationOutbox;
+import com.transactionservice.dto.NotificationRequest;
+import com.transactionservice.feign.NotificationClient;
+
+import feign.FeignException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Drains the notification outbox in batches to POST /api/notifications/bulk.
+ *
+ * Entries are claimed before they are sent, a batch at a time: the ids of up to
+ * batch-size due entries are read, then one updateMulti moves those still due to
+ * IN_FLIGHT with this instance as claimedBy, a lease in claimedUntil and a fresh
+ * claimToken, and the entries carrying that token are read back. The update
+ * re-checks that each entry is due, and each document is updated atomically, so
+ * two instances (or two overlapping runs) never send the same entry at the same
+ * time; an entry another instance claimed in between is simply not in the batch.
+ * The lease is also written to nextAttemptAt, so an entry whose dispatcher died
+ * becomes due again once the lease has run out.
+ *
+ * Entries are removed only after notification-service accepted the whole batch,
+ * so delivery is at-least-once. notification-service drops a notification for a
+ * transaction it delivered recently (a bounded, per-instance window keyed on the
+ * transaction id), which covers the usual duplicate of a batch whose response was
+ * lost; across its restarts a duplicate can still get through. A failed batch is
+ * retried with exponential backoff until max-attempts, after which the entries
+ * are parked as FAILED. A 429 from notification-service is backpressure, not a
+ * failure: the batch waits for its Retry-After and keeps its attempts.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationClient notificationClient;
+
+    @Value("${notification.outbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${notification.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${notification.outbox.backoff-initial-ms:1000}")
+    private long backoffInitialMs = 1000;
+
+    @Value("${notification.outbox.backoff-max-ms:60000}")
+    private long backoffMaxMs = 60000;
+
+    @Value("${notification.outbox.lease-ms:30000}")
+    private long leaseMs = 30000;
+
+    // pid@host, recorded on the entries this instance has claimed
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:500}")
+    public void dispatchPending() {
+        // keep draining while batches come back full
+        while (dispatchBatch() == batchSize) {
+            logger.debug("Outbox batch full, draining next batch");
+        }
+    }
+
+    /**
+     * Sends one batch of due entries and returns how many were delivered.
+     */
+    public int dispatchBatch() {
+
+        List<NotificationOutbox> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<NotificationRequest> payload = new ArrayList<>(batch.size());
+        List<String> ids = new ArrayList<>(batch.size());
+        for (NotificationOutbox entry : batch) {
+            payload.add(new NotificationRequest(entry.getId(), entry.getTransactionId(), entry.getMessage(),
+                    entry.getTraceId()));
+            ids.add(entry.getId());
+        }
+
+        try {
+            notificationClient.sendBulk(payload);
+        } catch (FeignException.TooManyRequests e) {
+            long delayMs = retryAfterMillis(e);
+            logger.info("notification-service is shedding load, {} notifications wait {} ms", batch.size(), delayMs);
+            postpone(batch, delayMs);
+            return 0;
+        } catch (Exception e) {
+            logger.warn("Outbox dispatch of {} notifications failed: {}", batch.size(), e.getMessage());
+            backOff(batch, e.getMessage());
+            return 0;
+        }
+
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(ids).and("claimToken").is(batch.get(0).getClaimToken())),
+                NotificationOutbox.class);
+        logger.debug("Outbox dispatched {} notifications", batch.size());
+        return batch.size();
+    }
+
+    // ------------------------------------------------------------
+    //   Claims
+    // ------------------------------------------------------------
+
+    // up to batch-size due entries, oldest first, moved to IN_FLIGHT under this instance's lease in three round trips
+    private List<NotificationOutbox> claimBatch() {
+
+        Date now = new Date();
+        Date leaseUntil = new Date(now.getTime() + leaseMs);
+
+        Query candidates = new Query(due(now)).with(Sort.by("nextAttemptAt")).limit(batchSize);
+        candidates.fields().include("_id");
+        List<String> ids = new ArrayList<>(batchSize);
+        for (NotificationOutbox entry : mongoTemplate.find(candidates, NotificationOutbox.class)) {
+            ids.add(entry.getId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String claimToken = instanceId + ":" + UUID.randomUUID();
+        Update claim = new Update()
+                .set("status", "IN_FLIGHT")
+                .set("claimedBy", instanceId)
+                .set("claimedUntil", leaseUntil)
+                .set("nextAttemptAt", leaseUntil)
+                .set("claimToken", claimToken);
+        // still due: one claimed by another dispatcher since the read has its lease as nextAttemptAt
+        mongoTemplate.updateMulti(new Query(due(now).and("_id").in(ids)), claim, NotificationOutbox.class);
+
+        return mongoTemplate.find(new Query(Criteria.where("_id").in(ids).and("claimToken").is(claimToken))
+                .with(Sort.by("createdAt")), NotificationOutbox.class);
+    }
+
+    // expired IN_FLIGHT claims are due again, live ones are not (their nextAttemptAt is the lease)
+    private static Criteria due(Date now) {
+        return Criteria.where("status").in("PENDING", "IN_FLIGHT").and("nextAttemptAt").lte(now);
+    }
+
+    // ------------------------------------------------------------
+    //   Retries
+    // ------------------------------------------------------------
+
+    private void backOff(List<NotificationOutbox> batch, String error) {
+
+        Date now = new Date();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutbox.class);
+
+        for (NotificationOutbox entry : batch) {
+            int attempts = entry.getAttempts() + 1;
+            Update update = new Update()
+                    .set("status", "PENDING")
+                    .set("attempts", attempts)
+                    .set("lastError", error)
+                    .unset("claimedBy")
+                    .unset("claimedUntil")
+                    .unset("claimToken");
+
+            if (attempts >= maxAttempts) {
+                logger.error("Notification {} for txnId={} gave up after {} attempts",
+                        entry.getId(), entry.getTransactionId(), attempts);
+                update.set("status", "FAILED");
+            } else {
+                update.set("nextAttemptAt", new Date(now.getTime() + backoffMillis(attempts)));
+            }
+            // an entry whose lease ran out meanwhile belongs to whoever claimed it next
+            ops.updateOne(new Query(Criteria.where("_id").is(entry.getId()).and("claimToken").is(entry.getClaimToken())),
+                    update);
+        }
+
+        ops.execute();
+    }
+
+    // not sent, so not an attempt: due again after the delay notification-service asked for
+    private void postpone(List<NotificationOutbox> batch, long delayMs) {
+        List<String> ids = new ArrayList<>(batch.size());
+        for (NotificationOutbox entry : batch) {
+            ids.add(entry.getId());
+        }
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(ids).and("claimToken").is(batch.get(0).getClaimToken())),
+                new Update()
+                        .set("status", "PENDING")
+                        .set("nextAttemptAt", new Date(System.currentTimeMillis() + delayMs))
+                        .unset("claimedBy")
+                        .unset("claimedUntil")
+                        .unset("claimToken"),
+                NotificationOutbox.class);
+    }
+
+    // Retry-After in seconds, capped like the backoff; the initial backoff without one
+    long retryAfterMillis(FeignException e) {
+        for (Map.Entry<String, Collection<String>> header : e.responseHeaders().entrySet()) {
+            if (HttpHeaders.RETRY_AFTER.equalsIgnoreCase(header.getKey())) {
+                for (String value : header.getValue()) {
+                    if (value.trim().matches("\\d{1,9}")) {
+                        return Math.min(Long.parseLong(value.trim()) * 1000, backoffMaxMs);
+                    }
+                }
+            }
+        }
+        // missing, or an HTTP date, which notification-service does not send
+        return backoffInitialMs;
+    }
+
+    long backoffMillis(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxMs);
+    }
+}
@@ -0,0 +1,117 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.NotificationOutbox;
+import com.transactionservice.document.Transaction;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.bson.Document;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Records notifications for completed transactions in the notification_outbox
+ * collection. Delivery happens later, in batches, from {@link NotificationDispatcher},
+ * so the transaction response never waits on notification-service. Each entry keeps
+ * the current trace id, which travels with the notification so notification-service
+ * can log it under the trace of the transaction rather than of the batch.
+ *
+ * Callers enqueue inside the Mongo transaction that records the transaction
+ * itself (see {@link com.bankingcommon.mongo.MongoTransactions}), so a recorded
+ * transaction always has its notification and vice versa. Entries are upserted
+ * under the transaction id and never overwritten: queueing the same transaction
+ * again, e.g. from a re-driven saga step, is a no-op and does not abort the
+ * surrounding transaction the way a duplicate key error would.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private Tracer tracer;
+
+    public void enqueue(Transaction txn) {
+        NotificationOutbox entry = toEntry(txn, new Date(), currentTraceId());
+        boolean queued = mongoTemplate.upsert(byId(entry), insertOnly(entry), NotificationOutbox.class)
+                .getUpsertedId() != null;
+        if (!queued) {
+            // already queued, e.g. by a saga step that is being re-driven
+            logger.debug("Notification already in outbox for txnId={}", txn.getTransactionId());
+            return;
+        }
+        logger.debug("Notification queued in outbox for txnId={}", txn.getTransactionId());
+    }
+
+    public void enqueueAll(List<Transaction> txns) {
+        if (txns.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        String traceId = currentTraceId();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutbox.class);
+        for (Transaction txn : txns) {
+            NotificationOutbox entry = toEntry(txn, now, traceId);
+            ops.upsert(byId(entry), insertOnly(entry));
+        }
+        ops.execute();
+        logger.debug("Notifications queued in outbox: count={}", txns.size());
+    }
+
+    private static Query byId(NotificationOutbox entry) {
+        return new Query(Criteria.where("_id").is(entry.getId()));
+    }
+
+    // every field only on insert, so an entry that is already queued (or in flight) is left as it is
+    private Update insertOnly(NotificationOutbox entry) {
+        Document fields = new Document();
+        mongoTemplate.getConverter().write(entry, fields);
+        fields.remove("_id");
+        fields.remove("_class");
+        Update update = new Update();
+        fields.forEach(update::setOnInsert);
+        return update;
+    }
+
+    private String currentTraceId() {
+        Span span = tracer.currentSpan();
+        return span == null ? null : span.context().traceId();
+    }
+
+    private NotificationOutbox toEntry(Transaction txn, Date now, String traceId) {
+        NotificationOutbox entry = new NotificationOutbox();
+        entry.setId(txn.getTransactionId()); // one notification per transaction
+        entry.setTransactionId(txn.getTransactionId());
+        entry.setMessage(describe(txn));
+        entry.setStatus("PENDING");
+        entry.setAttempts(0);
+        entry.setNextAttemptAt(now);
+        entry.setCreatedAt(now);
+        entry.setTraceId(traceId);
+        return entry;
+    }
+
+    static String describe(Transaction txn) {
+        return switch (txn.getType()) {
+            case "DEPOSIT" -> "Deposit of " + txn.getAmount() + " successful for account " + txn.getSourceAccount();
+            case "WITHDRAW" -> "Withdraw of " + txn.getAmount() + " successful for account " + txn.getSourceAccount();
+            default -> "Transfer of " + txn.getAmount() + " from " + txn.getSourceAccount()
+                    + " to " + txn.getDestinationAccount() + " successful";
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.TransferSaga;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Batched writer for saga state transitions.
+ *
+ * Transitions are queued and written by a single flusher thread with one unordered
+ * bulk upsert per batch, keeping only the latest state of each saga in the batch.
+ * {@link #append} is write-behind; {@link #appendAndFlush} waits until the batch
+ * holding the transition is persisted (group commit) and is used only where the
+ * engine must not continue before the state is durable.
+ */
+@Component
+public class SagaStateLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SagaStateLog.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${saga.log.max-batch:500}")
+    private int maxBatch = 500;
+
+    @Value("${saga.log.flush-interval-ms:5}")
+    private long flushIntervalMs = 5;
+
+    @Value("${saga.log.flush-timeout-ms:5000}")
+    private long flushTimeoutMs = 5000;
+
+    private final BlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread flusher;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "saga-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Saga state log started: maxBatch={} flushIntervalMs={}", maxBatch, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(flushTimeoutMs);
+        logger.info("Saga state log stopped, unflushed transitions={}", pending.size());
+    }
+
+    /**
+     * Queues the current state of the saga; returns immediately.
+     */
+    public void append(TransferSaga saga) {
+        pending.add(new Entry(saga.getId(), toUpdate(saga), null));
+    }
+
+    /**
+     * Queues the current state of the saga and waits until it is persisted.
+     */
+    public void appendAndFlush(TransferSaga saga) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pending.add(new Entry(saga.getId(), toUpdate(saga), done));
+        try {
+            done.get(flushTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while persisting saga " + saga.getId());
+        } catch (ExecutionException | TimeoutException e) {
+            // not a rejection: the write may still land, so the outcome of the transfer is unknown
+            throw new IllegalStateException("Saga state could not be persisted: " + saga.getId(), e);
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Flushing
+    // ------------------------------------------------------------
+
+    private void flushLoop() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (running || !pending.isEmpty()) {
+            try {
+                Entry first = pending.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void write(List<Entry> batch) {
+
+        // a later transition of the same saga supersedes the earlier ones
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            latest.put(entry.sagaId, entry);
+        }
+
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TransferSaga.class);
+            for (Entry entry : latest.values()) {
+                ops.upsert(new Query(Criteria.where("_id").is(entry.sagaId)), entry.update);
+            }
+            ops.execute();
+            logger.debug("Saga transitions flushed: queued={} written={}", batch.size(), latest.size());
+        } catch (RuntimeException e) {
+            // write-behind transitions are lost; recovery re-drives those sagas from their last persisted state
+            logger.error("Saga state flush of {} transitions failed: {}", batch.size(), e.getMessage());
+            for (Entry entry : batch) {
+                if (entry.done != null) {
+                    entry.done.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+
+        for (Entry entry : batch) {
+            if (entry.done != null) {
+                entry.done.complete(null);
+            }
+        }
+    }
+
+    // the update is built on the caller's thread, so the flusher never reads the mutable saga
+    private static Update toUpdate(TransferSaga saga) {
+        return new Update()
+                .set("sourceAccount", saga.getSourceAccount())
+                .set("destinationAccount", saga.getDestinationAccount())
+                .set("amount", saga.getAmount().toDecimal128())
+                .set("state", saga.getState())
+                .set("failureReason", saga.getFailureReason())
+                .set("lastError", saga.getLastError())
+                .set("attempts", saga.getAttempts())
+                .set("updatedAt", saga.getUpdatedAt())
+                .setOnInsert("createdAt", saga.getCreatedAt());
+    }
+
+    static final class Entry {
+
+        private final String sagaId;
+        private final Update update;
+        private final CompletableFuture<Void> done;
+
+        Entry(String sagaId, Update update, CompletableFuture<Void> done) {
+            this.sagaId = sagaId;
+            this.update = update;
+            this.done = done;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.IdempotencyRecord;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.dto.AdjustmentResult;
+import com.transactionservice.dto.BalanceAdjustment;
+import com.transactionservice.dto.BatchResult;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.AccountLocks;
+import com.transactionservice.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Bulk ingestion of deposit / withdraw / transfer operations.
+ *
+ * Operations are processed in chunks, and within a chunk in request order, so each
+ * account sees its operations in the order they were submitted: a deposit followed
+ * by a withdrawal on the same account behaves as it would as two single calls.
+ * Every account is validated like in the single calls (it must exist and be
+ * ACTIVE) before anything is recorded for it, and balance changes run under the
+ * same account locks.
+ * A run of consecutive deposits and withdrawals is recorded as PENDING transactions
+ * and sent to account-service in one batched call, every entry under its
+ * transaction id as operation id (the same id a single deposit uses), and then
+ * settled in one Mongo transaction together with its outbox notifications.
+ * Transfers run one at a time as sagas through {@link TransferSagaEngine}, under
+ * the account locks, exactly like a single transfer.
+ *
+ * When account-service does not answer, whether an operation was applied is not
+ * known: it is reported PENDING and its transaction stays PENDING until
+ * {@link BatchTransactionRecovery} (or the saga recovery, for a transfer) settles
+ * it under the same operation id. Nothing is refunded on a guess.
+ *
+ * A batch sent with an Idempotency-Key claims it once for the whole request
+ * through {@link IdempotencyService}. Item i then runs under the reserved
+ * transaction id suffixed with i instead of a fresh id, so a retried batch sends
+ * every item under the operation id it had the first time: account-service
+ * de-duplicates what was applied, transactions already recorded are not inserted
+ * again, and a transfer whose saga already exists is reported from it instead of
+ * being started a second time. Once the batch is done its results are stored on
+ * the key and a duplicate gets them back without anything running.
+ */
+@Service
+public class TransactionBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBatchService.class);
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoTransactions mongoTransactions;
+
+    @Autowired
+    private AccountRemoteService accountRemoteService;
+
+    @Autowired
+    private TransferSagaEngine transferSagaEngine;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private AccountLocks accountLocks;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Value("${transaction.batch.chunk-size:500}")
+    private int chunkSize = 500;
+
+    // the results of a keyed batch are stored in one idempotency record, which must stay well below 16 MB
+    @Value("${transaction.batch.idempotency.max-size:50000}")
+    private int maxKeyedSize = 50000;
+
+    // ------------------------------------------------------------
+    //   Batch Processing
+    // ------------------------------------------------------------
+
+    /**
+     * Processes the operations chunk by chunk and hands the per-item results of
+     * each chunk to {@code chunkResults} as soon as the chunk is done.
+     */
+    public void process(List<Map<String, Object>> operations, Consumer<List<BatchResult>> chunkResults) {
+        process(operations, null, chunkResults);
+    }
+
+    /**
+     * Claims the Idempotency-Key of a batch before its response starts streaming,
+     * so a duplicate in progress or a reused key is answered with an error status.
+     * Returns null without a key.
+     */
+    public IdempotencyRecord claim(String idempotencyKey, List<Map<String, Object>> operations) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        if (operations.size() > maxKeyedSize) {
+            throw new TransactionRejectedException("A batch with an Idempotency-Key may hold at most "
+                    + maxKeyedSize + " operations");
+        }
+        return idempotencyService.claimBatch(idempotencyKey, fingerprint(operations));
+    }
+
+    /**
+     * Same as {@link #process(List, Consumer)} under a key claimed with
+     * {@link #claim}: replays the stored results of a completed batch, or runs it
+     * under the key's reserved transaction id and stores the results.
+     */
+    public void process(List<Map<String, Object>> operations, IdempotencyRecord claim,
+                        Consumer<List<BatchResult>> chunkResults) {
+
+        if (claim == null) {
+            run(operations, index -> idGenerator.generateTransactionId(), false, chunkResults);
+            return;
+        }
+        if (IdempotencyRecord.COMPLETED.equals(claim.getStatus())) {
+            chunkResults.accept(claim.getBatchResults() == null ? List.of() : claim.getBatchResults());
+            return;
+        }
+
+        String key = claim.getId();
+        String prefix = claim.getTransactionId();
+        List<BatchResult> all = new ArrayList<>(operations.size());
+        try {
+            run(operations, index -> itemTransactionId(prefix, index), true, results -> {
+                all.addAll(results);
+                idempotencyService.extendLease(key);
+                chunkResults.accept(results);
+            });
+        } catch (RuntimeException e) {
+            // cut off part way (the client went away, say): a retry runs it again under the same ids
+            idempotencyService.markRetryable(key);
+            throw e;
+        }
+        idempotencyService.completeBatch(claim, all);
+    }
+
+    private void run(List<Map<String, Object>> operations, IntFunction<String> transactionIds, boolean reusedIds,
+                     Consumer<List<BatchResult>> chunkResults) {
+
+        logger.info("Initiating batch: size={} chunkSize={}", operations.size(), chunkSize);
+
+        long start = System.nanoTime();
+        int succeeded = 0;
+
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, operations.size());
+            List<BatchItem> items = processChunk(operations.subList(from, to), from, transactionIds, reusedIds);
+
+            List<BatchResult> results = new ArrayList<>(items.size());
+            for (BatchItem item : items) {
+                if (item.error == null && item.status == null) {
+                    succeeded++;
+                }
+                results.add(item.toResult());
+            }
+            chunkResults.accept(results);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Batch processed: size={} succeeded={} elapsedMs={} throughput={} ops/s",
+                operations.size(), succeeded, elapsedMs, operations.size() * 1000L / elapsedMs);
+    }
+
+    private List<BatchItem> processChunk(List<Map<String, Object>> operations, int offset,
+                                         IntFunction<String> transactionIds, boolean reusedIds) {
+
+        List<BatchItem> items = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            items.add(BatchItem.parse(offset + i, operations.get(i)));
+        }
+
+        List<BatchItem> run = new ArrayList<>();
+        for (BatchItem item : items) {
+            if (item.error != null) {
+                continue;
+            }
+            if (!validate(item)) {
+                continue;
+            }
+            item.transactionId = transactionIds.apply(item.index);
+            if ("TRANSFER".equals(item.type)) {
+                // the deposits and withdrawals submitted before it go first
+                applyRun(run, reusedIds);
+                run.clear();
+                transfer(item, reusedIds);
+            } else {
+                run.add(item);
+            }
+        }
+        applyRun(run, reusedIds);
+
+        return items;
+    }
+
+    // the same checks as a single deposit, withdrawal or transfer; the cache makes repeats cheap
+    private boolean validate(BatchItem item) {
+        try {
+            transactionService.requireActiveAccount(item.source);
+            if (item.destination != null) {
+                transactionService.requireActiveAccount(item.destination);
+            }
+            return true;
+        } catch (TransactionException e) {
+            item.error = e.getMessage();
+            return false;
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Deposits and Withdrawals
+    // ------------------------------------------------------------
+
+    private void applyRun(List<BatchItem> run, boolean reusedIds) {
+
+        if (run.isEmpty()) {
+            return;
+        }
+
+        // the intent is durable before any money moves, so an unknown outcome can be settled later
+        Date now = new Date();
+        List<Transaction> pending = new ArrayList<>(run.size());
+        for (BatchItem item : run) {
+            item.txn = item.toTransaction(now);
+            pending.add(item.txn);
+        }
+        try {
+            List<Transaction> unrecorded = reusedIds ? unrecorded(pending) : pending;
+            if (!unrecorded.isEmpty()) {
+                mongoTransactions.execute(() -> transactionRepository.insert(unrecorded));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Batch insert of {} pending transactions failed, nothing applied: {}", run.size(), e.getMessage());
+            for (BatchItem item : run) {
+                item.error = "Transaction could not be recorded, nothing was applied";
+            }
+            return;
+        }
+
+        List<BalanceAdjustment> adjustments = new ArrayList<>(run.size());
+        for (BatchItem item : run) {
+            Money delta = "WITHDRAW".equals(item.type) ? item.amount.negate() : item.amount;
+            adjustments.add(new BalanceAdjustment(item.source, delta, item.transactionId));
+        }
+
+        // held across the call like a single deposit holds its account's, so no other
+        // operation of this instance interleaves with the batch on these accounts
+        String[] accounts = run.stream().map(item -> item.source).distinct().toArray(String[]::new);
+
+        List<AdjustmentResult> results = null;
+        try {
+            results = accountLocks.withLocks(
+                    () -> accountRemoteService.adjustBalancesRemote(adjustments), accounts).getData();
+        } catch (RuntimeException e) {
+            logger.error("Batch balance adjust of {} operations has an unknown outcome, left to recovery: {}",
+                    run.size(), e.getMessage());
+        }
+        if (results == null || results.size() != run.size()) {
+            for (BatchItem item : run) {
+                item.pending("Account Service unavailable, the operation will be settled later");
+            }
+            return;
+        }
+
+        List<Transaction> applied = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        for (int i = 0; i < run.size(); i++) {
+            BatchItem item = run.get(i);
+            String status = String.valueOf(results.get(i).status());
+            switch (status) {
+                case AdjustmentResult.APPLIED -> {
+                    item.txn.setStatus("SUCCESS");
+                    applied.add(item.txn);
+                }
+                case AdjustmentResult.INSUFFICIENT_BALANCE -> item.error = "Insufficient balance in account " + item.source + "!";
+                case AdjustmentResult.NOT_FOUND -> item.error = "Account not found: " + item.source;
+                default -> item.pending("Unexpected adjust status " + status + ", the operation will be settled later");
+            }
+            if (item.error != null) {
+                rejected.add(item.transactionId);
+            }
+        }
+
+        try {
+            mongoTransactions.execute(() -> settle(applied, rejected));
+        } catch (RuntimeException e) {
+            // still PENDING in Mongo: report what is durable, recovery settles them under the same operation ids
+            logger.error("Settling {} batch transactions failed, left to recovery: {}", run.size(), e.getMessage());
+            for (BatchItem item : run) {
+                item.error = null;
+                item.pending("Outcome could not be recorded, the operation will be settled later");
+            }
+        }
+    }
+
+    // a retried keyed batch finds the transactions its earlier attempt recorded; they settle like new ones
+    private List<Transaction> unrecorded(List<Transaction> pending) {
+        List<String> ids = pending.stream().map(Transaction::getId).toList();
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("_id");
+        Set<String> recorded = new HashSet<>();
+        for (Transaction txn : mongoTemplate.find(query, Transaction.class)) {
+            recorded.add(txn.getId());
+        }
+        return recorded.isEmpty() ? pending : pending.stream().filter(txn -> !recorded.contains(txn.getId())).toList();
+    }
+
+    // applied ones become SUCCESS and get their notification, rejected ones never happened
+    private Void settle(List<Transaction> applied, List<String> rejected) {
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+        for (Transaction txn : applied) {
+            ops.updateOne(new Query(Criteria.where("_id").is(txn.getId())), new Update().set("status", "SUCCESS"));
+        }
+        if (!rejected.isEmpty()) {
+            ops.remove(new Query(Criteria.where("_id").in(rejected)));
+        }
+        ops.execute();
+
+        notificationOutboxService.enqueueAll(applied);
+        logger.debug("Batch transactions settled: applied={} rejected={}", applied.size(), rejected.size());
+        return null;
+    }
+
+    // ------------------------------------------------------------
+    //   Transfers
+    // ------------------------------------------------------------
+
+    private void transfer(BatchItem item, boolean reusedIds) {
+        if (reusedIds) {
+            TransferSaga saga = mongoTemplate.findById(item.transactionId, TransferSaga.class);
+            if (saga != null) {
+                // started by an earlier attempt: restarting it could credit again after a compensation
+                resume(item, saga);
+                return;
+            }
+        }
+        try {
+            Transaction txn = accountLocks.withLocks(
+                    () -> transferSagaEngine.start(item.transactionId, item.source, item.destination, item.amount),
+                    item.source, item.destination);
+            item.txn = txn;
+            if ("PENDING".equals(txn.getStatus())) {
+                item.pending("Transfer in progress, it will be completed later");
+            }
+        } catch (TransactionException e) {
+            // rejected, and compensated if the debit had gone through
+            item.error = e.getMessage();
+        } catch (RuntimeException e) {
+            // the saga start could not be confirmed as persisted; if it was, the saga recovery finishes it
+            logger.error("Transfer txnId={} has an unknown outcome: {}", item.transactionId, e.getMessage());
+            item.pending("Transfer outcome unknown, it will be settled later");
+        }
+    }
+
+    private static void resume(BatchItem item, TransferSaga saga) {
+        switch (saga.getState()) {
+            case TransferSaga.COMPLETED -> {
+                // reported as SUCCESS under its transaction id
+            }
+            case TransferSaga.FAILED, TransferSaga.COMPENSATED ->
+                    item.error = saga.getFailureReason() == null ? "Transfer failed" : saga.getFailureReason();
+            default -> item.pending("Transfer in progress, it will be completed later");
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Idempotency-Key
+    // ------------------------------------------------------------
+
+    // fixed width, so the items of a batch sort in request order like generated ids do
+    static String itemTransactionId(String prefix, int index) {
+        return prefix + "-" + String.format("%06d", index);
+    }
+
+    // the operations as submitted; a key reused for a different batch is a mismatch, not a replay
+    static String fingerprint(List<Map<String, Object>> operations) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Map<String, Object> operation : operations) {
+            digest.update(String.valueOf(operation).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return "BATCH|" + operations.size() + "|" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    // ------------------------------------------------------------
+    //   Batch Bookkeeping
+    // ------------------------------------------------------------
+
+    private static final class BatchItem {
+
+        private final int index;
+        private String type;
+        private String source;
+        private String destination;
+        private Money amount;
+        private String transactionId;
+        private Transaction txn;
+        private String error;
+        private String status; // PENDING while the outcome is unknown
+        private String message;
+
+        private BatchItem(int index) {
+            this.index = index;
+        }
+
+        static BatchItem parse(int index, Map<String, Object> op) {
+
+            BatchItem item = new BatchItem(index);
+            try {
+                item.type = required(op, "type").toUpperCase();
+                item.amount = Money.parse(required(op, "amount"));
+
+                switch (item.type) {
+                    case "DEPOSIT", "WITHDRAW" -> item.source = required(op, "accountNumber");
+                    case "TRANSFER" -> {
+                        item.source = required(op, "sourceAccount");
+                        item.destination = required(op, "destinationAccount");
+                        if (item.source.equals(item.destination)) {
+                            item.error = "Source and destination cannot be same!";
+                        }
+                    }
+                    default -> item.error = "Unsupported operation type: " + item.type;
+                }
+
+                if (item.error == null && !item.amount.isPositive()) {
+                    item.error = "Amount must be positive!";
+                }
+            } catch (TransactionException | IllegalArgumentException | ArithmeticException e) {
+                item.error = "Malformed operation: " + e.getMessage();
+            }
+            return item;
+        }
+
+        private static String required(Map<String, Object> op, String field) {
+            Object value = op.get(field);
+            if (value == null) {
+                throw new TransactionException("missing field " + field);
+            }
+            return value.toString();
+        }
+
+        void pending(String message) {
+            this.status = "PENDING";
+            this.message = message;
+        }
+
+        // keyed by the transaction id, like a single deposit or withdrawal
+        Transaction toTransaction(Date now) {
+            Transaction txn = new Transaction();
+            txn.setId(transactionId);
+            txn.setTransactionId(transactionId);
+            txn.setType(type);
+            txn.setAmount(amount);
+            txn.setStatus("PENDING");
+            txn.setSourceAccount(source);
+            txn.setTimestamp(now);
+            return txn;
+        }
+
+        BatchResult toResult() {
+            if (error != null) {
+                return BatchResult.failure(index, "FAILED", error);
+            }
+            if (status != null) {
+                return BatchResult.pending(index, transactionId, message);
+            }
+            return BatchResult.success(index, transactionId);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.Transaction;
+import com.transactionservice.exception.TransactionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Full-history export for audits. Rows come from a Mongo cursor and are written
+ * straight to the output stream one by one, so memory stays flat whatever the
+ * size of the history.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final String CSV_HEADER =
+            "transactionId,type,amount,status,sourceAccount,destinationAccount,timestamp\n";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // documents per getMore round trip of the export cursor
+    @Value("${transaction.export.cursor-batch-size:1000}")
+    private int cursorBatchSize = 1000;
+
+    public static String normaliseFormat(String format) {
+        String normalised = format == null ? NDJSON : format.toLowerCase();
+        if (!NDJSON.equals(normalised) && !CSV.equals(normalised)) {
+            throw new TransactionException("Unsupported export format: " + format);
+        }
+        return normalised;
+    }
+
+    /**
+     * Writes every transaction of the account in [from, to), oldest first, and
+     * returns the number of rows written. The caller owns (and closes) {@code out}.
+     */
+    public long export(String accountNumber, Date from, Date to, String format, OutputStream out) throws IOException {
+
+        logger.info("Exporting history for account={} from={} to={} format={}", accountNumber, from, to, format);
+        long start = System.nanoTime();
+
+        Query query = new Query(new Criteria().orOperator(
+                TransactionService.historyCriteria("sourceAccount", accountNumber, null, from, to),
+                TransactionService.historyCriteria("destinationAccount", accountNumber, null, from, to)))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp", "transactionId"))
+                .cursorBatchSize(cursorBatchSize);
+
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        boolean csv = CSV.equals(format);
+        if (csv) {
+            buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long rows = 0;
+        try (Stream<Transaction> cursor = mongoTemplate.stream(query, Transaction.class)) {
+            Iterator<Transaction> it = cursor.iterator();
+            while (it.hasNext()) {
+                Transaction txn = it.next();
+                if (csv) {
+                    buffered.write(toCsvLine(txn).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    buffered.write(objectMapper.writeValueAsBytes(txn));
+                    buffered.write('\n');
+                }
+                rows++;
+            }
+        }
+        buffered.flush();
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Export finished: account={} rows={} elapsedMs={} throughput={} rows/s",
+                accountNumber, rows, elapsedMs, rows * 1000 / elapsedMs);
+        return rows;
+    }
+
+    static String toCsvLine(Transaction txn) {
+        StringBuilder line = new StringBuilder(128);
+        appendCsv(line, txn.getTransactionId()).append(',');
+        appendCsv(line, txn.getType()).append(',');
+        appendCsv(line, txn.getAmount()).append(',');
+        appendCsv(line, txn.getStatus()).append(',');
+        appendCsv(line, txn.getSourceAccount()).append(',');
+        appendCsv(line, txn.getDestinationAccount()).append(',');
+        appendCsv(line, txn.getTimestamp() == null ? null : txn.getTimestamp().toInstant());
+        return line.append('\n').toString();
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    private static StringBuilder appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return line;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return line.append(text);
+        }
+        return line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -1,21 +1,33 @@
 package com.transactionservice.service;
 
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.cache.AccountSnapshot;
+import com.transactionservice.dto.AccountDto;
 import com.transactionservice.document.Transaction;
 import com.transactionservice.exception.TransactionException;
-import com.transactionservice.feign.AccountClient;
-import com.transactionservice.feign.NotificationClient;
+import com.transactionservice.exception.TransactionRejectedException;
 import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.AccountLocks;
 import com.transactionservice.util.ApiResponse;
 import com.transactionservice.util.IdGenerator;
+import com.transactionservice.util.TransactionPage;
 
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.micrometer.core.annotation.Timed;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Service
@@ -27,83 +39,96 @@ public class TransactionService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private AccountClient accountClient;
+    private AccountRemoteService accountRemoteService;
 
     @Autowired
-    private NotificationClient notificationClient;
+    private NotificationOutboxService notificationOutboxService;
 
-    // ------------------------------------------------------------
-    //   Circuit Breaker Wrapped Remote Calls
-    // ------------------------------------------------------------
+    @Autowired
+    private AccountCache accountCache;
 
-    @CircuitBreaker(name = "accountCB", fallbackMethod = "accountGetFallback")
-    public ApiResponse getAccountRemote(String accountNumber) {
-        logger.debug("Calling AccountService GET /api/accounts/{}", accountNumber);
-        return accountClient.getAccount(accountNumber);
-    }
+    @Autowired
+    private AccountLocks accountLocks;
 
-    public ApiResponse accountGetFallback(String accountNumber, Throwable ex) {
-        logger.error("Fallback triggered for GET account {} - reason: {}", accountNumber, ex.getMessage());
-        throw new TransactionException("Account Service unavailable! Try again later.");
-    }
+    @Autowired
+    private TransferSagaEngine transferSagaEngine;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoTransactions mongoTransactions;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Value("${transaction.history.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    // ------------------------------------------------------------
+    //   Cached Account Validation
+    // ------------------------------------------------------------
 
-    @CircuitBreaker(name = "accountCB", fallbackMethod = "accountUpdateFallback")
-    public ApiResponse updateBalanceRemote(String accountNumber, Map<String, Object> body) {
-        logger.debug("Calling AccountService PUT /api/accounts/{}/balance body={}", accountNumber, body);
-        return accountClient.updateBalance(accountNumber, body);
+    private AccountSnapshot loadAccount(String accountNumber) {
+        ApiResponse<AccountDto> resp = accountRemoteService.getAccountRemote(accountNumber);
+        if (!resp.isSuccess() || resp.getData() == null) {
+            return null;
+        }
+        return AccountSnapshot.from(resp.getData());
     }
 
-    public ApiResponse accountUpdateFallback(String accountNumber, Map<String, Object> body, Throwable ex) {
-        logger.error("Fallback triggered for UPDATE balance account={} - reason={}", accountNumber, ex.getMessage());
-        throw new TransactionException("Account Service unavailable! Try again later.");
+    /**
+     * Rejects an unknown or inactive account before any money moves. Also used by
+     * TransactionBatchService, so a batch accepts exactly what the single calls do.
+     */
+    public void requireActiveAccount(String accountNumber) {
+        AccountSnapshot account = accountCache.get(accountNumber, this::loadAccount);
+        if (account == null) {
+            throw new TransactionRejectedException("Account not found: " + accountNumber);
+        }
+        if (!account.isActive()) {
+            throw new TransactionRejectedException("Account is not active: " + accountNumber);
+        }
     }
 
 
     // ------------------------------------------------------------
     //   Deposit
     // ------------------------------------------------------------
-    public Transaction deposit(String accountNumber, Double amount) {
+    public Transaction deposit(String accountNumber, Money amount) {
+        return deposit(accountNumber, amount, idGenerator.generateTransactionId());
+    }
+
+    /**
+     * Deposit under a caller-chosen transaction id. The id doubles as the operation id
+     * of the balance change, so running it again with the same id moves money once.
+     */
+    @Timed(value = "transaction.operation", extraTags = {"operation", "deposit"}, histogram = true)
+    public Transaction deposit(String accountNumber, Money amount, String transactionId) {
 
-        logger.info("Initiating deposit: account={} amount={}", accountNumber, amount);
+        logger.debug("Initiating deposit: account={} amount={} txnId={}", accountNumber, amount, transactionId);
 
-        if (amount == null || amount <= 0) {
+        if (amount == null || !amount.isPositive()) {
             logger.warn("Invalid deposit amount={} for account={}", amount, accountNumber);
-            throw new TransactionException("Deposit amount must be positive!");
+            throw new TransactionRejectedException("Deposit amount must be positive!");
         }
 
-        ApiResponse accountResp = getAccountRemote(accountNumber);
-        if (!accountResp.isSuccess())
-            throw new TransactionException("Account not found!");
-
-        Map accData = (Map) accountResp.getData();
-        Double oldBalance = Double.valueOf(accData.get("balance").toString());
-
-        Double newBalance = oldBalance + amount;
-        logger.debug("Old balance={} new balance={} for {}", oldBalance, newBalance, accountNumber);
+        requireActiveAccount(accountNumber);
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("balance", newBalance);
-        updateBalanceRemote(accountNumber, body);
+        accountLocks.withLocks(() -> accountRemoteService.adjustBalanceRemote(accountNumber, amount, transactionId), accountNumber);
 
+        // keyed by the transaction id, so recording it again overwrites instead of duplicating
         Transaction txn = new Transaction();
-        txn.setTransactionId(IdGenerator.generateTransactionId());
+        txn.setId(transactionId);
+        txn.setTransactionId(transactionId);
         txn.setType("DEPOSIT");
         txn.setAmount(amount);
         txn.setStatus("SUCCESS");
         txn.setSourceAccount(accountNumber);
         txn.setTimestamp(new Date());
 
-        transactionRepository.save(txn);
-        logger.info("Deposit transaction saved: txnId={} account={}", txn.getTransactionId(), accountNumber);
-
-        Map<String, Object> notify = new HashMap<>();
-        notify.put("message", "Deposit of " + amount + " successful for account " + accountNumber);
-        try {
-            notificationClient.sendNotification(notify);
-            logger.debug("Notification sent for deposit txnId={}", txn.getTransactionId());
-        } catch (Exception e) {
-            logger.error("Notification failed for deposit: {}", e.getMessage());
-        }
+        record(txn);
+        logger.debug("Deposit transaction saved: txnId={} account={}", txn.getTransactionId(), accountNumber);
 
         return txn;
     }
@@ -112,137 +137,188 @@ public class TransactionService {
     // ------------------------------------------------------------
     //   Withdraw
     // ------------------------------------------------------------
-    public Transaction withdraw(String accountNumber, Double amount) {
-
-        logger.info("Initiating withdraw: account={} amount={}", accountNumber, amount);
-
-        if (amount == null || amount <= 0) {
-            logger.warn("Invalid withdraw amount={} for account={}", amount, accountNumber);
-            throw new TransactionException("Withdraw amount must be positive!");
-        }
+    public Transaction withdraw(String accountNumber, Money amount) {
+        return withdraw(accountNumber, amount, idGenerator.generateTransactionId());
+    }
 
-        ApiResponse acc = getAccountRemote(accountNumber);
-        if (!acc.isSuccess())
-            throw new TransactionException("Account not found!");
+    /**
+     * Withdraw under a caller-chosen transaction id, see {@link #deposit(String, Money, String)}.
+     */
+    @Timed(value = "transaction.operation", extraTags = {"operation", "withdraw"}, histogram = true)
+    public Transaction withdraw(String accountNumber, Money amount, String transactionId) {
 
-        Map accData = (Map) acc.getData();
-        Double oldBalance = Double.valueOf(accData.get("balance").toString());
+        logger.debug("Initiating withdraw: account={} amount={} txnId={}", accountNumber, amount, transactionId);
 
-        if (oldBalance < amount) {
-            logger.warn("Insufficient balance={} for withdraw amount={} account={}", oldBalance, amount, accountNumber);
-            throw new TransactionException("Insufficient balance!");
+        if (amount == null || !amount.isPositive()) {
+            logger.warn("Invalid withdraw amount={} for account={}", amount, accountNumber);
+            throw new TransactionRejectedException("Withdraw amount must be positive!");
         }
 
-        Double newBalance = oldBalance - amount;
-        logger.debug("Old balance={} new balance={} for {}", oldBalance, newBalance, accountNumber);
+        requireActiveAccount(accountNumber);
 
-        Map<String, Object> body = new HashMap<>();
-        body.put("balance", newBalance);
-        updateBalanceRemote(accountNumber, body);
+        // account-service rejects the debit atomically if the balance is too low
+        accountLocks.withLocks(() -> accountRemoteService.adjustBalanceRemote(accountNumber, amount.negate(), transactionId), accountNumber);
 
+        // keyed by the transaction id, so recording it again overwrites instead of duplicating
         Transaction txn = new Transaction();
-        txn.setTransactionId(IdGenerator.generateTransactionId());
+        txn.setId(transactionId);
+        txn.setTransactionId(transactionId);
         txn.setType("WITHDRAW");
         txn.setAmount(amount);
         txn.setStatus("SUCCESS");
         txn.setSourceAccount(accountNumber);
         txn.setTimestamp(new Date());
 
-        transactionRepository.save(txn);
-        logger.info("Withdraw transaction saved: txnId={} account={}", txn.getTransactionId(), accountNumber);
-
-        Map<String, Object> notify = new HashMap<>();
-        notify.put("message", "Withdraw of " + amount + " successful for account " + accountNumber);
-        try {
-            notificationClient.sendNotification(notify);
-            logger.debug("Notification sent for withdraw txnId={}", txn.getTransactionId());
-        } catch (Exception e) {
-            logger.error("Notification failed for withdraw: {}", e.getMessage());
-        }
+        record(txn);
+        logger.debug("Withdraw transaction saved: txnId={} account={}", txn.getTransactionId(), accountNumber);
 
         return txn;
     }
 
 
+    // the transaction and its notification are written together or not at all
+    private void record(Transaction txn) {
+        mongoTransactions.execute(() -> {
+            transactionRepository.save(txn);
+            notificationOutboxService.enqueue(txn);
+            return null;
+        });
+    }
+
+
     // ------------------------------------------------------------
     //   Transfer
     // ------------------------------------------------------------
-    public Transaction transfer(String source, String destination, Double amount) {
+    public Transaction transfer(String source, String destination, Money amount) {
+        return transfer(source, destination, amount, idGenerator.generateTransactionId());
+    }
 
-        logger.info("Initiating transfer: source={} destination={} amount={}", source, destination, amount);
+    /**
+     * Transfer under a caller-chosen transaction id, which becomes the saga id.
+     */
+    @Timed(value = "transaction.operation", extraTags = {"operation", "transfer"}, histogram = true)
+    public Transaction transfer(String source, String destination, Money amount, String transactionId) {
+
+        logger.debug("Initiating transfer: source={} destination={} amount={} txnId={}", source, destination, amount, transactionId);
 
         if (source.equals(destination)) {
             logger.warn("Invalid transfer: same source and destination {}", source);
-            throw new TransactionException("Source and destination cannot be same!");
+            throw new TransactionRejectedException("Source and destination cannot be same!");
         }
 
-        if (amount == null || amount <= 0) {
+        if (amount == null || !amount.isPositive()) {
             logger.warn("Invalid transfer amount={} from {}", amount, source);
-            throw new TransactionException("Amount must be positive!");
+            throw new TransactionRejectedException("Amount must be positive!");
         }
 
-        ApiResponse src = getAccountRemote(source);
-        if (!src.isSuccess())
-            throw new TransactionException("Source account not found!");
+        // both ends are validated from the cache before any money moves
+        requireActiveAccount(source);
+        requireActiveAccount(destination);
 
-        Map srcData = (Map) src.getData();
-        Double srcBalance = Double.valueOf(srcData.get("balance").toString());
+        // the saga runs under the stripes of both accounts, so no other operation on
+        // either account can interleave between the debit and the credit / compensation
+        Transaction txn = accountLocks.withLocks(
+                () -> transferSagaEngine.start(transactionId, source, destination, amount), source, destination);
 
-        if (srcBalance < amount) {
-            logger.warn("Insufficient funds: balance={} amount={} for source={}", srcBalance, amount, source);
-            throw new TransactionException("Insufficient funds in source account!");
-        }
+        logger.debug("Transfer processed: txnId={} status={} source={} dest={}",
+                txn.getTransactionId(), txn.getStatus(), source, destination);
 
-        ApiResponse dest = getAccountRemote(destination);
-        if (!dest.isSuccess())
-            throw new TransactionException("Destination account not found!");
+        return txn;
+    }
 
-        Map destData = (Map) dest.getData();
-        Double destBalance = Double.valueOf(destData.get("balance").toString());
 
-        Double newSrcBalance = srcBalance - amount;
-        Double newDestBalance = destBalance + amount;
+    // ------------------------------------------------------------
+    //   Get Transactions
+    // ------------------------------------------------------------
 
-        logger.debug("Updating balances: src={}→{} dest={}→{}", srcBalance, newSrcBalance, destBalance, newDestBalance);
+    /**
+     * One page of an account's history, newest first, optionally filtered by type
+     * and by a [from, to) timestamp range. The cursor is the (timestamp,
+     * transactionId) of the last row of the previous page, so each page is a range
+     * scan on the compound indexes however deep into the history it starts.
+     */
+    @Timed(value = "transaction.operation", extraTags = {"operation", "history"}, histogram = true)
+    public TransactionPage getTransactions(String accountNumber, String type, Date from, Date to,
+                                           String cursor, int limit) {
+
+        logger.debug("Fetching transaction history for account={} type={} from={} to={} cursor={} limit={}",
+                accountNumber, type, from, to, cursor, limit);
+
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        String typeFilter = type == null || type.isBlank() ? null : type.toUpperCase();
+
+        // each $or branch is bound to one index: account side, then a timestamp range
+        List<Criteria> branches = new ArrayList<>();
+        for (String side : List.of("sourceAccount", "destinationAccount")) {
+            Date upper = after != null ? after.timestamp : to;
+            branches.add(historyCriteria(side, accountNumber, typeFilter, from, upper));
+            if (after != null) {
+                // rows sharing the cursor's timestamp, after it in transactionId order
+                branches.add(historyCriteria(side, accountNumber, typeFilter, null, null)
+                        .and("timestamp").is(after.timestamp)
+                        .and("transactionId").lt(after.transactionId));
+            }
+        }
 
-        Map<String, Object> body1 = new HashMap<>();
-        body1.put("balance", newSrcBalance);
-        updateBalanceRemote(source, body1);
+        Query query = new Query(new Criteria().orOperator(branches))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "transactionId"))
+                .limit(pageSize + 1);
 
-        Map<String, Object> body2 = new HashMap<>();
-        body2.put("balance", newDestBalance);
-        updateBalanceRemote(destination, body2);
+        List<Transaction> rows = mongoTemplate.find(query, Transaction.class);
 
-        Transaction txn = new Transaction();
-        txn.setTransactionId(IdGenerator.generateTransactionId());
-        txn.setType("TRANSFER");
-        txn.setAmount(amount);
-        txn.setStatus("SUCCESS");
-        txn.setSourceAccount(source);
-        txn.setDestinationAccount(destination);
-        txn.setTimestamp(new Date());
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = PageCursor.encode(rows.get(pageSize - 1));
+        }
 
-        transactionRepository.save(txn);
-        logger.info("Transfer transaction saved: txnId={} source={} dest={}", txn.getTransactionId(), source, destination);
+        logger.debug("History page for account={}: rows={} hasMore={}", accountNumber, rows.size(), nextCursor != null);
+        return new TransactionPage(rows, nextCursor);
+    }
 
-        Map<String, Object> notify = new HashMap<>();
-        notify.put("message", "Transfer of " + amount + " from " + source + " to " + destination + " successful");
-        try {
-            notificationClient.sendNotification(notify);
-            logger.debug("Notification sent for transfer txnId={}", txn.getTransactionId());
-        } catch (Exception e) {
-            logger.error("Notification failed for transfer: {}", e.getMessage());
+    // also used by TransactionExportService
+    static Criteria historyCriteria(String side, String accountNumber, String type, Date from, Date before) {
+        Criteria criteria = Criteria.where(side).is(accountNumber);
+        if (type != null) {
+            criteria.and("type").is(type);
         }
-
-        return txn;
+        if (from != null && before != null) {
+            criteria.and("timestamp").gte(from).lt(before);
+        } else if (from != null) {
+            criteria.and("timestamp").gte(from);
+        } else if (before != null) {
+            criteria.and("timestamp").lt(before);
+        }
+        return criteria;
     }
 
+    /**
+     * Opaque page cursor: base64url of "timestampMillis:transactionId".
+     */
+    static final class PageCursor {
 
-    // ------------------------------------------------------------
-    //   Get Transactions
-    // ------------------------------------------------------------
-    public List<Transaction> getTransactions(String accountNumber) {
-        logger.info("Fetching transaction history for account={}", accountNumber);
-        return transactionRepository.findBySourceAccountOrDestinationAccount(accountNumber, accountNumber);
+        private final Date timestamp;
+        private final String transactionId;
+
+        private PageCursor(Date timestamp, String transactionId) {
+            this.timestamp = timestamp;
+            this.transactionId = transactionId;
+        }
+
+        static String encode(Transaction last) {
+            String raw = last.getTimestamp().getTime() + ":" + last.getTransactionId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                return new PageCursor(new Date(Long.parseLong(raw.substring(0, sep))), raw.substring(sep + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new TransactionException("Invalid cursor: " + cursor);
+            }
+        }
     }
 }
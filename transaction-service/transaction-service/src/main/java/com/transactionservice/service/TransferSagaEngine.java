@@ -0,0 +1,252 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.exception.TransferFailedException;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.IdGenerator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+/**
+ * Runs a transfer as a saga of debit, credit and record steps, each one logged in
+ * {@link SagaStateLog}. The record step writes the transaction and its outbox entry
+ * in one Mongo transaction. A rejected credit is compensated by refunding the
+ * debit. Every step is idempotent (balance changes carry "sagaId:step" operation
+ * ids, the transaction and outbox entry are keyed by the saga id), so a saga can be
+ * re-driven from any persisted state by {@link TransferSagaRecovery}.
+ *
+ * Callers must hold the account locks of both accounts while a saga runs.
+ */
+@Service
+public class TransferSagaEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferSagaEngine.class);
+
+    private static final String COMPENSATION_REJECTED = "Compensation rejected: ";
+
+    @Autowired
+    private AccountRemoteService accountRemoteService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private NotificationOutboxService notificationOutboxService;
+
+    @Autowired
+    private MongoTransactions mongoTransactions;
+
+    @Autowired
+    private SagaStateLog sagaStateLog;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    /**
+     * Starts a new transfer saga and drives it as far as possible. Returns the
+     * SUCCESS transaction, or a PENDING one when a step has to be retried later by
+     * recovery. Throws {@link TransactionRejectedException} when the debit was
+     * rejected and nothing moved, and {@link TransferFailedException} when the
+     * transfer failed after the debit (compensated, or compensation rejected).
+     */
+    public Transaction start(String source, String destination, Money amount) {
+        return start(idGenerator.generateTransactionId(), source, destination, amount);
+    }
+
+    /**
+     * Same as {@link #start(String, String, Money)} with a caller-chosen transaction
+     * id, which becomes the saga id.
+     */
+    public Transaction start(String transactionId, String source, String destination, Money amount) {
+
+        Date now = new Date();
+        TransferSaga saga = new TransferSaga();
+        saga.setId(transactionId);
+        saga.setSourceAccount(source);
+        saga.setDestinationAccount(destination);
+        saga.setAmount(amount);
+        saga.setState(TransferSaga.STARTED);
+        saga.setCreatedAt(now);
+        saga.setUpdatedAt(now);
+
+        // the intent must be durable before any money moves, or recovery could not finish it
+        sagaStateLog.appendAndFlush(saga);
+
+        run(saga);
+
+        switch (saga.getState()) {
+            case TransferSaga.COMPLETED:
+                return toTransaction(saga, "SUCCESS");
+            case TransferSaga.FAILED:
+            case TransferSaga.COMPENSATED:
+                if (debitRejected(saga)) {
+                    throw new TransactionRejectedException(saga.getFailureReason());
+                }
+                // the source was debited: refunded, or waiting for a manual correction
+                throw new TransferFailedException(saga.getFailureReason(), toTransaction(saga, "FAILED"));
+            default:
+                logger.warn("Transfer saga={} left in state={} for recovery: {}",
+                        saga.getId(), saga.getState(), saga.getLastError());
+                return toTransaction(saga, "PENDING");
+        }
+    }
+
+    /**
+     * Drives the saga from its current state until it is terminal or a step fails
+     * with an unknown outcome, in which case the state is kept for the next attempt.
+     */
+    public TransferSaga run(TransferSaga saga) {
+        while (!saga.isTerminal()) {
+            try {
+                step(saga);
+            } catch (RuntimeException e) {
+                saga.setAttempts(saga.getAttempts() + 1);
+                saga.setLastError(e.getMessage());
+                saga.setUpdatedAt(new Date());
+                sagaStateLog.append(saga);
+                logger.warn("Transfer saga={} step {} failed (attempt {}), will be retried: {}",
+                        saga.getId(), saga.getState(), saga.getAttempts(), e.getMessage());
+                break;
+            }
+        }
+        return saga;
+    }
+
+    private void step(TransferSaga saga) {
+        switch (saga.getState()) {
+            case TransferSaga.STARTED -> debit(saga);
+            case TransferSaga.DEBITED -> credit(saga);
+            case TransferSaga.CREDITED -> {
+                record(toTransaction(saga, "SUCCESS"));
+                complete(saga);
+            }
+            case TransferSaga.COMPENSATING -> compensate(saga);
+            default -> throw new IllegalStateException("Unknown saga state " + saga.getState());
+        }
+    }
+
+    // ------------------------------------------------------------
+    //   Steps
+    // ------------------------------------------------------------
+
+    private void debit(TransferSaga saga) {
+        try {
+            accountRemoteService.adjustBalanceRemote(saga.getSourceAccount(), saga.getAmount().negate(), operationId(saga, "debit"));
+        } catch (AccountServiceUnavailableException e) {
+            throw e;
+        } catch (TransactionException e) {
+            // rejected by account-service, nothing moved
+            saga.setFailureReason(e.getMessage());
+            transitionDurably(saga, TransferSaga.FAILED);
+            return;
+        }
+        transition(saga, TransferSaga.DEBITED);
+    }
+
+    private void credit(TransferSaga saga) {
+        try {
+            accountRemoteService.adjustBalanceRemote(saga.getDestinationAccount(), saga.getAmount(), operationId(saga, "credit"));
+        } catch (AccountServiceUnavailableException e) {
+            throw e;
+        } catch (TransactionException e) {
+            logger.warn("Credit to destination={} rejected, compensating saga={}: {}",
+                    saga.getDestinationAccount(), saga.getId(), e.getMessage());
+            saga.setFailureReason(e.getMessage());
+            // once compensation is decided the credit must never be retried
+            transitionDurably(saga, TransferSaga.COMPENSATING);
+            return;
+        }
+        transition(saga, TransferSaga.CREDITED);
+    }
+
+    // the transaction and its notification are written together or not at all
+    private void record(Transaction txn) {
+        mongoTransactions.execute(() -> {
+            transactionRepository.save(txn);
+            notificationOutboxService.enqueue(txn);
+            return null;
+        });
+    }
+
+    private void complete(TransferSaga saga) {
+        transition(saga, TransferSaga.COMPLETED);
+        logger.info("Transfer saga completed: txnId={} source={} dest={}",
+                saga.getId(), saga.getSourceAccount(), saga.getDestinationAccount());
+    }
+
+    private void compensate(TransferSaga saga) {
+        try {
+            accountRemoteService.adjustBalanceRemote(saga.getSourceAccount(), saga.getAmount(), operationId(saga, "compensate"));
+        } catch (AccountServiceUnavailableException e) {
+            throw e;
+        } catch (TransactionException e) {
+            logger.error("Compensation rejected, manual correction needed: saga={} source={} amount={}: {}",
+                    saga.getId(), saga.getSourceAccount(), saga.getAmount(), e.getMessage());
+            saga.setFailureReason(COMPENSATION_REJECTED + e.getMessage());
+            transitionDurably(saga, TransferSaga.FAILED);
+            return;
+        }
+        transactionRepository.save(toTransaction(saga, "FAILED"));
+        transition(saga, TransferSaga.COMPENSATED);
+    }
+
+    // ------------------------------------------------------------
+    //   Helpers
+    // ------------------------------------------------------------
+
+    private void transition(TransferSaga saga, String state) {
+        saga.setState(state);
+        saga.setUpdatedAt(new Date());
+        sagaStateLog.append(saga);
+    }
+
+    // decisions that must not be re-taken differently by recovery are persisted before moving on
+    private void transitionDurably(TransferSaga saga, String state) {
+        String previous = saga.getState();
+        saga.setState(state);
+        saga.setUpdatedAt(new Date());
+        try {
+            sagaStateLog.appendAndFlush(saga);
+        } catch (RuntimeException e) {
+            // not persisted, so the decision is not taken yet either
+            saga.setState(previous);
+            throw e;
+        }
+    }
+
+    // FAILED straight from STARTED; a saga that failed after the debit went through compensation
+    private static boolean debitRejected(TransferSaga saga) {
+        return TransferSaga.FAILED.equals(saga.getState())
+                && (saga.getFailureReason() == null || !saga.getFailureReason().startsWith(COMPENSATION_REJECTED));
+    }
+
+    private static String operationId(TransferSaga saga, String step) {
+        return saga.getId() + ":" + step;
+    }
+
+    // keyed by the saga id, so recording the same saga twice overwrites instead of duplicating
+    private static Transaction toTransaction(TransferSaga saga, String status) {
+        Transaction txn = new Transaction();
+        txn.setId(saga.getId());
+        txn.setTransactionId(saga.getId());
+        txn.setType("TRANSFER");
+        txn.setAmount(saga.getAmount());
+        txn.setStatus(status);
+        txn.setSourceAccount(saga.getSourceAccount());
+        txn.setDestinationAccount(saga.getDestinationAccount());
+        txn.setTimestamp(saga.getCreatedAt());
+        return txn;
+    }
+}
@@ -0,0 +1,147 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.util.AccountLocks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Resumes transfer sagas that stopped before reaching a terminal state: after a
+ * restart, or when a step failed because account-service or Mongo was unavailable.
+ * Only sagas untouched for {@code saga.recovery.stale-after-ms} are picked up, so
+ * live requests are left alone.
+ *
+ * Every instance runs the recovery, so a saga is claimed before it is re-driven:
+ * a findAndModify sets claimedBy and a lease (claimedUntil) only if no other
+ * instance holds an unexpired one, and an instance runs only the sagas whose claim
+ * it won. The claim is released once the run is over; if the instance dies, the
+ * lease runs out and another one takes the saga over.
+ *
+ * Sagas older than {@code saga.recovery.max-age-hours} are no longer resumed but
+ * reported for manual correction: account-service only remembers applied operation
+ * ids for 7 days, so a later replay could apply a step twice.
+ */
+@Component
+public class TransferSagaRecovery {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferSagaRecovery.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransferSagaEngine transferSagaEngine;
+
+    @Autowired
+    private AccountLocks accountLocks;
+
+    @Value("${saga.recovery.stale-after-ms:30000}")
+    private long staleAfterMs = 30000;
+
+    @Value("${saga.recovery.lease-ms:60000}")
+    private long leaseMs = 60000;
+
+    @Value("${saga.recovery.max-age-hours:72}")
+    private long maxAgeHours = 72;
+
+    @Value("${saga.recovery.batch-size:100}")
+    private int batchSize = 100;
+
+    // pid@host, recorded on the sagas this instance has claimed
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Scheduled(fixedDelayString = "${saga.recovery.interval-ms:10000}")
+    public void recoverStale() {
+        int resumed = recoverBatch();
+        if (resumed > 0) {
+            logger.info("Saga recovery run finished: resumed={}", resumed);
+        }
+        long abandoned = countAbandoned();
+        if (abandoned > 0) {
+            logger.error("{} transfer sagas in flight for more than {}h are no longer resumed, manual correction needed",
+                    abandoned, maxAgeHours);
+        }
+    }
+
+    int recoverBatch() {
+
+        // claimed in this run: a saga that fails again is left to a later run
+        Set<String> claimed = new HashSet<>();
+
+        while (claimed.size() < batchSize) {
+            TransferSaga saga = claimNext(claimed);
+            if (saga == null) {
+                break;
+            }
+            claimed.add(saga.getId());
+            try {
+                TransferSaga result = accountLocks.withLocks(() -> {
+                    // re-read under the locks, a live request may have moved it on in the meantime
+                    TransferSaga current = mongoTemplate.findById(saga.getId(), TransferSaga.class);
+                    return current == null || current.isTerminal() ? current : transferSagaEngine.run(current);
+                }, saga.getSourceAccount(), saga.getDestinationAccount());
+
+                if (result != null) {
+                    logger.info("Recovered transfer saga={} state={} attempts={}",
+                            result.getId(), result.getState(), result.getAttempts());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Recovery of transfer saga={} failed: {}", saga.getId(), e.getMessage());
+            } finally {
+                release(saga.getId());
+            }
+        }
+        return claimed.size();
+    }
+
+    // oldest stale saga that no other instance holds, claimed for this one
+    private TransferSaga claimNext(Set<String> skip) {
+        Date now = new Date();
+        Query query = new Query(Criteria.where("state").in(TransferSaga.IN_FLIGHT)
+                .and("updatedAt").lt(new Date(now.getTime() - staleAfterMs))
+                .and("createdAt").gte(maxAgeCutoff(now))
+                .and("claimedUntil").not().gte(now)
+                .and("_id").nin(skip))
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt"));
+
+        Update claim = new Update()
+                .set("claimedBy", instanceId)
+                .set("claimedUntil", new Date(now.getTime() + leaseMs));
+
+        return mongoTemplate.findAndModify(query, claim, FindAndModifyOptions.options().returnNew(true), TransferSaga.class);
+    }
+
+    private void release(String sagaId) {
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(sagaId).and("claimedBy").is(instanceId)),
+                    new Update().unset("claimedBy").unset("claimedUntil"), TransferSaga.class);
+        } catch (RuntimeException e) {
+            // the lease runs out on its own
+            logger.warn("Could not release claim on transfer saga={}: {}", sagaId, e.getMessage());
+        }
+    }
+
+    private long countAbandoned() {
+        return mongoTemplate.count(new Query(Criteria.where("state").in(TransferSaga.IN_FLIGHT)
+                .and("createdAt").lt(maxAgeCutoff(new Date()))), TransferSaga.class);
+    }
+
+    private Date maxAgeCutoff(Date now) {
+        return new Date(now.getTime() - maxAgeHours * 3600 * 1000);
+    }
+}
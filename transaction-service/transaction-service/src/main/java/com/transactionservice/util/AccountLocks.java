@@ -0,0 +1,76 @@
+package com.transactionservice.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed array of lock stripes keyed by account number. Operations on the same
+ * account are serialized while unrelated accounts proceed in parallel.
+ *
+ * Multi-account operations take their stripes in ascending stripe order (not
+ * account-number order: two accounts may share a stripe), which rules out
+ * lock-order deadlocks. ReentrantLock is used instead of synchronized so
+ * virtual threads are not pinned while a remote call runs under the lock.
+ *
+ * This only orders work inside one transaction-service instance; across
+ * instances the guarded $inc in account-service keeps balances correct.
+ */
+@Component
+public class AccountLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public AccountLocks(@Value("${transaction.lock.stripes:1024}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Runs the action while holding the stripes of all given accounts.
+     */
+    public <T> T withLocks(Supplier<T> action, String... accountNumbers) {
+
+        int[] indexes = new int[accountNumbers.length];
+        for (int i = 0; i < accountNumbers.length; i++) {
+            indexes[i] = stripeOf(accountNumbers[i]);
+        }
+        Arrays.sort(indexes);
+
+        int locked = 0;
+        try {
+            for (int i = 0; i < indexes.length; i++) {
+                if (i > 0 && indexes[i] == indexes[i - 1]) {
+                    continue;
+                }
+                stripes[indexes[i]].lock();
+                locked = i + 1;
+            }
+            return action.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (i > 0 && indexes[i] == indexes[i - 1]) {
+                    continue;
+                }
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    int stripeOf(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+}
@@ -1,10 +1,113 @@
 package com.transactionservice.util;
 
-import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-ordered transaction ids, unique across instances without coordination.
+ *
+ * An id is "TXN-" followed by 16 Crockford base32 characters encoding 80 bits:
+ * [48-bit epoch millis | 10-bit node id | 6-bit stripe | 16-bit sequence]. The
+ * fixed width and the ASCII order of the alphabet make ids sort by creation time,
+ * so new transactions land at the right edge of the transactionId indexes.
+ *
+ * Each thread draws from one of 64 sequence stripes chosen by its thread id, and
+ * the stripe is part of the id, so threads on different stripes never coordinate
+ * and threads sharing a stripe only meet on a CAS. Stripes rather than true
+ * thread-locals keep this safe with virtual threads, of which there can be far
+ * more than any id field could number. A stripe whose sequence runs out within
+ * a millisecond rolls into the next one; a clock moving backwards never makes it
+ * go down.
+ */
+@Component
 public class IdGenerator {
 
-    public static String generateTransactionId() {
-        return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
+
+    public static final String PREFIX = "TXN-";
+
+    static final int NODE_BITS = 10;
+    static final int STRIPE_BITS = 6;
+    static final int SEQUENCE_BITS = 16;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int PADDING = 8; // one stripe per 64-byte cache line
+    private static final int ENCODED_LENGTH = 16;
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long node;
+    private final AtomicLongArray stripes = new AtomicLongArray(STRIPES * PADDING); // millis << SEQUENCE_BITS | sequence
+
+    public IdGenerator(@Value("${transaction.id.node-id:-1}") int nodeId) {
+        if (nodeId < 0) {
+            nodeId = derivedNodeId();
+            logger.warn("transaction.id.node-id not set, using derived node id {}; "
+                    + "configure distinct ids when running several instances", nodeId);
+        }
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("transaction.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId;
+    }
+
+    @SuppressWarnings("deprecation") // Thread.threadId() needs JDK 19
+    public String generateTransactionId() {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        long floor = System.currentTimeMillis() << SEQUENCE_BITS;
+
+        int slot = stripe * PADDING;
+        long prev;
+        long tick;
+        do {
+            prev = stripes.get(slot);
+            tick = Math.max(prev + 1, floor);
+        } while (!stripes.compareAndSet(slot, prev, tick));
+
+        long millis = tick >>> SEQUENCE_BITS;
+        long low = (node << (STRIPE_BITS + SEQUENCE_BITS)) | ((long) stripe << SEQUENCE_BITS) | (tick & SEQUENCE_MASK);
+        return encode(millis, low);
+    }
+
+    // ------------------------------------------------------------
+    //   Helpers
+    // ------------------------------------------------------------
+
+    // 80 bits as 16 base32 characters: the top 50 bits (millis and 2 bits of low) then the remaining 30
+    static String encode(long millis, long low) {
+        char[] out = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+
+        long high = (millis << 2) | (low >>> 30);
+        long rest = low & ((1L << 30) - 1);
+        int end = out.length;
+        for (int i = 0; i < 6; i++) {
+            out[--end] = CROCKFORD[(int) (rest & 31)];
+            rest >>>= 5;
+        }
+        for (int i = 0; i < 10; i++) {
+            out[--end] = CROCKFORD[(int) (high & 31)];
+            high >>>= 5;
+        }
+        return new String(out);
+    }
+
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return Math.floorMod(identity.hashCode(), MAX_NODE_ID + 1);
     }
 }
@@ -0,0 +1,219 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.config.ResilienceConfig;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.feign.AccountClient;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccountRemoteService with its real Feign client and resilience policies against
+ * a stand-in account-service that injects latency. Timings are scaled down from
+ * application.properties (300ms read timeout, 100ms slow-call threshold) so the
+ * test runs in seconds.
+ */
+@SpringBootTest(classes = AccountRemoteServiceFaultInjectionTest.TestApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        properties = {
+                "eureka.client.enabled=false",
+                "spring.cloud.openfeign.client.config.account-service.read-timeout=300",
+                "resilience4j.circuitbreaker.instances.accountCB.sliding-window-type=COUNT_BASED",
+                "resilience4j.circuitbreaker.instances.accountCB.sliding-window-size=10",
+                "resilience4j.circuitbreaker.instances.accountCB.minimum-number-of-calls=5",
+                "resilience4j.circuitbreaker.instances.accountCB.slow-call-duration-threshold=100ms",
+                "resilience4j.circuitbreaker.instances.accountCB.wait-duration-in-open-state=60s",
+                "resilience4j.circuitbreaker.instances.accountCB.automatic-transition-from-open-to-half-open-enabled=false",
+                "resilience4j.bulkhead.instances.accountWrite.max-concurrent-calls=2",
+                "resilience4j.bulkhead.instances.accountWrite.max-wait-duration=0",
+                "resilience4j.retry.instances.accountRead.wait-duration=10ms",
+                "resilience4j.retry.instances.accountRead.enable-randomized-wait=false"
+        })
+class AccountRemoteServiceFaultInjectionTest {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+            MongoRepositoriesAutoConfiguration.class})
+    @EnableFeignClients(clients = AccountClient.class)
+    @Import({AccountRemoteService.class, AccountCache.class, ResilienceConfig.class})
+    static class TestApplication {
+    }
+
+    private static final LatencyInjectingAccountService accountService = startAccountService();
+
+    @Autowired
+    private AccountRemoteService accountRemoteService;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private static LatencyInjectingAccountService startAccountService() {
+        try {
+            return new LatencyInjectingAccountService();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void accountServiceInstance(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.account-service[0].uri", accountService::uri);
+    }
+
+    @AfterAll
+    static void stopAccountService() {
+        accountService.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        accountService.reset();
+        circuitBreakerRegistry.circuitBreaker("accountCB").reset();
+    }
+
+    private double fallbacks(String operation, String cause) {
+        var counter = meterRegistry.find("account.remote.fallbacks")
+                .tags("operation", operation, "cause", cause).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    // ------------------------------------------------------
+    // HEALTHY ACCOUNT-SERVICE
+    // ------------------------------------------------------
+    @Test
+    void testCallsPassThrough() {
+
+        assertTrue(accountRemoteService.getAccountRemote("SAR1234").isSuccess());
+        assertTrue(accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("10.00"), "TXN-1").isSuccess());
+
+        assertEquals(1, accountService.reads.get());
+        assertEquals(1, accountService.writes.get());
+    }
+
+    // ------------------------------------------------------
+    // HUNG ACCOUNT-SERVICE: TIMEOUT, READS RETRIED, WRITES NOT
+    // ------------------------------------------------------
+    @Test
+    void testHungReadTimesOutAndIsRetried() {
+
+        accountService.readDelayMs = 2000;
+        double before = fallbacks("get", "RetryableException");
+
+        long start = System.nanoTime();
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.getAccountRemote("SAR1234"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // three attempts of ~300ms each, not three times the 2s the server would take
+        assertEquals(3, accountService.reads.get());
+        assertTrue(elapsedMs < 1500, "took " + elapsedMs + "ms");
+        assertEquals(before + 1, fallbacks("get", "RetryableException"));
+    }
+
+    @Test
+    void testHungWriteTimesOutWithoutRetry() {
+
+        accountService.writeDelayMs = 2000;
+
+        long start = System.nanoTime();
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("10.00"), "TXN-1"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(1, accountService.writes.get());
+        assertTrue(elapsedMs < 1000, "took " + elapsedMs + "ms");
+    }
+
+    // ------------------------------------------------------
+    // SLOW ACCOUNT-SERVICE: BREAKER OPENS ON SLOW CALLS
+    // ------------------------------------------------------
+    @Test
+    void testSlowCallsOpenTheBreaker() {
+
+        // slower than the slow-call threshold, but well within the timeout: every call succeeds
+        accountService.readDelayMs = 150;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(accountRemoteService.getAccountRemote("SAR1234").isSuccess());
+        }
+
+        CircuitBreaker breaker = circuitBreakerRegistry.circuitBreaker("accountCB");
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tags("name", "accountCB", "state", "open").gauge().value());
+
+        // open: rejected at once, not retried, account-service not called
+        double before = fallbacks("get", "CallNotPermittedException");
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.getAccountRemote("SAR1234"));
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("10.00"), "TXN-1"));
+
+        assertEquals(5, accountService.reads.get());
+        assertEquals(0, accountService.writes.get());
+        assertEquals(before + 1, fallbacks("get", "CallNotPermittedException"));
+    }
+
+    // ------------------------------------------------------
+    // BULKHEADS: SLOW WRITES DO NOT TAKE THE READS DOWN
+    // ------------------------------------------------------
+    @Test
+    void testSaturatedWritesLeaveReadsAvailable() throws Exception {
+
+        accountService.writeDelayMs = 250;
+        CompletableFuture<?> first = CompletableFuture.runAsync(
+                () -> accountRemoteService.adjustBalanceRemote("SAR1", Money.parse("10.00"), "TXN-1"));
+        CompletableFuture<?> second = CompletableFuture.runAsync(
+                () -> accountRemoteService.adjustBalanceRemote("SAR2", Money.parse("10.00"), "TXN-2"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (accountService.writesInFlight.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0.0, meterRegistry.get("resilience4j.bulkhead.available.concurrent.calls")
+                .tag("name", "accountWrite").gauge().value());
+
+        // a third write finds no slot and fails fast, without reaching account-service
+        double before = fallbacks("adjust", "BulkheadFullException");
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.adjustBalanceRemote("SAR3", Money.parse("10.00"), "TXN-3"));
+        assertEquals(before + 1, fallbacks("adjust", "BulkheadFullException"));
+
+        // reads have their own slots
+        assertTrue(accountRemoteService.getAccountRemote("SAR1234").isSuccess());
+
+        first.get(2, TimeUnit.SECONDS);
+        second.get(2, TimeUnit.SECONDS);
+        assertEquals(2, accountService.writes.get());
+        // local rejections say nothing about account-service and are not held against it
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("accountCB").getState());
+    }
+}
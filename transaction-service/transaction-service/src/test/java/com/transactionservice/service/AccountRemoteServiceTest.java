@@ -0,0 +1,132 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.dto.BalanceAdjustRequest;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.feign.AccountClient;
+import com.transactionservice.util.ApiResponse;
+
+import feign.FeignException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountRemoteServiceTest {
+
+    @Mock
+    private AccountClient accountClient;
+
+    @Spy
+    private AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 100, 30);
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AccountRemoteService accountRemoteService;
+
+    private static ApiResponse<AccountDto> account(String accountNumber) {
+        AccountDto data = new AccountDto(accountNumber, "Sarthak Joshi", Money.parse("800.00"), "ACTIVE");
+        return new ApiResponse<>("Balance adjusted", data, true);
+    }
+
+    // ------------------------------------------------------
+    // ADJUST BALANCE
+    // ------------------------------------------------------
+    @Test
+    void testAdjustBalanceSendsOperationId() {
+
+        when(accountClient.adjustBalance(eq("SAR1234"), any(BalanceAdjustRequest.class)))
+                .thenReturn(account("SAR1234"));
+
+        accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("-200.00"), "TXN-1:debit");
+
+        verify(accountClient, times(1)).adjustBalance("SAR1234",
+                new BalanceAdjustRequest(Money.parse("-200.00"), "TXN-1:debit"));
+        verify(accountCache, times(1)).put(any());
+    }
+
+    @Test
+    void testAdjustBalanceConflictIsInsufficientBalance() {
+
+        when(accountClient.adjustBalance(eq("SAR1234"), any(BalanceAdjustRequest.class)))
+                .thenThrow(FeignException.Conflict.class);
+
+        TransactionException ex = assertThrows(TransactionException.class,
+                () -> accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("-200.00"), null));
+        assertEquals("Insufficient balance in account SAR1234!", ex.getMessage());
+    }
+
+    @Test
+    void testAdjustBalanceNotFoundInvalidatesCache() {
+
+        when(accountClient.adjustBalance(eq("SAR1234"), any(BalanceAdjustRequest.class)))
+                .thenThrow(FeignException.NotFound.class);
+
+        assertThrows(TransactionException.class,
+                () -> accountRemoteService.adjustBalanceRemote("SAR1234", Money.parse("100.00"), null));
+        verify(accountCache, times(1)).invalidate("SAR1234");
+    }
+
+    @Test
+    void testGetAccountNotFound() {
+
+        when(accountClient.getAccount("SAR1234"))
+                .thenThrow(FeignException.NotFound.class);
+
+        assertFalse(accountRemoteService.getAccountRemote("SAR1234").isSuccess());
+    }
+
+
+    // ------------------------------------------------------
+    // FALLBACK TESTS
+    // ------------------------------------------------------
+    @Test
+    void testGetAccountFallback() {
+
+        Throwable ex = new RuntimeException("Service down");
+
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.accountGetFallback("ACC1", ex));
+        assertEquals(1, meterRegistry.get("account.remote.fallbacks")
+                .tags("operation", "get", "cause", "RuntimeException").counter().count());
+    }
+
+    @Test
+    void testUpdateBalanceFallback() {
+
+        Throwable ex = new RuntimeException("LB error");
+
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> accountRemoteService.accountUpdateFallback("ACC1", Money.parse("100.00"), "TXN-1", ex));
+        assertEquals(1, meterRegistry.get("account.remote.fallbacks")
+                .tags("operation", "adjust", "cause", "RuntimeException").counter().count());
+    }
+
+    @Test
+    void testUpdateBalanceFallbackKeepsBusinessRejection() {
+
+        TransactionException ex = new TransactionException("Insufficient balance in account ACC1!");
+
+        TransactionException thrown = assertThrows(TransactionException.class,
+                () -> accountRemoteService.accountUpdateFallback("ACC1", Money.parse("-100.00"), "TXN-1", ex));
+        assertSame(ex, thrown);
+        assertNull(meterRegistry.find("account.remote.fallbacks").counter());
+    }
+}
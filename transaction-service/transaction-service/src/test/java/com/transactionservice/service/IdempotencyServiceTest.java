@@ -0,0 +1,339 @@
+package com.transactionservice.service;
+
+import com.transactionservice.cache.IdempotencyCache;
+import com.transactionservice.document.IdempotencyRecord;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.dto.BatchResult;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.IdempotencyConflictException;
+import com.transactionservice.exception.IdempotencyKeyMismatchException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.exception.TransferFailedException;
+import com.transactionservice.util.IdGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.bson.Document;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String FINGERPRINT = "DEPOSIT|SAR1234|100.0";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Spy
+    private IdempotencyCache idempotencyCache = new IdempotencyCache(new SimpleMeterRegistry(), 100, 60);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @InjectMocks
+    private IdempotencyService idempotencyService;
+
+    private static Transaction deposit(String transactionId) {
+        Transaction txn = new Transaction();
+        txn.setTransactionId(transactionId);
+        txn.setType("DEPOSIT");
+        txn.setStatus("SUCCESS");
+        return txn;
+    }
+
+    private static IdempotencyRecord record(String status, String fingerprint) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId("key-1");
+        record.setFingerprint(fingerprint);
+        record.setStatus(status);
+        record.setTransactionId("TXN-ORIGINAL");
+        if (IdempotencyRecord.COMPLETED.equals(status)) {
+            record.setTransaction(deposit("TXN-ORIGINAL"));
+        }
+        return record;
+    }
+
+    private static IdempotencyRecord pendingTransfer() {
+        Transaction txn = new Transaction();
+        txn.setId("TXN-ORIGINAL");
+        txn.setTransactionId("TXN-ORIGINAL");
+        txn.setType("TRANSFER");
+        txn.setStatus("PENDING");
+        IdempotencyRecord record = record(IdempotencyRecord.COMPLETED, FINGERPRINT);
+        record.setTransaction(txn);
+        return record;
+    }
+
+    private void stubExistingKey(IdempotencyRecord existing) {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(IdempotencyRecord.class)))
+                .thenReturn(null);
+        when(mongoTemplate.findById("key-1", IdempotencyRecord.class))
+                .thenReturn(existing);
+    }
+
+    // ------------------------------------------------------
+    // FIRST SUBMISSION
+    // ------------------------------------------------------
+    @Test
+    void testFirstSubmissionRunsAndIsCached() {
+
+        Transaction txn = idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, IdempotencyServiceTest::deposit);
+
+        assertNotNull(txn.getTransactionId());
+        verify(mongoTemplate, times(1)).insert(any(IdempotencyRecord.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+
+        // the duplicate is answered from memory
+        AtomicInteger runs = new AtomicInteger();
+        Transaction replay = idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, id -> {
+            runs.incrementAndGet();
+            return deposit(id);
+        });
+
+        assertEquals(0, runs.get());
+        assertEquals(txn.getTransactionId(), replay.getTransactionId());
+        verifyNoMoreInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testNoKeyJustRuns() {
+
+        Transaction txn = idempotencyService.execute(null, "DEPOSIT", FINGERPRINT, IdempotencyServiceTest::deposit);
+
+        assertNotNull(txn);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    // ------------------------------------------------------
+    // DUPLICATE SUBMISSIONS
+    // ------------------------------------------------------
+    @Test
+    void testCompletedKeyReturnsOriginalWithoutRunning() {
+
+        stubExistingKey(record(IdempotencyRecord.COMPLETED, FINGERPRINT));
+
+        Transaction txn = idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, id -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertEquals("TXN-ORIGINAL", txn.getTransactionId());
+    }
+
+    // ------------------------------------------------------
+    // PENDING TRANSFERS ARE RE-READ ON REPLAY
+    // ------------------------------------------------------
+    @Test
+    void testPendingTransferReplayReturnsSettledOutcome() {
+
+        stubExistingKey(pendingTransfer());
+        Transaction settled = new Transaction();
+        settled.setTransactionId("TXN-ORIGINAL");
+        settled.setStatus("SUCCESS");
+        when(mongoTemplate.findById("TXN-ORIGINAL", Transaction.class)).thenReturn(settled);
+
+        Transaction txn = idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertEquals("SUCCESS", txn.getStatus());
+        // stored and cached: the next replay needs no lookup
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+        assertEquals("SUCCESS", idempotencyCache.get("key-1").getTransaction().getStatus());
+    }
+
+    @Test
+    void testPendingTransferRejectedOnRecoveryReplaysAsFailed() {
+
+        stubExistingKey(pendingTransfer());
+        TransferSaga saga = new TransferSaga();
+        saga.setState(TransferSaga.FAILED);
+        when(mongoTemplate.findById("TXN-ORIGINAL", TransferSaga.class)).thenReturn(saga);
+
+        Transaction txn = idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertEquals("FAILED", txn.getStatus());
+        assertEquals("TXN-ORIGINAL", txn.getTransactionId());
+    }
+
+    @Test
+    void testStillPendingTransferIsNotCached() {
+
+        stubExistingKey(pendingTransfer());
+
+        Transaction txn = idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertEquals("PENDING", txn.getStatus());
+        assertNull(idempotencyCache.get("key-1"));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testKeyInProgressIsConflict() {
+
+        stubExistingKey(record(IdempotencyRecord.IN_PROGRESS, FINGERPRINT));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, IdempotencyServiceTest::deposit));
+    }
+
+    @Test
+    void testKeyReusedWithDifferentRequest() {
+
+        stubExistingKey(record(IdempotencyRecord.COMPLETED, "DEPOSIT|SAR1234|999.0"));
+
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, IdempotencyServiceTest::deposit));
+    }
+
+    @Test
+    void testRetryableKeyReusesTransactionId() {
+
+        when(mongoTemplate.insert(any(IdempotencyRecord.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(IdempotencyRecord.class)))
+                .thenReturn(record(IdempotencyRecord.IN_PROGRESS, FINGERPRINT));
+
+        Transaction txn = idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, IdempotencyServiceTest::deposit);
+
+        assertEquals("TXN-ORIGINAL", txn.getTransactionId());
+    }
+
+    // ------------------------------------------------------
+    // FAILURES
+    // ------------------------------------------------------
+    @Test
+    void testRejectionReleasesKey() {
+
+        assertThrows(TransactionRejectedException.class,
+                () -> idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, id -> {
+                    throw new TransactionRejectedException("Account not found: SAR1234");
+                }));
+
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testRetryAfterFailedCompensationDoesNotRunAgain() {
+
+        Transaction failed = new Transaction();
+        failed.setId("TXN-T");
+        failed.setTransactionId("TXN-T");
+        failed.setType("TRANSFER");
+        failed.setStatus("FAILED");
+        AtomicInteger runs = new AtomicInteger();
+
+        // the source was debited and the refund was rejected: the money is gone until corrected by hand
+        assertThrows(TransferFailedException.class,
+                () -> idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+                    runs.incrementAndGet();
+                    throw new TransferFailedException("Compensation rejected: Account not found: SRC123", failed);
+                }));
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class),
+                argThat((Update update) -> IdempotencyRecord.COMPLETED.equals(update.getUpdateObject()
+                        .get("$set", Document.class).get("status"))),
+                eq(IdempotencyRecord.class));
+
+        // the client retries with the same key: it gets the failed transfer back, no second debit
+        Transaction replayed = idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+            runs.incrementAndGet();
+            return failed;
+        });
+
+        assertEquals(1, runs.get());
+        assertEquals("TXN-T", replayed.getTransactionId());
+        assertEquals("FAILED", replayed.getStatus());
+    }
+
+    @Test
+    void testOtherTransactionFailureKeepsKeyRetryable() {
+
+        assertThrows(TransactionException.class,
+                () -> idempotencyService.execute("key-1", "TRANSFER", FINGERPRINT, id -> {
+                    throw new TransactionException("Unexpected saga outcome");
+                }));
+
+        // not known to have moved nothing, so the key is kept and a retry reuses the transaction id
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testUnknownOutcomeKeepsKeyRetryable() {
+
+        assertThrows(AccountServiceUnavailableException.class,
+                () -> idempotencyService.execute("key-1", "DEPOSIT", FINGERPRINT, id -> {
+                    throw new AccountServiceUnavailableException("Account Service unavailable! Try again later.");
+                }));
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+        assertNull(idempotencyCache.get("key-1"));
+    }
+
+    // ------------------------------------------------------
+    // BATCHES
+    // ------------------------------------------------------
+    @Test
+    void testBatchClaimStoresResultsOnCompletion() {
+
+        IdempotencyRecord claim = idempotencyService.claimBatch("key-1", "BATCH|1|ab12");
+
+        assertEquals(IdempotencyRecord.IN_PROGRESS, claim.getStatus());
+        assertEquals("BATCH", claim.getOperation());
+        assertNotNull(claim.getTransactionId());
+
+        List<BatchResult> results = List.of(BatchResult.success(0, claim.getTransactionId() + "-000000"));
+        idempotencyService.completeBatch(claim, results);
+
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class),
+                argThat((Update update) -> results.equals(update.getUpdateObject()
+                        .get("$set", Document.class).get("batchResults"))),
+                eq(IdempotencyRecord.class));
+        assertNull(idempotencyCache.get("key-1"));
+    }
+
+    @Test
+    void testCompletedBatchKeyIsReturnedForReplay() {
+
+        IdempotencyRecord existing = record(IdempotencyRecord.COMPLETED, "BATCH|1|ab12");
+        existing.setBatchResults(List.of(BatchResult.success(0, "TXN-ORIGINAL-000000")));
+        stubExistingKey(existing);
+
+        IdempotencyRecord claim = idempotencyService.claimBatch("key-1", "BATCH|1|ab12");
+
+        assertSame(existing, claim);
+        assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotencyService.claimBatch("key-1", "BATCH|1|ff00"));
+    }
+}
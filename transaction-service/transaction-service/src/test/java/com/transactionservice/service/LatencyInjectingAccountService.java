@@ -0,0 +1,95 @@
+package com.transactionservice.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for account-service on a random local port, answering GET
+ * /api/accounts/{n} and POST /api/accounts/{n}/balance/adjust with a fixed
+ * account after an injected delay. Reads and writes have their own delay and
+ * call counters, so tests can slow down one side only.
+ */
+class LatencyInjectingAccountService implements AutoCloseable {
+
+    private static final String ACCOUNT = "{\"message\":\"OK\",\"success\":true,\"data\":"
+            + "{\"accountNumber\":\"%s\",\"holderName\":\"Sarthak Joshi\",\"balance\":800.00,\"status\":\"ACTIVE\"}}";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    volatile long readDelayMs;
+    volatile long writeDelayMs;
+
+    final AtomicInteger reads = new AtomicInteger();
+    final AtomicInteger writes = new AtomicInteger();
+    final AtomicInteger writesInFlight = new AtomicInteger();
+
+    LatencyInjectingAccountService() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/accounts/", this::handle);
+        server.start();
+    }
+
+    String uri() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void reset() {
+        readDelayMs = 0;
+        writeDelayMs = 0;
+        reads.set(0);
+        writes.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String accountNumber = path[3];
+        exchange.getRequestBody().readAllBytes();
+
+        if ("GET".equals(exchange.getRequestMethod())) {
+            reads.incrementAndGet();
+            sleep(readDelayMs);
+        } else {
+            writes.incrementAndGet();
+            writesInFlight.incrementAndGet();
+            try {
+                sleep(writeDelayMs);
+            } finally {
+                writesInFlight.decrementAndGet();
+            }
+        }
+
+        byte[] body = String.format(ACCOUNT, accountNumber).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // the caller timed out and closed the connection
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,211 @@
+package com.transactionservice.service;
+
+import com.transactionservice.document.NotificationOutbox;
+import com.transactionservice.feign.NotificationClient;
+import com.transactionservice.util.ApiResponse;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+
+import org.bson.Document;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    @InjectMocks
+    private NotificationDispatcher notificationDispatcher;
+
+    private List<NotificationOutbox> pending;
+
+    @BeforeEach
+    void setup() {
+        pending = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            NotificationOutbox entry = new NotificationOutbox();
+            entry.setId("OUT-" + i);
+            entry.setTransactionId("TXN-" + i);
+            entry.setMessage("Deposit of 10.0 successful for account SAR1234");
+            entry.setStatus("PENDING");
+            entry.setTraceId("trace-" + i);
+            entry.setClaimToken("claim-1");
+            pending.add(entry);
+        }
+    }
+
+    // the due ids first, then the entries read back by their claim token
+    private void stubClaims(List<NotificationOutbox> entries) {
+        when(mongoTemplate.find(any(Query.class), eq(NotificationOutbox.class)))
+                .thenReturn(entries, entries);
+    }
+
+    private static FeignException tooManyRequests(String retryAfter) {
+        Request request = Request.create(Request.HttpMethod.POST, "http://notification-service/api/notifications/bulk",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        Response response = Response.builder()
+                .status(429)
+                .reason("Too Many Requests")
+                .request(request)
+                .headers(Map.of("Retry-After", List.of(retryAfter)))
+                .body(new byte[0])
+                .build();
+        return FeignException.errorStatus("NotificationClient#sendBulk(List)", response);
+    }
+
+    // ------------------------------------------------------
+    // DELIVERED BATCH IS REMOVED FROM THE OUTBOX
+    // ------------------------------------------------------
+    @Test
+    void testDispatchBatchSuccess() {
+
+        stubClaims(pending);
+
+        when(notificationClient.sendBulk(anyList()))
+                .thenReturn(new ApiResponse<>("Notifications received", 2, true));
+
+        int sent = notificationDispatcher.dispatchBatch();
+
+        assertEquals(2, sent);
+        verify(mongoTemplate, times(1)).remove(any(Query.class), eq(NotificationOutbox.class));
+        // each notification keeps the trace of its own transaction
+        verify(notificationClient).sendBulk(argThat(payload ->
+                payload.get(0).traceId().equals("trace-1") && payload.get(1).traceId().equals("trace-2")));
+    }
+
+    // ------------------------------------------------------
+    // FAILED BATCH IS KEPT AND BACKED OFF
+    // ------------------------------------------------------
+    @Test
+    void testDispatchBatchFailureBacksOff() {
+
+        stubClaims(pending);
+
+        when(notificationClient.sendBulk(anyList()))
+                .thenThrow(new RuntimeException("notification-service down"));
+
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationOutbox.class))
+                .thenReturn(bulk);
+
+        int sent = notificationDispatcher.dispatchBatch();
+
+        assertEquals(0, sent);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(NotificationOutbox.class));
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).execute();
+    }
+
+    // ------------------------------------------------------
+    // BACKPRESSURE WAITS FOR RETRY-AFTER, NOT COUNTED AS AN ATTEMPT
+    // ------------------------------------------------------
+    @Test
+    void testTooManyRequestsHonoursRetryAfter() {
+
+        stubClaims(pending);
+        when(notificationClient.sendBulk(anyList())).thenThrow(tooManyRequests("5"));
+
+        long before = System.currentTimeMillis();
+        assertEquals(0, notificationDispatcher.dispatchBatch());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), updates.capture(), eq(NotificationOutbox.class));
+        Document postponed = updates.getAllValues().get(1).getUpdateObject();
+        Document set = postponed.get("$set", Document.class);
+        assertEquals("PENDING", set.get("status"));
+        assertFalse(set.containsKey("attempts"));
+        assertFalse(postponed.containsKey("$inc"));
+        long due = ((Date) set.get("nextAttemptAt")).getTime();
+        assertTrue(due >= before + 5000 && due <= System.currentTimeMillis() + 5000);
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(NotificationOutbox.class));
+    }
+
+    @Test
+    void testRetryAfterMillis() {
+        assertEquals(5000, notificationDispatcher.retryAfterMillis(tooManyRequests("5")));
+        assertEquals(60000, notificationDispatcher.retryAfterMillis(tooManyRequests("3600")));
+        assertEquals(1000, notificationDispatcher.retryAfterMillis(tooManyRequests("Wed, 21 Oct 2026 07:28:00 GMT")));
+    }
+
+    // ------------------------------------------------------
+    // EMPTY OUTBOX
+    // ------------------------------------------------------
+    @Test
+    void testDispatchBatchEmpty() {
+
+        stubClaims(List.of());
+
+        assertEquals(0, notificationDispatcher.dispatchBatch());
+        verifyNoInteractions(notificationClient);
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(NotificationOutbox.class));
+    }
+
+    // ------------------------------------------------------
+    // ENTRIES ARE CLAIMED UNDER A LEASE BEFORE THEY ARE SENT
+    // ------------------------------------------------------
+    @Test
+    void testClaimMarksEntriesInFlight() {
+
+        stubClaims(pending);
+        when(notificationClient.sendBulk(anyList()))
+                .thenReturn(new ApiResponse<>("Notifications received", 2, true));
+
+        notificationDispatcher.dispatchBatch();
+
+        // the whole batch is claimed with one update, not one findAndModify per entry
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateMulti(query.capture(), update.capture(), eq(NotificationOutbox.class));
+
+        // expired IN_FLIGHT claims are due again, live ones are not (their nextAttemptAt is the lease)
+        Document filter = query.getValue().getQueryObject();
+        assertTrue(filter.containsKey("nextAttemptAt"));
+        assertEquals(List.of("OUT-1", "OUT-2"), filter.get("_id", Document.class).get("$in"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("IN_FLIGHT", set.get("status"));
+        assertNotNull(set.get("claimedBy"));
+        assertNotNull(set.get("claimToken"));
+        assertEquals(set.get("claimedUntil"), set.get("nextAttemptAt"));
+
+        // read back by that token, at most batch-size due ids to begin with
+        ArgumentCaptor<Query> reads = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(reads.capture(), eq(NotificationOutbox.class));
+        assertEquals(100, reads.getAllValues().get(0).getLimit());
+        assertEquals(set.get("claimToken"), reads.getAllValues().get(1).getQueryObject().get("claimToken"));
+    }
+
+    // ------------------------------------------------------
+    // BACKOFF IS EXPONENTIAL AND CAPPED
+    // ------------------------------------------------------
+    @Test
+    void testBackoffMillis() {
+        assertEquals(1000, notificationDispatcher.backoffMillis(1));
+        assertEquals(4000, notificationDispatcher.backoffMillis(3));
+        assertEquals(60000, notificationDispatcher.backoffMillis(12));
+    }
+}
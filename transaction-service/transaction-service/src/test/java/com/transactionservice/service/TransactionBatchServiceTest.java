@@ -0,0 +1,401 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.IdempotencyRecord;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.dto.AdjustmentResult;
+import com.transactionservice.dto.BalanceAdjustment;
+import com.transactionservice.dto.BatchResult;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.AccountLocks;
+import com.transactionservice.util.ApiResponse;
+import com.transactionservice.util.IdGenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoTransactions mongoTransactions;
+
+    @Mock
+    private AccountRemoteService accountRemoteService;
+
+    @Mock
+    private TransferSagaEngine transferSagaEngine;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Spy
+    private AccountLocks accountLocks = new AccountLocks(16);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @InjectMocks
+    private TransactionBatchService transactionBatchService;
+
+    private static ApiResponse<List<AdjustmentResult>> statuses(String... statuses) {
+        List<AdjustmentResult> data = new ArrayList<>();
+        for (String status : statuses) {
+            data.add(new AdjustmentResult(null, null, status));
+        }
+        return new ApiResponse<>("Balances adjusted", data, true);
+    }
+
+    private void runTransactionsInline() {
+        when(mongoTransactions.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+    }
+
+    private BulkOperations bulk() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class)).thenReturn(bulk);
+        return bulk;
+    }
+
+    private static Transaction transfer(String status) {
+        Transaction txn = new Transaction();
+        txn.setTransactionId("TXN-T");
+        txn.setType("TRANSFER");
+        txn.setStatus(status);
+        return txn;
+    }
+
+    private List<BatchResult> run(List<Map<String, Object>> operations) {
+        List<BatchResult> results = new ArrayList<>();
+        transactionBatchService.process(operations, results::addAll);
+        return results;
+    }
+
+    private static IdempotencyRecord claim(String status) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId("key-1");
+        record.setStatus(status);
+        record.setTransactionId("TXN-R");
+        return record;
+    }
+
+    private List<BatchResult> run(List<Map<String, Object>> operations, IdempotencyRecord claim) {
+        List<BatchResult> results = new ArrayList<>();
+        transactionBatchService.process(operations, claim, results::addAll);
+        return results;
+    }
+
+    // ------------------------------------------------------
+    // REQUEST ORDER PER ACCOUNT, ONE OPERATION ID PER ITEM
+    // ------------------------------------------------------
+    @Test
+    void testDepositThenWithdrawKeepRequestOrder() {
+
+        runTransactionsInline();
+        BulkOperations bulk = bulk();
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED", "APPLIED"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0),
+                Map.of("type", "WITHDRAW", "accountNumber", "SAR1234", "amount", 150.0)));
+
+        ArgumentCaptor<List<BalanceAdjustment>> legs = ArgumentCaptor.forClass(List.class);
+        verify(accountRemoteService, times(1)).adjustBalancesRemote(legs.capture());
+        assertEquals(2, legs.getValue().size());
+        assertEquals(Money.parse("100.00"), legs.getValue().get(0).delta());
+        assertEquals(Money.parse("-150.00"), legs.getValue().get(1).delta());
+
+        assertEquals("SUCCESS", results.get(0).status());
+        assertEquals("SUCCESS", results.get(1).status());
+        assertEquals(results.get(0).transactionId(), legs.getValue().get(0).operationId());
+        assertEquals(results.get(1).transactionId(), legs.getValue().get(1).operationId());
+
+        // recorded PENDING before the call, SUCCESS after it, notified with the status change
+        ArgumentCaptor<List<Transaction>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).insert(recorded.capture());
+        assertEquals(2, recorded.getValue().size());
+        verify(bulk, times(2)).updateOne(any(Query.class), any(Update.class));
+        verify(notificationOutboxService, times(1)).enqueueAll(recorded.getValue());
+        recorded.getValue().forEach(txn -> assertEquals("SUCCESS", txn.getStatus()));
+    }
+
+    // ------------------------------------------------------
+    // INVALID ITEMS FAIL WITHOUT REMOTE CALLS
+    // ------------------------------------------------------
+    @Test
+    void testInvalidItemsRejectedLocally() {
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", -5.0),
+                Map.of("type", "REFUND", "accountNumber", "SAR1234", "amount", 5.0),
+                Map.of("type", "WITHDRAW", "amount", 5.0)));
+
+        verify(accountRemoteService, never()).adjustBalancesRemote(anyList());
+        verify(transactionRepository, never()).insert(anyList());
+        results.forEach(result -> assertEquals("FAILED", result.status()));
+    }
+
+    // ------------------------------------------------------
+    // INACTIVE ACCOUNTS ARE REJECTED LIKE IN THE SINGLE CALLS
+    // ------------------------------------------------------
+    @Test
+    void testInactiveAccountRejectedBeforeAnyMoneyMoves() {
+
+        runTransactionsInline();
+        bulk();
+        doAnswer(invocation -> {
+            if ("SAR0000".equals(invocation.getArgument(0))) {
+                throw new TransactionException("Account is not active: SAR0000");
+            }
+            return null;
+        }).when(transactionService).requireActiveAccount(anyString());
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR0000", "amount", 100.0),
+                Map.of("type", "WITHDRAW", "accountNumber", "SAR0000", "amount", 50.0),
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 10.0),
+                Map.of("type", "TRANSFER", "sourceAccount", "SAR1234", "destinationAccount", "SAR0000", "amount", 5.0)));
+
+        assertEquals("FAILED", results.get(0).status());
+        assertEquals("Account is not active: SAR0000", results.get(0).message());
+        assertEquals("FAILED", results.get(1).status());
+        assertEquals("SUCCESS", results.get(2).status());
+        assertEquals("FAILED", results.get(3).status());
+
+        // only the active account's deposit is recorded and sent, under its account's lock
+        ArgumentCaptor<List<BalanceAdjustment>> legs = ArgumentCaptor.forClass(List.class);
+        verify(accountRemoteService, times(1)).adjustBalancesRemote(legs.capture());
+        assertEquals(List.of("SAR1234"), legs.getValue().stream().map(BalanceAdjustment::accountNumber).toList());
+        ArgumentCaptor<List<Transaction>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).insert(recorded.capture());
+        assertEquals(1, recorded.getValue().size());
+        verify(accountLocks, times(1)).withLocks(any(), eq("SAR1234"));
+        verifyNoInteractions(transferSagaEngine);
+    }
+
+    // ------------------------------------------------------
+    // REJECTED ITEMS NEVER HAPPENED
+    // ------------------------------------------------------
+    @Test
+    void testRejectedWithdrawalIsRemoved() {
+
+        runTransactionsInline();
+        BulkOperations bulk = bulk();
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED", "INSUFFICIENT_BALANCE"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0),
+                Map.of("type", "WITHDRAW", "accountNumber", "SAR5678", "amount", 900.0)));
+
+        assertEquals("SUCCESS", results.get(0).status());
+        assertEquals("FAILED", results.get(1).status());
+        assertEquals("Insufficient balance in account SAR5678!", results.get(1).message());
+        verify(bulk, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, times(1)).remove(any(Query.class));
+    }
+
+    // ------------------------------------------------------
+    // UNKNOWN OUTCOME IS PENDING, NOT FAILED OR REFUNDED
+    // ------------------------------------------------------
+    @Test
+    void testUnavailableAccountServiceLeavesOperationsPending() {
+
+        runTransactionsInline();
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenThrow(new AccountServiceUnavailableException("Account Service unavailable! Try again later."));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0),
+                Map.of("type", "WITHDRAW", "accountNumber", "SAR1234", "amount", 50.0)));
+
+        results.forEach(result -> {
+            assertEquals("PENDING", result.status());
+            assertNotNull(result.transactionId());
+        });
+        // the PENDING transactions stay for BatchTransactionRecovery; nothing is settled or sent back
+        verify(transactionRepository, times(1)).insert(anyList());
+        verify(accountRemoteService, times(1)).adjustBalancesRemote(anyList());
+        verifyNoInteractions(mongoTemplate);
+        verifyNoInteractions(notificationOutboxService);
+    }
+
+    // ------------------------------------------------------
+    // TRANSFERS RUN AS SAGAS, IN REQUEST ORDER
+    // ------------------------------------------------------
+    @Test
+    void testTransferRunsAsSagaBetweenDeposits() {
+
+        runTransactionsInline();
+        bulk();
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED"));
+        when(transferSagaEngine.start(anyString(), eq("SRC123"), eq("DEST123"), eq(Money.parse("150.00"))))
+                .thenReturn(transfer("SUCCESS"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SRC123", "amount", 100.0),
+                Map.of("type", "TRANSFER", "sourceAccount", "SRC123", "destinationAccount", "DEST123", "amount", 150.0),
+                Map.of("type", "DEPOSIT", "accountNumber", "DEST123", "amount", 10.0)));
+
+        InOrder order = inOrder(accountRemoteService, transferSagaEngine);
+        order.verify(accountRemoteService).adjustBalancesRemote(anyList());
+        order.verify(transferSagaEngine).start(results.get(1).transactionId(), "SRC123", "DEST123", Money.parse("150.00"));
+        order.verify(accountRemoteService).adjustBalancesRemote(anyList());
+
+        verify(accountLocks, times(1)).withLocks(any(), eq("SRC123"), eq("DEST123"));
+        results.forEach(result -> assertEquals("SUCCESS", result.status()));
+    }
+
+    @Test
+    void testTransferOutcomes() {
+
+        when(transferSagaEngine.start(anyString(), anyString(), anyString(), any(Money.class)))
+                .thenReturn(transfer("PENDING"))
+                .thenThrow(new TransactionException("Insufficient balance in account SRC123!"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "TRANSFER", "sourceAccount", "SRC123", "destinationAccount", "DEST123", "amount", 150.0),
+                Map.of("type", "TRANSFER", "sourceAccount", "SRC123", "destinationAccount", "DEST123", "amount", 900.0)));
+
+        // left to the saga recovery, never refunded here
+        assertEquals("PENDING", results.get(0).status());
+        assertNotNull(results.get(0).transactionId());
+        assertEquals("FAILED", results.get(1).status());
+        verify(accountRemoteService, never()).adjustBalancesRemote(anyList());
+    }
+
+    // ------------------------------------------------------
+    // IDEMPOTENCY-KEY
+    // ------------------------------------------------------
+    @Test
+    void testKeyedBatchRunsUnderReservedIdAndStoresResults() {
+
+        runTransactionsInline();
+        bulk();
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED", "APPLIED"));
+        IdempotencyRecord claim = claim(IdempotencyRecord.IN_PROGRESS);
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0),
+                Map.of("type", "WITHDRAW", "accountNumber", "SAR1234", "amount", 50.0)), claim);
+
+        // the same ids on every retry, so account-service de-duplicates what already went through
+        assertEquals("TXN-R-000000", results.get(0).transactionId());
+        assertEquals("TXN-R-000001", results.get(1).transactionId());
+        verify(idempotencyService, times(1)).extendLease("key-1");
+        verify(idempotencyService, times(1)).completeBatch(claim, results);
+        verify(idempotencyService, never()).markRetryable(anyString());
+    }
+
+    @Test
+    void testCompletedKeyReplaysStoredResults() {
+
+        IdempotencyRecord claim = claim(IdempotencyRecord.COMPLETED);
+        claim.setBatchResults(List.of(BatchResult.success(0, "TXN-R-000000")));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0)), claim);
+
+        assertEquals(claim.getBatchResults(), results);
+        verifyNoInteractions(accountRemoteService, transactionRepository, transferSagaEngine);
+        verify(idempotencyService, never()).completeBatch(any(), anyList());
+    }
+
+    @Test
+    void testRetriedBatchSkipsTransactionsAlreadyRecorded() {
+
+        runTransactionsInline();
+        bulk();
+        Transaction recorded = new Transaction();
+        recorded.setId("TXN-R-000000");
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class))).thenReturn(List.of(recorded));
+        when(accountRemoteService.adjustBalancesRemote(anyList()))
+                .thenReturn(statuses("APPLIED", "APPLIED"));
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 100.0),
+                Map.of("type", "DEPOSIT", "accountNumber", "SAR1234", "amount", 10.0)),
+                claim(IdempotencyRecord.IN_PROGRESS));
+
+        ArgumentCaptor<List<Transaction>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(1)).insert(inserted.capture());
+        assertEquals(List.of("TXN-R-000001"), inserted.getValue().stream().map(Transaction::getId).toList());
+        // both are sent again; the first one's operation id was applied before and is not applied twice
+        verify(accountRemoteService, times(1)).adjustBalancesRemote(argThat((List<BalanceAdjustment> legs) -> legs.size() == 2));
+        results.forEach(result -> assertEquals("SUCCESS", result.status()));
+    }
+
+    @Test
+    void testRetriedBatchDoesNotRestartExistingSaga() {
+
+        TransferSaga saga = new TransferSaga();
+        saga.setId("TXN-R-000000");
+        saga.setState(TransferSaga.COMPENSATED);
+        saga.setFailureReason("Account not found: DEST123");
+        when(mongoTemplate.findById("TXN-R-000000", TransferSaga.class)).thenReturn(saga);
+
+        List<BatchResult> results = run(List.of(
+                Map.of("type", "TRANSFER", "sourceAccount", "SRC123", "destinationAccount", "DEST123", "amount", 150.0)),
+                claim(IdempotencyRecord.IN_PROGRESS));
+
+        // a second start would debit again and could now credit too
+        assertEquals("FAILED", results.get(0).status());
+        assertEquals("Account not found: DEST123", results.get(0).message());
+        verifyNoInteractions(transferSagaEngine);
+    }
+
+    @Test
+    void testClientGoneMidBatchLeavesKeyRetryable() {
+
+        when(transferSagaEngine.start(anyString(), anyString(), anyString(), any(Money.class)))
+                .thenReturn(transfer("SUCCESS"));
+
+        assertThrows(IllegalStateException.class, () -> transactionBatchService.process(List.of(
+                        Map.of("type", "TRANSFER", "sourceAccount", "SRC123", "destinationAccount", "DEST123", "amount", 150.0)),
+                claim(IdempotencyRecord.IN_PROGRESS), results -> {
+                    throw new IllegalStateException("Broken pipe");
+                }));
+
+        verify(idempotencyService, times(1)).markRetryable("key-1");
+        verify(idempotencyService, never()).completeBatch(any(), anyList());
+    }
+}
@@ -0,0 +1,101 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.exception.TransactionException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private TransactionExportService transactionExportService;
+
+    private static Transaction row(String transactionId, String source, String destination) {
+        Transaction txn = new Transaction();
+        txn.setTransactionId(transactionId);
+        txn.setType(destination == null ? "DEPOSIT" : "TRANSFER");
+        txn.setAmount(Money.parse("250.00"));
+        txn.setStatus("SUCCESS");
+        txn.setSourceAccount(source);
+        txn.setDestinationAccount(destination);
+        txn.setTimestamp(new Date(0));
+        return txn;
+    }
+
+    // ------------------------------------------------------
+    // NDJSON
+    // ------------------------------------------------------
+    @Test
+    void testExportNdjsonOneLinePerRow() throws Exception {
+
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenReturn(Stream.of(row("TXN-1", "SAR1234", null), row("TXN-2", "SAR1234", "DEST123")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = transactionExportService.export("SAR1234", null, null, TransactionExportService.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        assertEquals("TXN-2", objectMapper.readTree(lines[1]).get("transactionId").asText());
+    }
+
+    // ------------------------------------------------------
+    // CSV
+    // ------------------------------------------------------
+    @Test
+    void testExportCsvWithHeader() throws Exception {
+
+        when(mongoTemplate.stream(any(Query.class), eq(Transaction.class)))
+                .thenReturn(Stream.of(row("TXN-1", "SAR1234", null)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionExportService.export("SAR1234", null, null, TransactionExportService.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("transactionId,type,amount,status,sourceAccount,destinationAccount,timestamp", lines[0]);
+        assertEquals("TXN-1,DEPOSIT,250.00,SUCCESS,SAR1234,,1970-01-01T00:00:00Z", lines[1]);
+    }
+
+    @Test
+    void testCsvQuotesSpecialCharacters() {
+
+        Transaction txn = row("TXN-1", "SAR,1234", "DEST\"1");
+
+        assertEquals("TXN-1,TRANSFER,250.00,SUCCESS,\"SAR,1234\",\"DEST\"\"1\",1970-01-01T00:00:00Z\n",
+                TransactionExportService.toCsvLine(txn));
+    }
+
+    @Test
+    void testUnsupportedFormat() {
+        assertEquals("csv", TransactionExportService.normaliseFormat("CSV"));
+        assertThrows(TransactionException.class, () -> TransactionExportService.normaliseFormat("xml"));
+    }
+}
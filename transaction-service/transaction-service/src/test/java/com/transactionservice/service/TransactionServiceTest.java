@@ -1,22 +1,34 @@
 package com.transactionservice.service;
 
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
 import com.transactionservice.document.Transaction;
+import com.transactionservice.dto.AccountDto;
 import com.transactionservice.exception.TransactionException;
-import com.transactionservice.feign.AccountClient;
-import com.transactionservice.feign.NotificationClient;
 import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.AccountLocks;
 import com.transactionservice.util.ApiResponse;
+import com.transactionservice.util.IdGenerator;
+import com.transactionservice.util.TransactionPage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,23 +40,45 @@ class TransactionServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private AccountClient accountClient;
+    private AccountRemoteService accountRemoteService;
+
+    @Mock
+    private TransferSagaEngine transferSagaEngine;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoTransactions mongoTransactions;
 
     @Mock
-    private NotificationClient notificationClient;
+    private NotificationOutboxService notificationOutboxService;
+
+    @Spy
+    private AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 100, 30);
+
+    @Spy
+    private AccountLocks accountLocks = new AccountLocks(16);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
 
     @InjectMocks
     private TransactionService transactionService;
 
-    private Map<String, Object> accountData;
-    private ApiResponse successAccountResp;
+    private static ApiResponse<AccountDto> account(String accountNumber, String status) {
+        AccountDto data = new AccountDto(accountNumber, "Sarthak Joshi", Money.parse("1000.00"), status);
+        return new ApiResponse<>("Fetched", data, true);
+    }
 
-    @BeforeEach
-    void setup() {
-        accountData = new HashMap<>();
-        accountData.put("balance", 5000.0);
+    private void stubActiveAccount(String accountNumber) {
+        when(accountRemoteService.getAccountRemote(accountNumber))
+                .thenReturn(account(accountNumber, "ACTIVE"));
+    }
 
-        successAccountResp = new ApiResponse("Fetched", accountData, true);
+    private void runTransactionsInline() {
+        when(mongoTransactions.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
     }
 
 
@@ -54,40 +88,88 @@ class TransactionServiceTest {
     @Test
     void testDepositSuccess() {
 
-        when(accountClient.getAccount("SAR1234"))
-                .thenReturn(successAccountResp);
+        stubActiveAccount("SAR1234");
+        runTransactionsInline();
 
-        when(accountClient.updateBalance(eq("SAR1234"), anyMap()))
-                .thenReturn(new ApiResponse("OK", null, true));
+        when(accountRemoteService.adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString()))
+                .thenReturn(account("SAR1234", "ACTIVE"));
 
         Transaction txn = new Transaction();
         txn.setTransactionId("TXN-123");
         when(transactionRepository.save(any(Transaction.class)))
                 .thenReturn(txn);
 
-        Transaction result = transactionService.deposit("SAR1234", 1000.0);
+        Transaction result = transactionService.deposit("SAR1234", Money.parse("1000.00"));
 
         assertNotNull(result);
         assertEquals("DEPOSIT", result.getType());
-        verify(accountClient, times(1)).getAccount("SAR1234");
-        verify(accountClient, times(1)).updateBalance(eq("SAR1234"), anyMap());
+        verify(accountRemoteService, times(1)).adjustBalanceRemote("SAR1234", Money.parse("1000.00"), result.getTransactionId());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(notificationOutboxService, times(1)).enqueue(any(Transaction.class));
+        // both in the same Mongo transaction
+        verify(mongoTransactions, times(1)).execute(any());
+    }
+
+    @Test
+    void testDepositRecordFailureLeavesNoNotification() {
+
+        stubActiveAccount("SAR1234");
+        runTransactionsInline();
+        when(accountRemoteService.adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString()))
+                .thenReturn(account("SAR1234", "ACTIVE"));
+        when(transactionRepository.save(any(Transaction.class)))
+                .thenThrow(new DataAccessResourceFailureException("primary stepped down"));
+
+        assertThrows(RuntimeException.class,
+                () -> transactionService.deposit("SAR1234", Money.parse("1000.00"), "TXN-1"));
+        verify(notificationOutboxService, never()).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void testDepositValidationServedFromCache() {
+
+        stubActiveAccount("SAR1234");
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString()))
+                .thenReturn(account("SAR1234", "ACTIVE"));
+
+        transactionService.deposit("SAR1234", Money.parse("100.00"));
+        transactionService.deposit("SAR1234", Money.parse("200.00"));
+        transactionService.deposit("SAR1234", Money.parse("300.00"));
+
+        // only the first deposit pays for the account lookup
+        verify(accountRemoteService, times(1)).getAccountRemote("SAR1234");
+        verify(accountRemoteService, times(3)).adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString());
     }
 
     @Test
     void testDepositInvalidAmount() {
         assertThrows(TransactionException.class,
-                () -> transactionService.deposit("SAR1234", -10.0));
+                () -> transactionService.deposit("SAR1234", Money.parse("-10.00")));
     }
 
     @Test
     void testDepositAccountNotFound() {
 
-        when(accountClient.getAccount("SAR1234"))
-                .thenReturn(new ApiResponse("Not found", null, false));
+        when(accountRemoteService.getAccountRemote("SAR1234"))
+                .thenReturn(new ApiResponse<>("Account not found", null, false));
 
         assertThrows(TransactionException.class,
-                () -> transactionService.deposit("SAR1234", 1000.0));
+                () -> transactionService.deposit("SAR1234", Money.parse("1000.00")));
+        verify(accountRemoteService, never()).adjustBalanceRemote(anyString(), any(Money.class), anyString());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(notificationOutboxService, never()).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void testDepositInactiveAccount() {
+
+        when(accountRemoteService.getAccountRemote("SAR1234"))
+                .thenReturn(account("SAR1234", "INACTIVE"));
+
+        assertThrows(TransactionException.class,
+                () -> transactionService.deposit("SAR1234", Money.parse("1000.00")));
+        verify(accountRemoteService, never()).adjustBalanceRemote(anyString(), any(Money.class), anyString());
     }
 
 
@@ -97,11 +179,11 @@ class TransactionServiceTest {
     @Test
     void testWithdrawSuccess() {
 
-        when(accountClient.getAccount("SAR1234"))
-                .thenReturn(successAccountResp);
+        stubActiveAccount("SAR1234");
+        runTransactionsInline();
 
-        when(accountClient.updateBalance(eq("SAR1234"), anyMap()))
-                .thenReturn(new ApiResponse("OK", null, true));
+        when(accountRemoteService.adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString()))
+                .thenReturn(account("SAR1234", "ACTIVE"));
 
         Transaction txn = new Transaction();
         txn.setTransactionId("TXN-456");
@@ -109,28 +191,30 @@ class TransactionServiceTest {
         when(transactionRepository.save(any(Transaction.class)))
                 .thenReturn(txn);
 
-        Transaction result = transactionService.withdraw("SAR1234", 2000.0);
+        Transaction result = transactionService.withdraw("SAR1234", Money.parse("2000.00"));
 
         assertEquals("WITHDRAW", result.getType());
+        verify(accountRemoteService, times(1)).adjustBalanceRemote("SAR1234", Money.parse("-2000.00"), result.getTransactionId());
         verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
 
     @Test
     void testWithdrawInvalidAmount() {
         assertThrows(TransactionException.class,
-                () -> transactionService.withdraw("SAR1234", -100.0));
+                () -> transactionService.withdraw("SAR1234", Money.parse("-100.00")));
     }
 
     @Test
     void testWithdrawInsufficientBalance() {
 
-        accountData.put("balance", 100.0);
+        stubActiveAccount("SAR1234");
 
-        when(accountClient.getAccount("SAR1234"))
-                .thenReturn(new ApiResponse("Fetched", accountData, true));
+        when(accountRemoteService.adjustBalanceRemote(eq("SAR1234"), any(Money.class), anyString()))
+                .thenThrow(new TransactionException("Insufficient balance in account SAR1234!"));
 
         assertThrows(TransactionException.class,
-                () -> transactionService.withdraw("SAR1234", 200.0));
+                () -> transactionService.withdraw("SAR1234", Money.parse("200.00")));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
 
@@ -138,91 +222,122 @@ class TransactionServiceTest {
     // TRANSFER TESTS
     // ------------------------------------------------------
     @Test
-    void testTransferSuccess() {
-
-        // Source account
-        Map<String, Object> sData = new HashMap<>();
-        sData.put("balance", 5000.0);
-
-        // Destination
-        Map<String, Object> dData = new HashMap<>();
-        dData.put("balance", 1000.0);
-
-        ApiResponse sResp = new ApiResponse("Fetched", sData, true);
-        ApiResponse dResp = new ApiResponse("Fetched", dData, true);
-
-        when(accountClient.getAccount("SRC123")).thenReturn(sResp);
-        when(accountClient.getAccount("DEST123")).thenReturn(dResp);
+    void testTransferRunsSaga() {
 
-        when(accountClient.updateBalance(eq("SRC123"), anyMap()))
-                .thenReturn(new ApiResponse("OK", null, true));
-
-        when(accountClient.updateBalance(eq("DEST123"), anyMap()))
-                .thenReturn(new ApiResponse("OK", null, true));
+        stubActiveAccount("SRC123");
+        stubActiveAccount("DEST123");
 
         Transaction txn = new Transaction();
         txn.setTransactionId("TXN-789");
-
-        when(transactionRepository.save(any(Transaction.class)))
+        txn.setType("TRANSFER");
+        txn.setStatus("SUCCESS");
+        when(transferSagaEngine.start(anyString(), eq("SRC123"), eq("DEST123"), eq(Money.parse("1000.00"))))
                 .thenReturn(txn);
 
-        Transaction result = transactionService.transfer("SRC123", "DEST123", 1000.0);
+        Transaction result = transactionService.transfer("SRC123", "DEST123", Money.parse("1000.00"));
 
-        assertEquals("TRANSFER", result.getType());
-        assertEquals("SRC123", result.getSourceAccount());
-        assertEquals("DEST123", result.getDestinationAccount());
+        assertEquals("TXN-789", result.getTransactionId());
+        verify(accountLocks, times(1)).withLocks(any(), eq("SRC123"), eq("DEST123"));
     }
 
     @Test
     void testTransferSameSourceDest() {
         assertThrows(TransactionException.class,
-                () -> transactionService.transfer("ACC1", "ACC1", 500.0));
+                () -> transactionService.transfer("ACC1", "ACC1", Money.parse("500.00")));
+        verifyNoInteractions(transferSagaEngine);
+    }
+
+    @Test
+    void testTransferInvalidAmount() {
+        assertThrows(TransactionException.class,
+                () -> transactionService.transfer("SRC123", "DEST123", Money.parse("0.00")));
+        verifyNoInteractions(transferSagaEngine);
     }
 
     @Test
-    void testTransferInsufficientBalance() {
+    void testTransferDestinationNotFound() {
 
-        accountData.put("balance", 300.0);
+        stubActiveAccount("SRC123");
 
-        when(accountClient.getAccount("SRC123"))
-                .thenReturn(new ApiResponse("Fetched", accountData, true));
+        when(accountRemoteService.getAccountRemote("DEST123"))
+                .thenReturn(new ApiResponse<>("Account not found", null, false));
 
         assertThrows(TransactionException.class,
-                () -> transactionService.transfer("SRC123", "DEST1", 1000.0));
+                () -> transactionService.transfer("SRC123", "DEST123", Money.parse("500.00")));
+
+        // rejected during validation, before any saga was started
+        verifyNoInteractions(transferSagaEngine);
     }
 
     @Test
-    void testTransferDestinationNotFound() {
+    void testTransferRejectedBySaga() {
 
-        when(accountClient.getAccount("SRC123"))
-                .thenReturn(successAccountResp);
+        stubActiveAccount("SRC123");
+        stubActiveAccount("DEST123");
 
-        when(accountClient.getAccount("DEST123"))
-                .thenReturn(new ApiResponse("Not found", null, false));
+        when(transferSagaEngine.start(anyString(), eq("SRC123"), eq("DEST123"), eq(Money.parse("1000.00"))))
+                .thenThrow(new TransactionException("Insufficient balance in account SRC123!"));
 
         assertThrows(TransactionException.class,
-                () -> transactionService.transfer("SRC123", "DEST123", 500.0));
+                () -> transactionService.transfer("SRC123", "DEST123", Money.parse("1000.00")));
+        verify(transactionRepository, never()).save(any(Transaction.class));
     }
 
 
     // ------------------------------------------------------
-    // FALLBACK TESTS
+    // HISTORY PAGINATION TESTS
     // ------------------------------------------------------
+    private static Transaction historyRow(String transactionId, long timestamp) {
+        Transaction txn = new Transaction();
+        txn.setTransactionId(transactionId);
+        txn.setType("DEPOSIT");
+        txn.setSourceAccount("SAR1234");
+        txn.setTimestamp(new Date(timestamp));
+        return txn;
+    }
+
     @Test
-    void testGetAccountFallback() {
+    void testGetTransactionsReturnsCursorWhenMoreRows() {
 
-        Throwable ex = new RuntimeException("Service down");
+        Transaction newest = historyRow("TXN-3", 3000);
+        Transaction middle = historyRow("TXN-2", 2000);
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(new ArrayList<>(List.of(newest, middle, historyRow("TXN-1", 1000))));
 
-        assertThrows(TransactionException.class,
-                () -> transactionService.accountGetFallback("ACC1", ex));
+        TransactionPage page = transactionService.getTransactions("SAR1234", null, null, null, null, 2);
+
+        assertEquals(List.of(newest, middle), page.getTransactions());
+        assertEquals(TransactionService.PageCursor.encode(middle), page.getNextCursor());
+
+        // one extra row is fetched to know whether another page exists
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transaction.class));
+        assertEquals(3, query.getValue().getLimit());
     }
 
     @Test
-    void testUpdateBalanceFallback() {
+    void testGetTransactionsLastPageHasNoCursor() {
+
+        String cursor = TransactionService.PageCursor.encode(historyRow("TXN-3", 3000));
+        when(mongoTemplate.find(any(Query.class), eq(Transaction.class)))
+                .thenReturn(new ArrayList<>(List.of(historyRow("TXN-2", 2000))));
+
+        TransactionPage page = transactionService.getTransactions("SAR1234", "deposit", null, null, cursor, 50);
 
-        Throwable ex = new RuntimeException("LB error");
+        assertEquals(1, page.getTransactions().size());
+        assertNull(page.getNextCursor());
 
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Transaction.class));
+        String filter = query.getValue().getQueryObject().toJson();
+        assertTrue(filter.contains("TXN-3"), "keyset condition on the cursor's transactionId");
+        assertTrue(filter.contains("DEPOSIT"), "type filter is normalised");
+    }
+
+    @Test
+    void testGetTransactionsInvalidCursor() {
         assertThrows(TransactionException.class,
-                () -> transactionService.accountUpdateFallback("ACC1", new HashMap<>(), ex));
+                () -> transactionService.getTransactions("SAR1234", null, null, null, "not-a-cursor", 50));
+        verifyNoInteractions(mongoTemplate);
     }
 }
@@ -0,0 +1,124 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.cache.AccountCache;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.support.InMemoryAccountClient;
+import com.transactionservice.util.AccountLocks;
+import com.transactionservice.util.IdGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Hammers TransactionService.transfer from many threads against an in-memory
+ * account-service stand-in and checks that no money is created or destroyed.
+ */
+class TransferConcurrencyStressTest {
+
+    private static final int ACCOUNTS = 50;
+    private static final int TRANSFERS = 100_000;
+    private static final int THREADS = 16;
+    private static final long INITIAL_BALANCE = 100_000; // minor units
+
+    // every credit to this account is rejected, forcing the compensation path
+    private static final String FLAKY = "ACC-FLAKY";
+
+    @Test
+    void testTotalBalanceConservedUnderConcurrentTransfers() throws Exception {
+
+        InMemoryAccountClient accounts = new InMemoryAccountClient(true);
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers.add("ACC-" + i);
+        }
+        accountNumbers.add(FLAKY);
+        accountNumbers.forEach(acc -> accounts.open(acc, INITIAL_BALANCE));
+        accounts.rejectCredits(FLAKY);
+        long expectedTotal = INITIAL_BALANCE * accountNumbers.size();
+
+        AccountCache accountCache = new AccountCache(new SimpleMeterRegistry(), 1000, 60);
+        TransactionRepository transactionRepository = mock(TransactionRepository.class, withSettings().stubOnly());
+        NotificationOutboxService notificationOutboxService = mock(NotificationOutboxService.class, withSettings().stubOnly());
+        MongoTransactions mongoTransactions = mock(MongoTransactions.class, withSettings().stubOnly());
+        when(mongoTransactions.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        AccountRemoteService accountRemoteService = new AccountRemoteService();
+        ReflectionTestUtils.setField(accountRemoteService, "accountClient", accounts);
+        ReflectionTestUtils.setField(accountRemoteService, "accountCache", accountCache);
+
+        TransferSagaEngine transferSagaEngine = new TransferSagaEngine();
+        ReflectionTestUtils.setField(transferSagaEngine, "accountRemoteService", accountRemoteService);
+        ReflectionTestUtils.setField(transferSagaEngine, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transferSagaEngine, "notificationOutboxService", notificationOutboxService);
+        ReflectionTestUtils.setField(transferSagaEngine, "mongoTransactions", mongoTransactions);
+        ReflectionTestUtils.setField(transferSagaEngine, "sagaStateLog",
+                mock(SagaStateLog.class, withSettings().stubOnly()));
+
+        TransactionService transactionService = new TransactionService();
+        ReflectionTestUtils.setField(transactionService, "accountRemoteService", accountRemoteService);
+        ReflectionTestUtils.setField(transactionService, "transferSagaEngine", transferSagaEngine);
+        ReflectionTestUtils.setField(transactionService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transactionService, "notificationOutboxService", notificationOutboxService);
+        ReflectionTestUtils.setField(transactionService, "mongoTransactions", mongoTransactions);
+        ReflectionTestUtils.setField(transactionService, "accountCache", accountCache);
+        ReflectionTestUtils.setField(transactionService, "accountLocks", new AccountLocks(64));
+        ReflectionTestUtils.setField(transactionService, "idGenerator", new IdGenerator(1));
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS / THREADS; i++) {
+                    String source = accountNumbers.get(random.nextInt(accountNumbers.size()));
+                    String destination = accountNumbers.get(random.nextInt(accountNumbers.size()));
+                    if (source.equals(destination)) {
+                        continue;
+                    }
+                    try {
+                        // amounts with cents, which used to drift as doubles
+                        transactionService.transfer(source, destination, Money.ofMinor(1 + random.nextInt(20_000)));
+                        succeeded.incrementAndGet();
+                    } catch (TransactionException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        long total = accounts.balances().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(expectedTotal, total);
+        accounts.balances().forEach((acc, balance) -> assertTrue(balance >= 0, acc + " went negative"));
+
+        assertTrue(accounts.balances().get(FLAKY) <= INITIAL_BALANCE, "flaky account never keeps a credit");
+
+        // the stripes must have kept calls on the same account from overlapping
+        assertEquals(0, accounts.overlaps());
+
+        assertTrue(succeeded.get() > 0);
+        assertTrue(rejected.get() > 0);
+    }
+}
@@ -0,0 +1,207 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.mongo.MongoTransactions;
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.Transaction;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.exception.AccountServiceUnavailableException;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.exception.TransactionRejectedException;
+import com.transactionservice.exception.TransferFailedException;
+import com.transactionservice.repository.TransactionRepository;
+import com.transactionservice.util.ApiResponse;
+import com.transactionservice.util.IdGenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSagaEngineTest {
+
+    @Mock
+    private AccountRemoteService accountRemoteService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private NotificationOutboxService notificationOutboxService;
+
+    @Mock
+    private SagaStateLog sagaStateLog;
+
+    @Mock
+    private MongoTransactions mongoTransactions;
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @InjectMocks
+    private TransferSagaEngine transferSagaEngine;
+
+    private static final ApiResponse<AccountDto> ADJUSTED = new ApiResponse<>("Balance adjusted", null, true);
+
+    private static TransferSaga saga(String state) {
+        TransferSaga saga = new TransferSaga();
+        saga.setId("TXN-SAGA1");
+        saga.setSourceAccount("SRC123");
+        saga.setDestinationAccount("DEST123");
+        saga.setAmount(Money.parse("500.00"));
+        saga.setState(state);
+        saga.setCreatedAt(new Date());
+        saga.setUpdatedAt(new Date());
+        return saga;
+    }
+
+    private void runTransactionsInline() {
+        when(mongoTransactions.execute(any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+    }
+
+    // ------------------------------------------------------
+    // HAPPY PATH
+    // ------------------------------------------------------
+    @Test
+    void testTransferCompletes() {
+
+        runTransactionsInline();
+        when(accountRemoteService.adjustBalanceRemote(anyString(), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED);
+
+        Transaction txn = transferSagaEngine.start("SRC123", "DEST123", Money.parse("500.00"));
+
+        assertEquals("SUCCESS", txn.getStatus());
+        verify(accountRemoteService).adjustBalanceRemote("SRC123", Money.parse("-500.00"), txn.getTransactionId() + ":debit");
+        verify(accountRemoteService).adjustBalanceRemote("DEST123", Money.parse("500.00"), txn.getTransactionId() + ":credit");
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(notificationOutboxService, times(1)).enqueue(any(Transaction.class));
+        // recorded together with its notification
+        verify(mongoTransactions, times(1)).execute(any());
+
+        // only the start is waited for, the three step transitions are write-behind
+        verify(sagaStateLog, times(1)).appendAndFlush(any(TransferSaga.class));
+        verify(sagaStateLog, times(3)).append(any(TransferSaga.class));
+    }
+
+    // ------------------------------------------------------
+    // DEBIT REJECTED
+    // ------------------------------------------------------
+    @Test
+    void testDebitRejectedFailsWithoutCompensation() {
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString()))
+                .thenThrow(new TransactionException("Insufficient balance in account SRC123!"));
+
+        // nothing moved, so the request may be sent again
+        TransactionRejectedException ex = assertThrows(TransactionRejectedException.class,
+                () -> transferSagaEngine.start("SRC123", "DEST123", Money.parse("500.00")));
+
+        assertEquals("Insufficient balance in account SRC123!", ex.getMessage());
+        verify(accountRemoteService, never()).adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(sagaStateLog, times(2)).appendAndFlush(any(TransferSaga.class)); // STARTED, FAILED
+    }
+
+    // ------------------------------------------------------
+    // CREDIT REJECTED IS COMPENSATED
+    // ------------------------------------------------------
+    @Test
+    void testCreditRejectedRefundsDebit() {
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED);
+        when(accountRemoteService.adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString()))
+                .thenThrow(new TransactionException("Account not found: DEST123"));
+
+        TransferFailedException ex = assertThrows(TransferFailedException.class,
+                () -> transferSagaEngine.start("SRC123", "DEST123", Money.parse("500.00")));
+        assertEquals("FAILED", ex.getTransaction().getStatus());
+
+        verify(accountRemoteService).adjustBalanceRemote(eq("SRC123"), eq(Money.parse("500.00")), endsWith(":compensate"));
+
+        ArgumentCaptor<Transaction> recorded = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository, times(1)).save(recorded.capture());
+        assertEquals("FAILED", recorded.getValue().getStatus());
+        verify(notificationOutboxService, never()).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void testCompensationRejectedIsNotARejection() {
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED)
+                .thenThrow(new TransactionException("Account not found: SRC123"));
+        when(accountRemoteService.adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString()))
+                .thenThrow(new TransactionException("Account not found: DEST123"));
+
+        // the debit stays applied, so the caller must not treat this as "nothing happened"
+        TransferFailedException ex = assertThrows(TransferFailedException.class,
+                () -> transferSagaEngine.start("SRC123", "DEST123", Money.parse("500.00")));
+
+        assertTrue(ex.getMessage().startsWith("Compensation rejected"));
+        assertEquals("FAILED", ex.getTransaction().getStatus());
+    }
+
+    // ------------------------------------------------------
+    // UNKNOWN OUTCOME IS LEFT FOR RECOVERY
+    // ------------------------------------------------------
+    @Test
+    void testCreditUnavailableLeavesSagaPending() {
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED);
+        when(accountRemoteService.adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString()))
+                .thenThrow(new AccountServiceUnavailableException("Account Service unavailable! Try again later."));
+
+        Transaction txn = transferSagaEngine.start("SRC123", "DEST123", Money.parse("500.00"));
+
+        assertEquals("PENDING", txn.getStatus());
+        // neither refunded nor recorded, recovery retries the credit
+        verify(accountRemoteService, never()).adjustBalanceRemote(eq("SRC123"), eq(Money.parse("500.00")), anyString());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    // ------------------------------------------------------
+    // RECOVERY RESUMES FROM THE PERSISTED STATE
+    // ------------------------------------------------------
+    @Test
+    void testRunResumesFromDebited() {
+
+        runTransactionsInline();
+        when(accountRemoteService.adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED);
+
+        TransferSaga saga = transferSagaEngine.run(saga(TransferSaga.DEBITED));
+
+        assertEquals(TransferSaga.COMPLETED, saga.getState());
+        verify(accountRemoteService, never()).adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString());
+        verify(accountRemoteService).adjustBalanceRemote("DEST123", Money.parse("500.00"), "TXN-SAGA1:credit");
+        verify(notificationOutboxService, times(1)).enqueue(any(Transaction.class));
+    }
+
+    @Test
+    void testRunResumesCompensation() {
+
+        when(accountRemoteService.adjustBalanceRemote(eq("SRC123"), any(Money.class), anyString()))
+                .thenReturn(ADJUSTED);
+
+        TransferSaga saga = transferSagaEngine.run(saga(TransferSaga.COMPENSATING));
+
+        assertEquals(TransferSaga.COMPENSATED, saga.getState());
+        verify(accountRemoteService).adjustBalanceRemote("SRC123", Money.parse("500.00"), "TXN-SAGA1:compensate");
+        verify(accountRemoteService, never()).adjustBalanceRemote(eq("DEST123"), any(Money.class), anyString());
+    }
+}
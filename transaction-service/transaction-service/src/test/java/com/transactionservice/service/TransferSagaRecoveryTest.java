@@ -0,0 +1,116 @@
+package com.transactionservice.service;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.document.TransferSaga;
+import com.transactionservice.util.AccountLocks;
+
+import org.bson.Document;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSagaRecoveryTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransferSagaEngine transferSagaEngine;
+
+    @Spy
+    private AccountLocks accountLocks = new AccountLocks(16);
+
+    @InjectMocks
+    private TransferSagaRecovery transferSagaRecovery;
+
+    private static TransferSaga saga(String id, String state) {
+        TransferSaga saga = new TransferSaga();
+        saga.setId(id);
+        saga.setSourceAccount("SRC123");
+        saga.setDestinationAccount("DEST123");
+        saga.setAmount(Money.parse("500.00"));
+        saga.setState(state);
+        saga.setCreatedAt(new Date());
+        saga.setUpdatedAt(new Date());
+        return saga;
+    }
+
+    // ------------------------------------------------------
+    // ONLY CLAIMED SAGAS ARE RE-DRIVEN
+    // ------------------------------------------------------
+    @Test
+    void testRunsClaimedSagasAndReleasesThem() {
+
+        TransferSaga first = saga("TXN-1", TransferSaga.DEBITED);
+        TransferSaga second = saga("TXN-2", TransferSaga.COMPENSATING);
+
+        // the third claim finds nothing left, e.g. the rest is held by other instances
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(TransferSaga.class)))
+                .thenReturn(first, second, null);
+        when(mongoTemplate.findById("TXN-1", TransferSaga.class)).thenReturn(first);
+        when(mongoTemplate.findById("TXN-2", TransferSaga.class)).thenReturn(second);
+        when(transferSagaEngine.run(any(TransferSaga.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(2, transferSagaRecovery.recoverBatch());
+
+        verify(transferSagaEngine).run(first);
+        verify(transferSagaEngine).run(second);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(TransferSaga.class));
+    }
+
+    @Test
+    void testClaimSkipsLiveLeasesAndSetsOwner() {
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(TransferSaga.class)))
+                .thenReturn(null);
+
+        assertEquals(0, transferSagaRecovery.recoverBatch());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(TransferSaga.class));
+
+        assertTrue(query.getValue().getQueryObject().containsKey("claimedUntil"));
+        assertTrue(query.getValue().getQueryObject().containsKey("createdAt"));
+        assertTrue(update.getValue().getUpdateObject().get("$set", Document.class).containsKey("claimedBy"));
+        verifyNoInteractions(transferSagaEngine);
+    }
+
+    // ------------------------------------------------------
+    // FINISHED IN THE MEANTIME
+    // ------------------------------------------------------
+    @Test
+    void testSagaFinishedByLiveRequestIsNotRunAgain() {
+
+        TransferSaga claimed = saga("TXN-1", TransferSaga.DEBITED);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(TransferSaga.class)))
+                .thenReturn(claimed, (TransferSaga) null);
+        when(mongoTemplate.findById("TXN-1", TransferSaga.class)).thenReturn(saga("TXN-1", TransferSaga.COMPLETED));
+
+        transferSagaRecovery.recoverBatch();
+
+        verifyNoInteractions(transferSagaEngine);
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(TransferSaga.class));
+    }
+}
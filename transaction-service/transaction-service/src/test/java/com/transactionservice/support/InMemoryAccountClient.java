@@ -0,0 +1,142 @@
+package com.transactionservice.support;
+
+import com.bankingcommon.util.Money;
+import com.transactionservice.dto.AccountDto;
+import com.transactionservice.dto.AdjustmentResult;
+import com.transactionservice.dto.BalanceAdjustRequest;
+import com.transactionservice.dto.BalanceAdjustment;
+import com.transactionservice.exception.TransactionException;
+import com.transactionservice.feign.AccountClient;
+import com.transactionservice.util.ApiResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * account-service stand-in with the same guarded, atomic delta semantics: a
+ * change that would take a balance below zero or hits an unknown account is
+ * rejected and leaves the balance as it was. The batch call applies its items in
+ * order, each on its own, and reports APPLIED, INSUFFICIENT_BALANCE or NOT_FOUND
+ * per item, like AccountService.adjustBalances.
+ *
+ * Shared by the transaction-service tests and banking-benchmarks (test-jar).
+ * With trackOverlaps it also counts balance changes that ran at the same time on
+ * the same account, to check the callers' per-account locking.
+ */
+public class InMemoryAccountClient implements AccountClient {
+
+    private final ConcurrentHashMap<String, Long> balances = new ConcurrentHashMap<>();
+    private final Set<String> rejectingCredits = ConcurrentHashMap.newKeySet();
+
+    private final boolean trackOverlaps;
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger overlaps = new AtomicInteger();
+
+    public InMemoryAccountClient() {
+        this(false);
+    }
+
+    public InMemoryAccountClient(boolean trackOverlaps) {
+        this.trackOverlaps = trackOverlaps;
+    }
+
+    public void open(String accountNumber, long balanceMinor) {
+        balances.put(accountNumber, balanceMinor);
+    }
+
+    /** Every credit to this account is answered as if it did not exist, e.g. to force a compensation. */
+    public void rejectCredits(String accountNumber) {
+        rejectingCredits.add(accountNumber);
+    }
+
+    public Map<String, Long> balances() {
+        return Collections.unmodifiableMap(balances);
+    }
+
+    public int overlaps() {
+        return overlaps.get();
+    }
+
+    // ------------------------------------------------------------
+    //   AccountClient
+    // ------------------------------------------------------------
+
+    @Override
+    public ApiResponse<AccountDto> adjustBalance(String accountNumber, BalanceAdjustRequest body) {
+        long updated = apply(accountNumber, body.delta().minorUnits());
+        AccountDto data = new AccountDto(accountNumber, null, Money.ofMinor(updated), "ACTIVE");
+        return new ApiResponse<>("Balance adjusted", data, true);
+    }
+
+    @Override
+    public ApiResponse<List<AdjustmentResult>> adjustBalances(List<BalanceAdjustment> adjustments) {
+        List<AdjustmentResult> results = new ArrayList<>(adjustments.size());
+        for (BalanceAdjustment adjustment : adjustments) {
+            String status;
+            try {
+                apply(adjustment.accountNumber(), adjustment.delta().minorUnits());
+                status = AdjustmentResult.APPLIED;
+            } catch (AccountNotFoundException e) {
+                status = AdjustmentResult.NOT_FOUND;
+            } catch (TransactionException e) {
+                status = AdjustmentResult.INSUFFICIENT_BALANCE;
+            }
+            results.add(new AdjustmentResult(adjustment.accountNumber(), adjustment.delta(), status));
+        }
+        return new ApiResponse<>("Balances adjusted", results, true);
+    }
+
+    @Override
+    public ApiResponse<AccountDto> getAccount(String accountNumber) {
+        Long balance = balances.get(accountNumber);
+        if (balance == null) {
+            return new ApiResponse<>("Account not found", null, false);
+        }
+        return new ApiResponse<>("Fetched", new AccountDto(accountNumber, null, Money.ofMinor(balance), "ACTIVE"), true);
+    }
+
+    // ------------------------------------------------------------
+    //   Balance changes
+    // ------------------------------------------------------------
+
+    private long apply(String accountNumber, long delta) {
+        if (!trackOverlaps) {
+            return change(accountNumber, delta);
+        }
+        AtomicInteger active = inFlight.computeIfAbsent(accountNumber, acc -> new AtomicInteger());
+        if (active.incrementAndGet() > 1) {
+            overlaps.incrementAndGet();
+        }
+        try {
+            return change(accountNumber, delta);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private long change(String accountNumber, long delta) {
+        if (delta > 0 && rejectingCredits.contains(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        return balances.compute(accountNumber, (acc, balance) -> {
+            if (balance == null) {
+                throw new AccountNotFoundException(acc);
+            }
+            if (balance + delta < 0) {
+                throw new TransactionException("Insufficient balance in account " + acc + "!");
+            }
+            return balance + delta;
+        });
+    }
+
+    private static final class AccountNotFoundException extends TransactionException {
+        AccountNotFoundException(String accountNumber) {
+            super("Account not found: " + accountNumber);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.transactionservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    // ------------------------------------------------------
+    // FORMAT
+    // ------------------------------------------------------
+    @Test
+    void testIdFormat() {
+
+        String id = new IdGenerator(5).generateTransactionId();
+
+        assertTrue(id.matches("TXN-[0-9A-HJKMNP-TV-Z]{16}"), id);
+    }
+
+    @Test
+    void testEncodingKeepsTimeOrder() {
+
+        long low = 0xFFFF_FFFFL;
+        assertEquals("TXN-0000000000000000", IdGenerator.encode(0, 0));
+        assertTrue(IdGenerator.encode(1000, low).compareTo(IdGenerator.encode(1001, 0)) < 0);
+        assertTrue(IdGenerator.encode(1L << 40, 0).compareTo(IdGenerator.encode((1L << 40) + 1, 0)) < 0);
+    }
+
+    @Test
+    void testInvalidNodeIdRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+    }
+
+    // ------------------------------------------------------
+    // ORDERING AND UNIQUENESS
+    // ------------------------------------------------------
+    @Test
+    void testIdsIncreaseWithinAThread() {
+
+        IdGenerator generator = new IdGenerator(5);
+        String previous = generator.generateTransactionId();
+
+        // more than one millisecond's worth of sequence, so the stripe rolls into the next millisecond
+        for (int i = 0; i < 200_000; i++) {
+            String next = generator.generateTransactionId();
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testNoCollisionsAcrossMillionsOfIds() throws Exception {
+
+        int threads = 8;
+        int perThread = 250_000;
+        IdGenerator nodeA = new IdGenerator(1);
+        IdGenerator nodeB = new IdGenerator(2);
+        Set<String> seen = ConcurrentHashMap.newKeySet(threads * perThread);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            IdGenerator generator = t % 2 == 0 ? nodeA : nodeB;
+            futures.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < perThread; i++) {
+                    seen.add(generator.generateTransactionId());
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : futures) {
+            f.get(120, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, seen.size());
+    }
+}